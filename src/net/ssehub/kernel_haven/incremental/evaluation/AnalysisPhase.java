@@ -0,0 +1,68 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Function;
+
+/**
+ * Phases of an analysis whose durations are stored in a
+ * {@link PerformanceResult}. Each phase is delimited by two timestamps
+ * extracted from the log.
+ *
+ * @author moritz
+ */
+public enum AnalysisPhase {
+
+    /** From the start of the analysis until the start of the extraction. */
+    SETUP(PerformanceResult::getStartTime, PerformanceResult::getStartExtractionPhase),
+
+    /** The incremental preparation. */
+    PREPARATION(PerformanceResult::getStartPreparationPhase, PerformanceResult::getEndPreparationPhase),
+
+    /** The extraction. */
+    EXTRACTION(PerformanceResult::getStartExtractionPhase, PerformanceResult::getEndExtractionPhase),
+
+    /** From the end of the extraction until the start of the analysis (the incremental post extraction). */
+    POST_EXTRACTION(PerformanceResult::getEndExtractionPhase, PerformanceResult::getStartAnalysisPhase),
+
+    /** The analysis. */
+    ANALYSIS(PerformanceResult::getStartAnalysisPhase, PerformanceResult::getEndAnalysisPhase),
+
+    /** The time in which analysis and extraction ran in parallel. */
+    OVERLAP(PerformanceResult::getStartAnalysisPhase, PerformanceResult::getEndExtractionPhase);
+
+    /** Gets the timestamp at which the phase starts. */
+    private final Function<PerformanceResult, LocalDateTime> start;
+
+    /** Gets the timestamp at which the phase ends. */
+    private final Function<PerformanceResult, LocalDateTime> end;
+
+    /**
+     * Instantiates a new phase.
+     *
+     * @param start gets the timestamp at which the phase starts
+     * @param end gets the timestamp at which the phase ends
+     */
+    AnalysisPhase(Function<PerformanceResult, LocalDateTime> start, Function<PerformanceResult, LocalDateTime> end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Measures the duration of the phase from the timestamps of a result.
+     *
+     * @param result the result
+     * @return the duration in milliseconds, 0 if a timestamp is missing or the
+     *         start is not before the end
+     */
+    public long measure(PerformanceResult result) {
+        LocalDateTime startTime = start.apply(result);
+        LocalDateTime endTime = end.apply(result);
+        long millis = 0;
+        if (startTime != null && endTime != null && startTime.isBefore(endTime)) {
+            millis = ChronoUnit.MILLIS.between(startTime, endTime);
+        }
+        return millis;
+    }
+
+}
@@ -0,0 +1,202 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Writes results to a compact binary file in which the values of each column
+ * are stored contiguously. Records are collected in row groups of
+ * {@link #ROW_GROUP_SIZE} records; each row group is written column by column,
+ * so a reader can load single columns without decoding the other ones.
+ *
+ * <p>
+ * All numbers are big-endian. The file consists of:
+ * </p>
+ * <ul>
+ * <li>the magic bytes {@code KHRC}, the format version (int) and the number of
+ * columns (int)</li>
+ * <li>for each column: the ordinal of its {@link ResultExporter.ColumnType}
+ * (byte) and its name (int byte length and UTF-8 bytes)</li>
+ * <li>row groups, each consisting of the number of records (int) followed by
+ * a chunk per column: the byte length of the chunk (int) and the values.
+ * Longs and doubles take eight bytes per value, booleans one bit per value
+ * (least significant bit first), strings an int byte length (-1 for null)
+ * and the UTF-8 bytes per value.</li>
+ * <li>an int 0 marking the end of the row groups and the total number of
+ * records (long)</li>
+ * </ul>
+ *
+ * @author moritz
+ */
+public class ColumnarResultExporter extends ResultExporter {
+
+    /** The magic bytes at the start of the file. */
+    public static final byte[] MAGIC = {'K', 'H', 'R', 'C'};
+
+    /** The version of the file format. */
+    public static final int VERSION = 1;
+
+    /** The maximum number of records in a row group. */
+    public static final int ROW_GROUP_SIZE = 8192;
+
+    /** The buffered values of the long columns (null for other types). */
+    private long[][] longColumns;
+
+    /** The buffered values of the double columns (null for other types). */
+    private double[][] doubleColumns;
+
+    /** The buffered values of the boolean columns (null for other types). */
+    private boolean[][] booleanColumns;
+
+    /** The buffered values of the string columns (null for other types). */
+    private byte[][][] stringColumns;
+
+    /** The number of records in the current row group. */
+    private int rows;
+
+    /**
+     * Opens the file and writes the header.
+     *
+     * @param file the file to write
+     * @param schema the columns of the records
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ColumnarResultExporter(Path file, Schema schema) throws IOException {
+        super(file, schema);
+        longColumns = new long[schema.size()][];
+        doubleColumns = new double[schema.size()][];
+        booleanColumns = new boolean[schema.size()][];
+        stringColumns = new byte[schema.size()][][];
+        outputBytes(MAGIC);
+        outputInt(VERSION);
+        outputInt(schema.size());
+        for (int i = 0; i < schema.size(); i++) {
+            outputByte(schema.getType(i).ordinal());
+            byte[] name = schema.getName(i).getBytes(StandardCharsets.UTF_8);
+            outputInt(name.length);
+            outputBytes(name);
+            switch (schema.getType(i)) {
+            case LONG:
+                longColumns[i] = new long[ROW_GROUP_SIZE];
+                break;
+            case DOUBLE:
+                doubleColumns[i] = new double[ROW_GROUP_SIZE];
+                break;
+            case BOOLEAN:
+                booleanColumns[i] = new boolean[ROW_GROUP_SIZE];
+                break;
+            default:
+                stringColumns[i] = new byte[ROW_GROUP_SIZE][];
+                break;
+            }
+        }
+    }
+
+    @Override
+    protected void appendString(int column, String value) {
+        stringColumns[column][rows] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void appendLong(int column, long value) {
+        longColumns[column][rows] = value;
+    }
+
+    @Override
+    protected void appendDouble(int column, double value) {
+        doubleColumns[column][rows] = value;
+    }
+
+    @Override
+    protected void appendBoolean(int column, boolean value) {
+        booleanColumns[column][rows] = value;
+    }
+
+    @Override
+    protected void appendEndOfRecord() throws IOException {
+        rows++;
+        if (rows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        if (rows > 0) {
+            writeRowGroup();
+        }
+        outputInt(0);
+        outputLong(getRecordCount());
+    }
+
+    /**
+     * Writes the buffered records as row group.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void writeRowGroup() throws IOException {
+        outputInt(rows);
+        for (int column = 0; column < longColumns.length; column++) {
+            if (longColumns[column] != null) {
+                outputInt(rows * Long.BYTES);
+                for (int row = 0; row < rows; row++) {
+                    outputLong(longColumns[column][row]);
+                }
+            } else if (doubleColumns[column] != null) {
+                outputInt(rows * Double.BYTES);
+                for (int row = 0; row < rows; row++) {
+                    outputDouble(doubleColumns[column][row]);
+                }
+            } else if (booleanColumns[column] != null) {
+                writeBooleans(booleanColumns[column]);
+            } else {
+                writeStrings(stringColumns[column]);
+            }
+        }
+        rows = 0;
+    }
+
+    /**
+     * Writes the chunk of a boolean column.
+     *
+     * @param values the buffered values
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void writeBooleans(boolean[] values) throws IOException {
+        outputInt((rows + 7) / 8);
+        for (int row = 0; row < rows; row += 8) {
+            int bits = 0;
+            for (int bit = 0; bit < 8 && row + bit < rows; bit++) {
+                if (values[row + bit]) {
+                    bits |= 1 << bit;
+                }
+            }
+            outputByte(bits);
+        }
+    }
+
+    /**
+     * Writes the chunk of a string column.
+     *
+     * @param values the buffered values as UTF-8 bytes
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void writeStrings(byte[][] values) throws IOException {
+        int length = 0;
+        for (int row = 0; row < rows; row++) {
+            length += Integer.BYTES + (values[row] == null ? 0 : values[row].length);
+        }
+        outputInt(length);
+        for (int row = 0; row < rows; row++) {
+            if (values[row] == null) {
+                outputInt(-1);
+            } else {
+                outputInt(values[row].length);
+                outputBytes(values[row]);
+                values[row] = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Receives the output of {@code git log --format=%H} and passes every commit
+ * hash to a consumer as soon as its line is complete, so that the commits can
+ * be processed while git is still running and the output is never held in
+ * memory as a whole.
+ *
+ * @author moritz
+ */
+public class CommitHashStream extends OutputStream {
+
+    /** The length of a full commit hash. */
+    private static final int HASH_LENGTH = 40;
+
+    /** Receives the commit hashes. */
+    private Consumer<String> consumer;
+
+    /** The current line. */
+    private byte[] line = new byte[HASH_LENGTH + 1];
+
+    /** The number of bytes in the current line. */
+    private int lineLength;
+
+    /**
+     * Instantiates a new stream.
+     *
+     * @param consumer receives the commit hashes in the order of the output
+     */
+    public CommitHashStream(Consumer<String> consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void write(int value) {
+        if (value == '\n') {
+            passLine();
+        } else {
+            if (lineLength == line.length) {
+                byte[] longerLine = new byte[line.length * 2];
+                System.arraycopy(line, 0, longerLine, 0, lineLength);
+                line = longerLine;
+            }
+            line[lineLength++] = (byte) value;
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            write(bytes[i]);
+        }
+    }
+
+    /**
+     * Passes the last line if it is not terminated by a line break.
+     */
+    @Override
+    public void close() {
+        passLine();
+    }
+
+    /**
+     * Passes the current line to the consumer unless it is empty.
+     */
+    private void passLine() {
+        String hash = new String(line, 0, lineLength, StandardCharsets.US_ASCII).trim();
+        lineLength = 0;
+        if (!hash.isEmpty()) {
+            consumer.accept(hash);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the names of analysis components. Every distinct name is stored once
+ * and identified by a small number, so {@link PerformanceResult}s only store
+ * the numbers of their components and statistics can use arrays indexed by the
+ * number. Numbers are assigned in the order names are first seen and are only
+ * valid within one execution.
+ *
+ * <p>
+ * Log files are read concurrently, so all methods are synchronized. Component
+ * names only occur a few times per log, so this is not a bottleneck.
+ * </p>
+ *
+ * @author moritz
+ */
+public final class ComponentNames {
+
+    /** The numbers of all names. */
+    private static final Map<String, Integer> IDS = new HashMap<String, Integer>();
+
+    /** The names by number. */
+    private static final List<String> NAMES = new ArrayList<String>();
+
+    /**
+     * Utility class without instances.
+     */
+    private ComponentNames() {
+    }
+
+    /**
+     * Gets the number of a component name, assigning a new one if the name was
+     * not seen before.
+     *
+     * @param name the name of the component
+     * @return the number of the name
+     */
+    public static synchronized int intern(String name) {
+        Integer id = IDS.get(name);
+        if (id == null) {
+            id = NAMES.size();
+            NAMES.add(name);
+            IDS.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the number of a component name without assigning a new one.
+     *
+     * @param name the name of the component
+     * @return the number of the name, -1 if the name was not seen before
+     */
+    public static synchronized int find(String name) {
+        Integer id = IDS.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Gets the name of a component.
+     *
+     * @param id the number of the name
+     * @return the name
+     */
+    public static synchronized String getName(int id) {
+        return NAMES.get(id);
+    }
+
+    /**
+     * Gets the number of distinct names. All numbers are smaller than this.
+     *
+     * @return the number of names
+     */
+    public static synchronized int size() {
+        return NAMES.size();
+    }
+
+}
@@ -0,0 +1,110 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.Arrays;
+
+/**
+ * Execution times of analysis components accumulated over the results in a
+ * {@link PerformanceResultStore}. The statistics are stored in arrays indexed by
+ * the number of the component name (see {@link ComponentNames}).
+ *
+ * @author moritz
+ */
+public class ComponentStatistics {
+
+    /** The accumulated execution time of each component in milliseconds. */
+    private long[] totalTimes = new long[0];
+
+    /** The longest execution time of each component in milliseconds. */
+    private long[] maxTimes = new long[0];
+
+    /** The number of results in which each component finished. */
+    private long[] occurrences = new long[0];
+
+    /** The accumulated execution time of all components in milliseconds. */
+    private long totalTime;
+
+    /**
+     * Adds the component times of a result.
+     *
+     * @param results the results
+     * @param index the ordinal of the result
+     */
+    public void add(PerformanceResultStore results, int index) {
+        for (int id = 0; id < results.getComponentCount(); id++) {
+            long time = results.getComponentMillis(id, index);
+            if (time >= 0) {
+                if (id >= totalTimes.length) {
+                    int capacity = Math.max(id + 1, ComponentNames.size());
+                    totalTimes = Arrays.copyOf(totalTimes, capacity);
+                    maxTimes = Arrays.copyOf(maxTimes, capacity);
+                    occurrences = Arrays.copyOf(occurrences, capacity);
+                }
+                totalTimes[id] += time;
+                maxTimes[id] = Math.max(maxTimes[id], time);
+                occurrences[id]++;
+                totalTime += time;
+            }
+        }
+    }
+
+    /**
+     * Gets the accumulated execution time of a component.
+     *
+     * @param id the number of the component name
+     * @return the time in milliseconds, 0 if the component never finished
+     */
+    public long getTotalTime(int id) {
+        return id < totalTimes.length ? totalTimes[id] : 0;
+    }
+
+    /**
+     * Gets the longest execution time of a component.
+     *
+     * @param id the number of the component name
+     * @return the time in milliseconds, 0 if the component never finished
+     */
+    public long getMaxTime(int id) {
+        return id < maxTimes.length ? maxTimes[id] : 0;
+    }
+
+    /**
+     * Gets the number of results in which a component finished.
+     *
+     * @param id the number of the component name
+     * @return the number of results
+     */
+    public long getOccurrences(int id) {
+        return id < occurrences.length ? occurrences[id] : 0;
+    }
+
+    /**
+     * Gets the average execution time of a component over the results in
+     * which it finished.
+     *
+     * @param id the number of the component name
+     * @return the time in milliseconds, NaN if the component never finished
+     */
+    public double getAverageTime(int id) {
+        return ((double) getTotalTime(id)) / getOccurrences(id);
+    }
+
+    /**
+     * Gets the share of a component in the accumulated time of all components.
+     *
+     * @param id the number of the component name
+     * @return the share in percent
+     */
+    public double getShareInPercent(int id) {
+        return totalTime == 0 ? 0 : 100d * getTotalTime(id) / totalTime;
+    }
+
+    /**
+     * Gets the accumulated execution time of all components.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+}
@@ -0,0 +1,204 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Writes a gzip compressed file. Written bytes are collected into chunks that
+ * are compressed by a separate thread, so that the writer (e.g. the thread
+ * reading the output of git) is only blocked if compression falls behind by
+ * more than a few chunks. When the stream is closed, the size before and after
+ * compression, the compression ratio and the throughput are logged.
+ *
+ * @author moritz
+ */
+public class CompressingOutputStream extends OutputStream {
+
+    /** Suffix of compressed files. */
+    public static final String SUFFIX = ".gz";
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The size of the chunks passed to the compressing thread. */
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    /** The number of chunks that may wait for compression. */
+    private static final int QUEUE_SIZE = 8;
+
+    /** Number of bytes in a megabyte. */
+    private static final double MEGABYTE = 1024 * 1024;
+
+    /** Marks the end of the data in the queue. */
+    private static final byte[] END = new byte[0];
+
+    /** The compressed file. */
+    private File file;
+
+    /** The chunks waiting for compression. */
+    private BlockingQueue<byte[]> queue = new ArrayBlockingQueue<byte[]>(QUEUE_SIZE);
+
+    /** The chunk currently filled. */
+    private byte[] chunk = new byte[CHUNK_SIZE];
+
+    /** The number of bytes in the current chunk. */
+    private int chunkLength;
+
+    /** The number of bytes written to this stream. */
+    private long uncompressedBytes;
+
+    /** The value of {@link System#nanoTime()} when the stream was opened. */
+    private long startTime = System.nanoTime();
+
+    /** The thread compressing the chunks. */
+    private Thread compressor;
+
+    /** The exception that stopped the compression, if any. */
+    private volatile IOException error;
+
+    /** Whether the stream was closed. */
+    private boolean closed;
+
+    /**
+     * Creates the file and starts compressing.
+     *
+     * @param file the compressed file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public CompressingOutputStream(File file) throws IOException {
+        this.file = file;
+        OutputStream out = new GZIPOutputStream(new FileOutputStream(file), CHUNK_SIZE);
+        compressor = new Thread(() -> compress(out), "gzip " + file.getName());
+        compressor.start();
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        if (chunkLength == chunk.length) {
+            passChunk();
+        }
+        chunk[chunkLength++] = (byte) value;
+        uncompressedBytes++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (chunkLength == chunk.length) {
+                passChunk();
+            }
+            int count = Math.min(length - written, chunk.length - chunkLength);
+            System.arraycopy(bytes, offset + written, chunk, chunkLength, count);
+            chunkLength += count;
+            written += count;
+        }
+        uncompressedBytes += length;
+    }
+
+    /**
+     * Waits until all written bytes are compressed, closes the file and logs
+     * the compression statistics.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (chunkLength > 0) {
+                passChunk();
+            }
+            put(END);
+            try {
+                compressor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while compressing " + file, e);
+            }
+            if (error != null) {
+                throw error;
+            }
+            double seconds = Math.max(1e-9, (System.nanoTime() - startTime) / 1000000000d);
+            long compressedBytes = file.length();
+            LOGGER.logInfo(String.format(Locale.ROOT, "Compressed %s: %.2f MB to %.2f MB (ratio %.2f, %.2f MB/s)",
+                file.getName(), uncompressedBytes / MEGABYTE, compressedBytes / MEGABYTE,
+                uncompressedBytes / (double) Math.max(1, compressedBytes), uncompressedBytes / MEGABYTE / seconds));
+        }
+    }
+
+    /**
+     * Passes the current chunk to the compressing thread.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void passChunk() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        if (chunkLength < chunk.length) {
+            byte[] rest = new byte[chunkLength];
+            System.arraycopy(chunk, 0, rest, 0, chunkLength);
+            put(rest);
+        } else {
+            put(chunk);
+            chunk = new byte[CHUNK_SIZE];
+        }
+        chunkLength = 0;
+    }
+
+    /**
+     * Puts a chunk into the queue.
+     *
+     * @param bytes the chunk
+     * @throws IOException if interrupted while waiting for the compressing
+     *         thread
+     */
+    private void put(byte[] bytes) throws IOException {
+        try {
+            queue.put(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing " + file, e);
+        }
+    }
+
+    /**
+     * Compresses the chunks until the end is reached. After an error, the
+     * remaining chunks are discarded so that the writer is not blocked.
+     *
+     * @param out the compressing stream of the file
+     */
+    private void compress(OutputStream out) {
+        try {
+            for (byte[] bytes = queue.take(); bytes != END; bytes = queue.take()) {
+                if (error == null) {
+                    try {
+                        out.write(bytes);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            error = new IOException("Interrupted while compressing " + file, e);
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes results as semicolon separated values with a header line containing
+ * the column names. Strings containing a separator, quote or line break are
+ * quoted; null strings are written as empty values.
+ *
+ * @author moritz
+ */
+public class CsvResultExporter extends ResultExporter {
+
+    /** The separator between the values of a record. */
+    private static final char SEPARATOR = ';';
+
+    /** The quote character. */
+    private static final char QUOTE = '"';
+
+    /**
+     * Opens the file and writes the header line.
+     *
+     * @param file the file to write
+     * @param schema the columns of the records
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public CsvResultExporter(Path file, Schema schema) throws IOException {
+        super(file, schema);
+        for (int i = 0; i < schema.size(); i++) {
+            appendString(i, schema.getName(i));
+        }
+        appendEndOfRecord();
+    }
+
+    @Override
+    protected void appendString(int column, String value) throws IOException {
+        separate(column);
+        if (value != null) {
+            if (needsQuotes(value)) {
+                outputByte(QUOTE);
+                outputText(value.replace("\"", "\"\""));
+                outputByte(QUOTE);
+            } else {
+                outputText(value);
+            }
+        }
+    }
+
+    @Override
+    protected void appendLong(int column, long value) throws IOException {
+        separate(column);
+        outputNumber(value);
+    }
+
+    @Override
+    protected void appendDouble(int column, double value) throws IOException {
+        separate(column);
+        outputNumber(value);
+    }
+
+    @Override
+    protected void appendBoolean(int column, boolean value) throws IOException {
+        separate(column);
+        outputText(value ? "true" : "false");
+    }
+
+    @Override
+    protected void appendEndOfRecord() throws IOException {
+        outputByte('\n');
+    }
+
+    /**
+     * Writes the separator in front of every value but the first.
+     *
+     * @param column the index of the column of the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void separate(int column) throws IOException {
+        if (column > 0) {
+            outputByte(SEPARATOR);
+        }
+    }
+
+    /**
+     * Checks whether a string must be quoted.
+     *
+     * @param value the string
+     * @return true, if the string contains a separator, quote or line break
+     */
+    private static boolean needsQuotes(String value) {
+        boolean quote = false;
+        for (int i = 0; !quote && i < value.length(); i++) {
+            char character = value.charAt(i);
+            quote = character == SEPARATOR || character == QUOTE || character == '\n' || character == '\r';
+        }
+        return quote;
+    }
+
+}
@@ -2,13 +2,27 @@ package net.ssehub.kernel_haven.incremental.evaluation;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+import java.util.zip.GZIPInputStream;
 
 import net.ssehub.kernel_haven.util.Logger;
 import net.ssehub.kernel_haven.util.Util;
@@ -22,15 +36,30 @@ import net.ssehub.kernel_haven.util.Util;
 public class DiffGenerator {
 
     /** The Constant EMPTY_REPOSITORY_HASH. */
-    private static final String EMPTY_REPOSITORY_HASH =
+    static final String EMPTY_REPOSITORY_HASH =
         "4b825dc642cb6eb9a060e54bf8d69288fbee4904";
 
     /** The Constant LOGGER. */
     private static final Logger LOGGER = Logger.get();
 
+    /** Marks the end of the commits passed between threads. */
+    private static final String END_OF_COMMITS = new String();
+
     /** The git repository. */
     private File gitRepository;
 
+    /** Whether to skip diffs recorded in the {@link DiffManifest}. */
+    private boolean useManifest = true;
+
+    /** Whether to compare the checksums of recorded diffs. */
+    private boolean verifyChecksums = false;
+
+    /** Whether to write gzip compressed diff files. */
+    private boolean compress = false;
+
+    /** Whether to collect the {@link DiffStatistics} of the diffs. */
+    private boolean collectStatistics = true;
+
     /**
      * Instantiates a new diff generator.
      *
@@ -41,6 +70,54 @@ public class DiffGenerator {
         this.gitRepository = gitRepository;
     }
 
+    /**
+     * Sets whether diffs that are recorded in the manifest of the output
+     * directory (see {@link DiffManifest}) are reused instead of generated
+     * again. Enabled by default.
+     *
+     * @param useManifest
+     *            true to reuse recorded diffs
+     */
+    public void setUseManifest(boolean useManifest) {
+        this.useManifest = useManifest;
+    }
+
+    /**
+     * Sets whether the checksums of recorded diffs are compared before they
+     * are reused. Otherwise, only the commits and the size are compared.
+     * Disabled by default.
+     *
+     * @param verifyChecksums
+     *            true to compare checksums
+     */
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    /**
+     * Sets whether the diff files are written gzip compressed (see
+     * {@link CompressingOutputStream}). Compressed files get the suffix
+     * {@value CompressingOutputStream#SUFFIX}. Disabled by default.
+     *
+     * @param compress
+     *            true to compress the diff files
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    /**
+     * Sets whether the {@link DiffStatistics} of the diffs are collected
+     * while they are written and stored in the {@link DiffStatisticsIndex}
+     * next to the output directory. Enabled by default.
+     *
+     * @param collectStatistics
+     *            true to collect statistics
+     */
+    public void setCollectStatistics(boolean collectStatistics) {
+        this.collectStatistics = collectStatistics;
+    }
+
     /**
      * Generate diff.
      *
@@ -56,15 +133,42 @@ public class DiffGenerator {
      */
     public boolean generateDiff(String oldCommitHash, String newCommitHash,
         File resultFile) throws IOException {
+        return generateDiff(oldCommitHash, newCommitHash, resultFile,
+            new CRC32(), null);
+    }
+
+    /**
+     * Generate diff and calculate the checksum and statistics of its content.
+     *
+     * @param oldCommitHash
+     *            the old commit hash
+     * @param newCommitHash
+     *            the new commit hash
+     * @param resultFile
+     *            the result file
+     * @param checksum
+     *            updated with the content of the diff
+     * @param statistics
+     *            filled with the statistics of the diff, may be null
+     * @return true, if successful
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private boolean generateDiff(String oldCommitHash, String newCommitHash,
+        File resultFile, Checksum checksum, DiffStatistics statistics)
+        throws IOException {
         ProcessBuilder processBuilder = new ProcessBuilder("git", "diff",
             "--no-renames", "--binary", "-U100000", oldCommitHash, newCommitHash);
         processBuilder.directory(gitRepository);
 
-        FileOutputStream stdoutStream = new FileOutputStream(resultFile);
         ByteArrayOutputStream stderrStream = new ByteArrayOutputStream();
 
         boolean success = false;
-        try {
+        try (OutputStream stdoutStream = statistics == null
+            ? new CheckedOutputStream(openDiffFile(resultFile, compress),
+                checksum)
+            : new DiffStatisticsStream(new CheckedOutputStream(
+                openDiffFile(resultFile, compress), checksum), statistics)) {
             success = Util.executeProcess(processBuilder, "git diff",
                 stdoutStream, stderrStream, 0);
         } catch (IOException e) {
@@ -85,7 +189,7 @@ public class DiffGenerator {
     }
 
     /**
-     * Generate diffs.
+     * Generate diffs one after another.
      *
      * @param commits
      *            the commits
@@ -97,29 +201,398 @@ public class DiffGenerator {
      */
     public boolean generateDiffs(List<String> commits, File outputDir)
         throws IOException {
+        return generateDiffs(commits, outputDir, 1);
+    }
+
+    /**
+     * Generate diffs with up to the given number of git processes running at
+     * the same time. The diff between the commits at index i - 1 and i is
+     * always written to the file numbered i, so the output does not depend on
+     * the order in which the processes finish. Progress and throughput are
+     * logged whenever a diff is finished. Diffs that are recorded in the
+     * manifest of the output directory are not generated again (see
+     * {@link #setUseManifest(boolean)}). The statistics of the diffs are
+     * collected while they are written (see
+     * {@link #setCollectStatistics(boolean)}).
+     *
+     * @param commits
+     *            the commits
+     * @param outputDir
+     *            the output dir
+     * @param threads
+     *            the maximum number of concurrent git processes
+     * @return true, if all diffs were generated successfully
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public boolean generateDiffs(List<String> commits, File outputDir,
+        int threads) throws IOException {
+        outputDir.mkdirs();
         boolean success = true;
+        try (DiffRecorder recorder = openRecorder(outputDir)) {
+            List<Integer> numbers =
+                getMissingDiffs(commits, outputDir, recorder);
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<Boolean>> tasks = new ArrayList<Future<Boolean>>();
+            for (int number : numbers) {
+                String oldCommit = commits.get(number - 1);
+                String newCommit = commits.get(number);
+                tasks.add(pool.submit(() -> generateDiff(number, oldCommit,
+                    newCommit, outputDir, recorder)));
+            }
 
-        String thisCommit = null;
-        String nextCommit = null;
+            for (boolean result : getAll(tasks, pool)) {
+                success &= result;
+            }
+            recorder.complete();
+        }
+        return success;
+    }
 
+    /**
+     * Generate diffs for all commits in a range (see
+     * {@link #listAllCommitsInRange(String, String, Consumer)}) with up to
+     * the given number of git processes running at the same time. The diffs
+     * are generated while the commits are still being listed: every commit
+     * read from {@code git log} is passed through a queue to this thread,
+     * which immediately schedules the diff to its predecessor (the first
+     * commit is compared to the empty repository). Otherwise, the behavior is
+     * the same as for {@link #generateDiffs(List, File, int)}.
+     *
+     * @param startCommitHash
+     *            the start commit hash
+     * @param endCommitHash
+     *            the end commit hash
+     * @param outputDir
+     *            the output dir
+     * @param threads
+     *            the maximum number of concurrent git processes
+     * @return true, if all commits were listed and all diffs were generated
+     *         successfully
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public boolean generateDiffs(String startCommitHash, String endCommitHash,
+        File outputDir, int threads) throws IOException {
         outputDir.mkdirs();
+        BlockingQueue<String> queue = new LinkedBlockingQueue<String>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        List<Future<Boolean>> listing = new ArrayList<Future<Boolean>>();
+        listing.add(producer.submit(() -> {
+            try {
+                return listAllCommitsInRange(startCommitHash, endCommitHash,
+                    hash -> {
+                        if (!stopped.get()) {
+                            queue.add(hash);
+                        }
+                    });
+            } finally {
+                queue.add(END_OF_COMMITS);
+            }
+        }));
 
-        int counter = 1;
-        for (String commit : commits) {
-            thisCommit = nextCommit;
-            nextCommit = commit;
-            if (thisCommit != null) {
-                String counterString = String.format("%05d", counter);
-                File outputFile = outputDir.toPath()
-                    .resolve(counterString + "-git.diff").toFile();
-                generateDiff(thisCommit, nextCommit, outputFile);
-                counter++;
+        boolean success = true;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (DiffRecorder recorder = openRecorder(outputDir)) {
+            List<Future<Boolean>> tasks = new ArrayList<Future<Boolean>>();
+            try {
+                String oldCommit = EMPTY_REPOSITORY_HASH;
+                int number = 1;
+                String nextCommit = queue.take();
+                while (nextCommit != END_OF_COMMITS) {
+                    String previousCommit = oldCommit;
+                    String newCommit = nextCommit;
+                    int diffNumber = number;
+                    if (!recorder.isDone(number,
+                        getDiffFile(outputDir, number, compress),
+                        previousCommit, newCommit)) {
+                        tasks.add(pool.submit(() -> generateDiff(diffNumber,
+                            previousCommit, newCommit, outputDir, recorder)));
+                    }
+                    oldCommit = newCommit;
+                    number++;
+                    nextCommit = queue.take();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while listing commits", e);
+            }
+            recorder.logSkipped();
+
+            for (boolean result : getAll(tasks, pool)) {
+                success &= result;
+            }
+            boolean listed = true;
+            for (boolean result : getAll(listing, producer)) {
+                listed &= result;
+            }
+            if (listed) {
+                recorder.complete();
             }
+            success &= listed;
+        } finally {
+            // the threads of both executors would keep the JVM alive after an
+            // exception; commits that git still lists are discarded
+            stopped.set(true);
+            producer.shutdownNow();
+            pool.shutdownNow();
         }
+        return success;
+    }
 
+    /**
+     * Generate diffs through long-lived git processes (see
+     * {@link GitDiffPipeline}) instead of starting one git process per diff.
+     * The diffs are split into as many consecutive ranges as processes are
+     * given, and each range is streamed through its own git process. Diffs
+     * that can not be generated this way (e.g. the diff against the empty
+     * repository) are generated with {@link #generateDiff(String, String,
+     * File)} afterwards. The output and the handling of the manifest and the
+     * statistics are identical to {@link #generateDiffs(List, File, int)}.
+     *
+     * @param commits
+     *            the commits
+     * @param outputDir
+     *            the output dir
+     * @param processes
+     *            the number of concurrent git processes
+     * @return true, if all diffs were generated successfully
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public boolean generateDiffsInPipeline(List<String> commits,
+        File outputDir, int processes) throws IOException {
+        outputDir.mkdirs();
+        boolean success = true;
+        try (DiffRecorder recorder = openRecorder(outputDir)) {
+            List<Integer> numbers =
+                getMissingDiffs(commits, outputDir, recorder);
+            GitDiffPipeline pipeline = new GitDiffPipeline(gitRepository,
+                compress, collectStatistics);
+            GitDiffPipeline.DiffListener listener =
+                (number, diffFile, checksum, statistics) -> recorder.generated(
+                    number, diffFile, commits.get(number - 1),
+                    commits.get(number), checksum, statistics);
+
+            int ranges = Math.max(1, Math.min(processes, numbers.size()));
+            int rangeSize =
+                Math.max(1, (numbers.size() + ranges - 1) / ranges);
+            ExecutorService pool = Executors.newFixedThreadPool(ranges);
+            List<Future<List<Integer>>> tasks =
+                new ArrayList<Future<List<Integer>>>();
+            for (int from = 0; from < numbers.size(); from += rangeSize) {
+                List<Integer> range = numbers.subList(from,
+                    Math.min(from + rangeSize, numbers.size()));
+                tasks.add(pool.submit(() -> pipeline.generateDiffs(commits,
+                    range, outputDir, listener)));
+            }
+
+            for (List<Integer> missing : getAll(tasks, pool)) {
+                for (int number : missing) {
+                    success &= generateDiff(number, commits.get(number - 1),
+                        commits.get(number), outputDir, recorder);
+                }
+            }
+            recorder.complete();
+        }
+        return success;
+    }
+
+    /**
+     * Generates one diff with its own git process and records it if
+     * successful.
+     *
+     * @param number
+     *            the number of the diff
+     * @param oldCommitHash
+     *            the old commit hash
+     * @param newCommitHash
+     *            the new commit hash
+     * @param outputDir
+     *            the output dir
+     * @param recorder
+     *            the recorder
+     * @return true, if successful
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private boolean generateDiff(int number, String oldCommitHash,
+        String newCommitHash, File outputDir, DiffRecorder recorder)
+        throws IOException {
+        File outputFile = getDiffFile(outputDir, number, compress);
+        CRC32 checksum = new CRC32();
+        DiffStatistics statistics = recorder.newStatistics();
+        boolean success = generateDiff(oldCommitHash, newCommitHash,
+            outputFile, checksum, statistics);
+        if (success) {
+            recorder.generated(number, outputFile, oldCommitHash,
+                newCommitHash, checksum.getValue(), statistics);
+        } else {
+            LOGGER.logError("Could not generate " + outputFile.getName());
+            recorder.failed(outputFile);
+        }
         return success;
     }
 
+    /**
+     * Opens the manifest and the statistics index of an output directory.
+     *
+     * @param outputDir
+     *            the output dir
+     * @return the recorder
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private DiffRecorder openRecorder(File outputDir) throws IOException {
+        DiffManifest manifest =
+            useManifest ? new DiffManifest(outputDir) : null;
+        DiffStatisticsIndex statistics = null;
+        if (collectStatistics) {
+            File indexFile = DiffStatisticsIndex.getIndexFile(outputDir);
+            try {
+                statistics = DiffStatisticsIndex.load(indexFile);
+            } catch (IOException e) {
+                LOGGER.logInfo("Rebuilding " + indexFile + ": "
+                    + e.getMessage());
+                statistics = new DiffStatisticsIndex(indexFile);
+            }
+        }
+        return new DiffRecorder(manifest, statistics, verifyChecksums);
+    }
+
+    /**
+     * Determines the diffs that are not recorded in the manifest.
+     *
+     * @param commits
+     *            the commits
+     * @param outputDir
+     *            the output dir
+     * @param recorder
+     *            the recorder
+     * @return the numbers of the diffs to generate in ascending order
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    private List<Integer> getMissingDiffs(List<String> commits,
+        File outputDir, DiffRecorder recorder) throws IOException {
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 1; i < commits.size(); i++) {
+            if (!recorder.isDone(i, getDiffFile(outputDir, i, compress),
+                commits.get(i - 1), commits.get(i))) {
+                numbers.add(i);
+            }
+        }
+        recorder.logSkipped();
+        return numbers;
+    }
+
+    /**
+     * Waits for all tasks and shuts the pool down afterwards.
+     *
+     * @param <T>
+     *            the type of the task results
+     * @param tasks
+     *            the tasks
+     * @param pool
+     *            the pool running the tasks
+     * @return the results of the tasks in the order of the tasks
+     * @throws IOException
+     *             if a task failed or the waiting was interrupted
+     */
+    private static <T> List<T> getAll(List<Future<T>> tasks,
+        ExecutorService pool) throws IOException {
+        List<T> results = new ArrayList<T>(tasks.size());
+        try {
+            for (Future<T> task : tasks) {
+                results.add(task.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating diffs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not generate diffs", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Gets the file to which a diff is written.
+     *
+     * @param outputDir
+     *            the output dir
+     * @param number
+     *            the number of the diff (starting at 1)
+     * @return the file
+     */
+    static File getDiffFile(File outputDir, int number) {
+        return getDiffFile(outputDir, number, false);
+    }
+
+    /**
+     * Gets the file to which a diff is written.
+     *
+     * @param outputDir
+     *            the output dir
+     * @param number
+     *            the number of the diff (starting at 1)
+     * @param compressed
+     *            whether the diff is written compressed
+     * @return the file
+     */
+    static File getDiffFile(File outputDir, int number, boolean compressed) {
+        String counterString = String.format("%05d", number);
+        String suffix = compressed ? CompressingOutputStream.SUFFIX : "";
+        return outputDir.toPath().resolve(counterString + "-git.diff" + suffix)
+            .toFile();
+    }
+
+    /**
+     * Opens a diff file for writing.
+     *
+     * @param diffFile
+     *            the diff file
+     * @param compressed
+     *            whether to compress the diff on a separate thread
+     * @return the stream
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    static OutputStream openDiffFile(File diffFile, boolean compressed)
+        throws IOException {
+        OutputStream out;
+        if (compressed) {
+            out = new CompressingOutputStream(diffFile);
+        } else {
+            out = new FileOutputStream(diffFile);
+        }
+        return out;
+    }
+
+    /**
+     * Opens a diff file for reading its uncompressed content.
+     *
+     * @param diffFile
+     *            the diff file, compressed if its name ends with
+     *            {@value CompressingOutputStream#SUFFIX}
+     * @return the stream
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    static InputStream readDiffFile(File diffFile) throws IOException {
+        InputStream in = new FileInputStream(diffFile);
+        if (diffFile.getName().endsWith(CompressingOutputStream.SUFFIX)) {
+            in = new GZIPInputStream(in);
+        }
+        return in;
+    }
+
     /**
      * List all commits in range.
      *
@@ -127,29 +600,53 @@ public class DiffGenerator {
      *            the start commit hash
      * @param endCommitHash
      *            the end commit hash
-     * @return the list
+     * @return the list, null if the commits could not be listed
      */
     public List<String> listAllCommitsInRange(String startCommitHash,
         String endCommitHash) {
-        ProcessBuilder processBuilder =
-            new ProcessBuilder("git", "log", "--first-parent",
-                "--pretty=oneline", startCommitHash + "^.." + endCommitHash);
+        List<String> commits = new ArrayList<String>();
+        if (!listAllCommitsInRange(startCommitHash, endCommitHash,
+            commits::add)) {
+            commits = null;
+        }
+        return commits;
+    }
+
+    /**
+     * List all commits in range from the oldest to the newest commit, following
+     * only the first parent of merges. Every commit hash is passed to the
+     * consumer as soon as git has written it, so the output of git is never
+     * held in memory as a whole.
+     *
+     * @param startCommitHash
+     *            the start commit hash
+     * @param endCommitHash
+     *            the end commit hash
+     * @param consumer
+     *            receives the commit hashes
+     * @return true, if successful
+     */
+    public boolean listAllCommitsInRange(String startCommitHash,
+        String endCommitHash, Consumer<String> consumer) {
+        ProcessBuilder processBuilder = new ProcessBuilder("git", "log",
+            "--first-parent", "--reverse", "--format=%H",
+            startCommitHash + "^.." + endCommitHash);
         processBuilder.directory(gitRepository);
 
-        ByteArrayOutputStream stdoutStream = new ByteArrayOutputStream();
+        CommitHashStream stdoutStream = new CommitHashStream(consumer);
         ByteArrayOutputStream stderrStream = new ByteArrayOutputStream();
 
         boolean success = false;
         try {
             success = Util.executeProcess(processBuilder, "git log",
                 stdoutStream, stderrStream, 0);
+            stdoutStream.close();
         } catch (IOException e) {
             LOGGER.logException("Could not list commit hashes in given range",
                 e);
         }
 
         String stderr = stderrStream.toString();
-        String stdout = stdoutStream.toString();
 
         if (stderr != null && !stderr.equals("")) {
             if (!success) {
@@ -159,23 +656,31 @@ public class DiffGenerator {
             }
         }
 
-        List<String> cleanedCommitLines = null;
-        if (success) {
-            List<String> commits = Arrays.asList(stdout.split("\n"));
-            Collections.reverse(commits);
-
-            cleanedCommitLines = new ArrayList<String>();
-
-            for (String commit : commits) {
-                cleanedCommitLines
-                    .add(commit.substring(0, EMPTY_REPOSITORY_HASH.length()));
-            }
-
-        } else {
+        if (!success) {
             LOGGER.logError("Could not list commit hashes in given range");
         }
-        return cleanedCommitLines;
+        return success;
+    }
 
+    /**
+     * Parses the number of git processes given for the -j option.
+     *
+     * @param value
+     *            the value
+     * @return the number of processes
+     */
+    private static int parseThreadCount(String value) {
+        int threads = 0;
+        try {
+            threads = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            threads = 0;
+        }
+        if (threads < 1) {
+            LOGGER.logError("invalid number of git processes " + value);
+            System.exit(1);
+        }
+        return threads;
     }
 
     /**
@@ -187,6 +692,31 @@ public class DiffGenerator {
      *             Signals that an I/O exception has occurred.
      */
     public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean pipeline = false;
+        boolean useManifest = true;
+        boolean verifyChecksums = false;
+        boolean compress = false;
+        boolean collectStatistics = true;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-j") && i + 1 < args.length) {
+                i++;
+                threads = parseThreadCount(args[i]);
+            } else if (args[i].equals("-pipeline")) {
+                pipeline = true;
+            } else if (args[i].equals("-nomanifest")) {
+                useManifest = false;
+            } else if (args[i].equals("-verify")) {
+                verifyChecksums = true;
+            } else if (args[i].equals("-compress")) {
+                compress = true;
+            } else if (args[i].equals("-nostats")) {
+                collectStatistics = false;
+            } else {
+                LOGGER.logError("unknown option " + args[i]);
+                System.exit(1);
+            }
+        }
 
         System.out.println("Enter path to Linux repo:");
         Scanner scanner = new Scanner(System.in);
@@ -198,6 +728,10 @@ public class DiffGenerator {
         File outputDir = new File(outputDirString);
 
         DiffGenerator diffGen = new DiffGenerator(linuxRepo);
+        diffGen.setUseManifest(useManifest);
+        diffGen.setVerifyChecksums(verifyChecksums);
+        diffGen.setCompress(compress);
+        diffGen.setCollectStatistics(collectStatistics);
 
         System.out.println(
             "Enter the commit hash of the commit that you want to be considered the initial commit:");
@@ -209,20 +743,36 @@ public class DiffGenerator {
 
         String commitEnd = scanner.nextLine();
 
-        System.out.println("Creating list of commits ...");
-        List<String> commits =
-            diffGen.listAllCommitsInRange(commitStart, commitEnd);
-        System.out.println("List of commits in given range:"
-            + Arrays.toString(commits.toArray()));
-        List<String> commitsWithEmptyStart = new ArrayList<String>();
-        commitsWithEmptyStart.add(EMPTY_REPOSITORY_HASH);
-
-        commitsWithEmptyStart.addAll(commits);
-
-        System.out.println("Generating diffs for commits ...");
-        diffGen.generateDiffs(commitsWithEmptyStart, outputDir);
-        System.out.println("Finished!");
+        boolean success = false;
+        if (pipeline) {
+            System.out.println("Creating list of commits ...");
+            List<String> commits =
+                diffGen.listAllCommitsInRange(commitStart, commitEnd);
+            if (commits != null) {
+                System.out.println("List of commits in given range:"
+                    + Arrays.toString(commits.toArray()));
+                List<String> commitsWithEmptyStart = new ArrayList<String>();
+                commitsWithEmptyStart.add(EMPTY_REPOSITORY_HASH);
+
+                commitsWithEmptyStart.addAll(commits);
+
+                System.out.println("Generating diffs for commits running "
+                    + threads + " git processes at once ...");
+                success = diffGen.generateDiffsInPipeline(commitsWithEmptyStart,
+                    outputDir, threads);
+            }
+        } else {
+            System.out.println("Generating diffs while listing commits, "
+                + "running " + threads + " git processes at once ...");
+            success = diffGen.generateDiffs(commitStart, commitEnd, outputDir,
+                threads);
+        }
         scanner.close();
+        if (!success) {
+            LOGGER.logError("Not all diffs could be generated");
+            System.exit(1);
+        }
+        System.out.println("Finished!");
     }
 
 }
@@ -0,0 +1,212 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Compares the time needed to generate the diffs of a commit range with one
+ * git process per diff ({@link DiffGenerator#generateDiffs(List, File, int)})
+ * and with long-lived git processes
+ * ({@link DiffGenerator#generateDiffsInPipeline(List, File, int)}). Both modes
+ * are run alternately into temporary directories, and the generated diffs are
+ * checked to be identical.
+ *
+ * <p>
+ * Usage: {@code DiffGeneratorBenchmark [-j N] [-runs N] <repository>
+ * <first commit> <last commit>}
+ * </p>
+ *
+ * @author moritz
+ */
+public class DiffGeneratorBenchmark {
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /**
+     * Utility class without instances.
+     */
+    private DiffGeneratorBenchmark() {
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the arguments
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws IOException {
+        int processes = 1;
+        int runs = 3;
+        List<String> positional = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-j") && i + 1 < args.length) {
+                i++;
+                processes = Integer.parseInt(args[i]);
+            } else if (args[i].equals("-runs") && i + 1 < args.length) {
+                i++;
+                runs = Integer.parseInt(args[i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 3 || processes < 1 || runs < 1) {
+            LOGGER.logError("Usage: DiffGeneratorBenchmark [-j N] [-runs N] <repository> <first commit> "
+                + "<last commit>");
+            System.exit(1);
+        }
+
+        DiffGenerator generator = new DiffGenerator(new File(positional.get(0)));
+        generator.setUseManifest(false);
+        generator.setCollectStatistics(false);
+        List<String> range = generator.listAllCommitsInRange(positional.get(1), positional.get(2));
+        if (range == null) {
+            LOGGER.logError("Could not list the commits from " + positional.get(1) + " to " + positional.get(2));
+            System.exit(1);
+        }
+        List<String> commits = new ArrayList<String>();
+        commits.add(DiffGenerator.EMPTY_REPOSITORY_HASH);
+        commits.addAll(range);
+        LOGGER.logInfo("Generating " + (commits.size() - 1) + " diffs " + runs + " times with " + processes
+            + " git processes at once");
+
+        double[] forkSeconds = new double[runs];
+        double[] pipelineSeconds = new double[runs];
+        for (int run = 0; run < runs; run++) {
+            Path forkDir = Files.createTempDirectory("diffs-fork");
+            Path pipelineDir = Files.createTempDirectory("diffs-pipeline");
+            try {
+                // alternate the order so that neither mode always profits from a warm cache
+                if (run % 2 == 0) {
+                    forkSeconds[run] = measure(generator, commits, forkDir, processes, false);
+                    pipelineSeconds[run] = measure(generator, commits, pipelineDir, processes, true);
+                } else {
+                    pipelineSeconds[run] = measure(generator, commits, pipelineDir, processes, true);
+                    forkSeconds[run] = measure(generator, commits, forkDir, processes, false);
+                }
+                if (!sameFiles(forkDir, pipelineDir)) {
+                    LOGGER.logError("The diffs generated in both modes differ");
+                    System.exit(1);
+                }
+            } finally {
+                delete(forkDir);
+                delete(pipelineDir);
+            }
+            LOGGER.logInfo(String.format(Locale.ROOT, "Run %d: one process per diff %.3fs, pipeline %.3fs",
+                run + 1, forkSeconds[run], pipelineSeconds[run]));
+        }
+
+        double fork = median(forkSeconds);
+        double pipeline = median(pipelineSeconds);
+        LOGGER.logInfo(String.format(Locale.ROOT, "Median: one process per diff %.3fs (%.2f diffs/s), "
+            + "pipeline %.3fs (%.2f diffs/s), speedup %.2fx", fork, (commits.size() - 1) / fork, pipeline,
+            (commits.size() - 1) / pipeline, fork / pipeline));
+    }
+
+    /**
+     * Generates all diffs once.
+     *
+     * @param generator the generator
+     * @param commits the commits
+     * @param outputDir the output dir
+     * @param processes the number of concurrent git processes
+     * @param pipeline whether to use long-lived git processes
+     * @return the time in seconds
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static double measure(DiffGenerator generator, List<String> commits, Path outputDir, int processes,
+        boolean pipeline) throws IOException {
+        long start = System.nanoTime();
+        boolean success;
+        if (pipeline) {
+            success = generator.generateDiffsInPipeline(commits, outputDir.toFile(), processes);
+        } else {
+            success = generator.generateDiffs(commits, outputDir.toFile(), processes);
+        }
+        if (!success) {
+            throw new IOException("Could not generate all diffs");
+        }
+        return (System.nanoTime() - start) / 1000000000d;
+    }
+
+    /**
+     * Checks whether two directories contain files with the same names and
+     * contents.
+     *
+     * @param dir the first directory
+     * @param otherDir the second directory
+     * @return true, if the contents are equal
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static boolean sameFiles(Path dir, Path otherDir) throws IOException {
+        String[] names = dir.toFile().list();
+        String[] otherNames = otherDir.toFile().list();
+        Arrays.sort(names);
+        Arrays.sort(otherNames);
+        boolean same = Arrays.equals(names, otherNames);
+        for (int i = 0; same && i < names.length; i++) {
+            same = sameContent(dir.resolve(names[i]).toFile(), otherDir.resolve(names[i]).toFile());
+        }
+        return same;
+    }
+
+    /**
+     * Checks whether two files have the same content.
+     *
+     * @param file the first file
+     * @param otherFile the second file
+     * @return true, if the contents are equal
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static boolean sameContent(File file, File otherFile) throws IOException {
+        boolean same = file.length() == otherFile.length();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file));
+            InputStream otherIn = new BufferedInputStream(new FileInputStream(otherFile))) {
+            for (int read = 0; same && read >= 0;) {
+                read = in.read();
+                same = read == otherIn.read();
+            }
+        }
+        return same;
+    }
+
+    /**
+     * Deletes a directory with its content.
+     *
+     * @param dir the directory
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Calculates the median.
+     *
+     * @param values the values (reordered by this method)
+     * @return the median
+     */
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        return values.length % 2 == 1 ? values[values.length / 2]
+            : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+    }
+
+}
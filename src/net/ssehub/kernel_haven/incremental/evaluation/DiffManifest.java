@@ -0,0 +1,262 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Manifest of the diff files generated into an output directory by the
+ * {@link DiffGenerator}. For every diff file, the manifest stores the old and
+ * new commit, the size and the CRC32 checksum of its content. A diff file is
+ * only reused by a later run if it belongs to the same pair of commits and
+ * still has the recorded size (and, if requested, checksum), so interrupted
+ * runs can be resumed and extended commit ranges only require the new diffs.
+ *
+ * <p>
+ * The manifest is a text file next to the output directory (see
+ * {@link #getManifestFile(File)}) with one line per diff:
+ * {@code <diff file>;<old commit>;<new commit>;<size>;<crc32 in hex>}, where
+ * the checksum is the one of the uncompressed content. Entries are appended
+ * as soon as a diff is complete, so a diff that was being written when a run
+ * was aborted has no entry and is generated again. Later lines replace
+ * earlier lines for the same diff file. When the manifest is closed after a
+ * complete run (see {@link #complete()}), it is rewritten with only the
+ * entries that were confirmed or added since it was loaded. After an aborted
+ * run, entries that were never checked are kept as well. Diffs can be checked
+ * and added in any order and from several threads.
+ * </p>
+ *
+ * @author moritz
+ */
+public class DiffManifest implements Closeable {
+
+    /** Suffix appended to the name of the output directory. */
+    public static final String SUFFIX = ".manifest";
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The separator between the values of an entry. */
+    private static final String SEPARATOR = ";";
+
+    /** The number of values of an entry. */
+    private static final int VALUE_COUNT = 5;
+
+    /** The manifest file. */
+    private File file;
+
+    /** The loaded entries by diff file name. */
+    private Map<String, String[]> entries = new HashMap<String, String[]>();
+
+    /**
+     * The entries confirmed by {@link #isValid(File, String, String, boolean)}
+     * or added, sorted by diff file name.
+     */
+    private Map<String, String[]> validEntries = new TreeMap<String, String[]>();
+
+    /** The names of the diff files checked by {@link #isValid(File, String, String, boolean)}. */
+    private Set<String> checked = new HashSet<String>();
+
+    /** Appends entries to the manifest, null until the first entry is added. */
+    private Writer writer;
+
+    /** Whether all diffs of the run were checked or generated. */
+    private boolean complete;
+
+    /** Whether the manifest was closed. */
+    private boolean closed;
+
+    /**
+     * Loads the manifest of an output directory. A missing manifest is
+     * treated as empty; malformed lines are ignored.
+     *
+     * @param outputDir the output directory
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public DiffManifest(File outputDir) throws IOException {
+        this.file = getManifestFile(outputDir);
+        if (file.isFile()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                for (String line; (line = reader.readLine()) != null;) {
+                    String[] values = line.split(SEPARATOR);
+                    if (values.length == VALUE_COUNT) {
+                        entries.put(values[0], values);
+                    } else if (!line.isEmpty()) {
+                        LOGGER.logDebug("Ignoring malformed line in " + file + ": " + line);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the manifest file of an output directory.
+     *
+     * @param outputDir the output directory
+     * @return the manifest file
+     */
+    public static File getManifestFile(File outputDir) {
+        File directory = outputDir.getAbsoluteFile();
+        return new File(directory.getParentFile(), directory.getName() + SUFFIX);
+    }
+
+    /**
+     * Gets the manifest file.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks whether a diff file was generated completely for the given
+     * commits and did not change since. Valid entries are kept when the
+     * manifest is closed. The checksum is computed without holding the lock
+     * of the manifest, so that diffs can be added while a large diff file is
+     * verified.
+     *
+     * @param diffFile the diff file
+     * @param oldCommit the old commit
+     * @param newCommit the new commit
+     * @param verifyChecksum whether to read the file and compare its checksum
+     *        in addition to its size
+     * @return true, if the diff file can be reused; false if it can not be
+     *         read
+     */
+    public boolean isValid(File diffFile, String oldCommit, String newCommit, boolean verifyChecksum) {
+        String[] entry;
+        synchronized (this) {
+            checked.add(diffFile.getName());
+            entry = entries.get(diffFile.getName());
+        }
+        boolean valid = entry != null && entry[1].equals(oldCommit) && entry[2].equals(newCommit)
+            && diffFile.isFile() && Long.toString(diffFile.length()).equals(entry[3]);
+        if (valid && verifyChecksum) {
+            try {
+                valid = Long.toHexString(checksum(diffFile)).equals(entry[4]);
+                if (!valid) {
+                    LOGGER.logInfo("Checksum of " + diffFile.getName() + " does not match the manifest");
+                }
+            } catch (IOException e) {
+                // e.g. a corrupt compressed file; generating the diff again repairs it
+                LOGGER.logException("Could not compute the checksum of " + diffFile.getName(), e);
+                valid = false;
+            }
+        }
+        if (valid) {
+            synchronized (this) {
+                validEntries.put(diffFile.getName(), entry);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Adds the entry for a completely generated diff file. The entry is written
+     * immediately. Entries added after the manifest was closed (by tasks that
+     * were still running when a run was aborted) are ignored.
+     *
+     * @param diffFile the diff file
+     * @param oldCommit the old commit
+     * @param newCommit the new commit
+     * @param checksum the CRC32 checksum of the content
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public synchronized void add(File diffFile, String oldCommit, String newCommit, long checksum)
+        throws IOException {
+        if (closed) {
+            return;
+        }
+        String[] entry = {diffFile.getName(), oldCommit, newCommit, Long.toString(diffFile.length()),
+            Long.toHexString(checksum)};
+        if (writer == null) {
+            writer = new BufferedWriter(new FileWriter(file, true));
+        }
+        writer.write(String.join(SEPARATOR, entry));
+        writer.write('\n');
+        writer.flush();
+        validEntries.put(entry[0], entry);
+    }
+
+    /**
+     * Marks the run as complete: every diff of the run was checked or
+     * generated, so entries that were not confirmed or added are dropped
+     * when the manifest is closed.
+     */
+    public synchronized void complete() {
+        complete = true;
+    }
+
+    /**
+     * Closes the manifest and rewrites it with the entries that were
+     * confirmed or added. Unless the run was marked as complete, the loaded
+     * entries that were never checked are kept, so that an aborted run does
+     * not invalidate diffs it did not get to.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writer != null) {
+            writer.close();
+        }
+        Map<String, String[]> keptEntries = new TreeMap<String, String[]>();
+        if (!complete) {
+            for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+                if (!checked.contains(entry.getKey())) {
+                    keptEntries.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        keptEntries.putAll(validEntries);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer tempWriter = new BufferedWriter(new FileWriter(tempFile))) {
+            for (String[] entry : keptEntries.values()) {
+                tempWriter.write(String.join(SEPARATOR, entry));
+                tempWriter.write('\n');
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Calculates the CRC32 checksum of the content of a diff file. The content
+     * of compressed files is decompressed first.
+     *
+     * @param diffFile the file
+     * @return the checksum
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static long checksum(File diffFile) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream in = DiffGenerator.readDiffFile(diffFile)) {
+            for (int read; (read = in.read(buffer)) >= 0;) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+}
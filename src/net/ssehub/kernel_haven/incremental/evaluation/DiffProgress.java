@@ -0,0 +1,93 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Progress of a diff generation. Logs the number of finished diffs and the
+ * throughput whenever a diff is finished. Diffs may be finished concurrently.
+ *
+ * @author moritz
+ */
+public class DiffProgress {
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** Number of bytes in a megabyte. */
+    private static final double MEGABYTE = 1024 * 1024;
+
+    /** The number of diffs to generate. */
+    private AtomicInteger total = new AtomicInteger();
+
+    /** The number of finished diffs. */
+    private AtomicInteger finished = new AtomicInteger();
+
+    /** The size of all finished diffs. */
+    private AtomicLong writtenBytes = new AtomicLong();
+
+    /** The value of {@link System#nanoTime()} when the generation started. */
+    private long startTime = System.nanoTime();
+
+    /**
+     * Starts measuring the progress.
+     *
+     * @param total the number of diffs to generate
+     */
+    public DiffProgress(int total) {
+        this.total.set(total);
+    }
+
+    /**
+     * Adds a diff to generate, if the number of diffs is not known in
+     * advance.
+     */
+    public void added() {
+        total.incrementAndGet();
+    }
+
+    /**
+     * Logs the progress after a diff was finished.
+     *
+     * @param diffFile the finished diff file
+     */
+    public void finished(File diffFile) {
+        int finishedDiffs = finished.incrementAndGet();
+        long bytes = writtenBytes.addAndGet(diffFile.length());
+        double seconds = getSeconds();
+        LOGGER.logInfo(String.format(Locale.ROOT, "Generated %s (%d/%d, %.2f diffs/s, %.2f MB/s)",
+            diffFile.getName(), finishedDiffs, total.get(), finishedDiffs / seconds, bytes / MEGABYTE / seconds));
+    }
+
+    /**
+     * Gets the number of finished diffs.
+     *
+     * @return the number of diffs
+     */
+    public int getFinished() {
+        return finished.get();
+    }
+
+    /**
+     * Gets the size of all finished diffs.
+     *
+     * @return the size in bytes
+     */
+    public long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+    /**
+     * Gets the time since the generation started.
+     *
+     * @return the time in seconds
+     */
+    public double getSeconds() {
+        return Math.max(1e-9, (System.nanoTime() - startTime) / 1000000000d);
+    }
+
+}
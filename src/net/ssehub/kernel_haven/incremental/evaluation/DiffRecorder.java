@@ -0,0 +1,169 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Records the diffs of one run of the {@link DiffGenerator}: decides which
+ * diffs can be reused from a previous run, adds generated diffs to the
+ * {@link DiffManifest} and their statistics to the {@link DiffStatisticsIndex}
+ * and reports the {@link DiffProgress}. Diffs may be recorded concurrently.
+ *
+ * @author moritz
+ */
+public class DiffRecorder implements Closeable {
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The manifest, null if not used. */
+    private DiffManifest manifest;
+
+    /** The statistics index, null if no statistics are collected. */
+    private DiffStatisticsIndex statistics;
+
+    /** Whether to compare the checksums of recorded diffs. */
+    private boolean verifyChecksums;
+
+    /** The progress of the diffs to generate. */
+    private DiffProgress progress = new DiffProgress(0);
+
+    /** The number of reused diffs. */
+    private int skipped;
+
+    /**
+     * Instantiates a new recorder.
+     *
+     * @param manifest the manifest, null if no diffs are reused
+     * @param statistics the statistics index, null if no statistics are
+     *        collected
+     * @param verifyChecksums whether to compare the checksums of recorded
+     *        diffs before reusing them
+     */
+    public DiffRecorder(DiffManifest manifest, DiffStatisticsIndex statistics, boolean verifyChecksums) {
+        this.manifest = manifest;
+        this.statistics = statistics;
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    /**
+     * Checks whether a diff was already generated by a previous run. If so,
+     * its statistics are kept (or collected from the diff file if the index
+     * has none); otherwise, the diff is counted as to be generated. A diff
+     * file that can not be read to collect its statistics is generated again.
+     *
+     * @param number the number of the diff
+     * @param diffFile the diff file
+     * @param oldCommit the old commit
+     * @param newCommit the new commit
+     * @return true, if the diff does not have to be generated
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public boolean isDone(int number, File diffFile, String oldCommit, String newCommit) throws IOException {
+        boolean done = manifest != null && manifest.isValid(diffFile, oldCommit, newCommit, verifyChecksums);
+        if (done && statistics != null && !statistics.keep(number)) {
+            DiffStatistics collected = null;
+            try {
+                collected = DiffStatistics.of(diffFile);
+            } catch (IOException e) {
+                LOGGER.logException("Could not collect the statistics of " + diffFile.getName(), e);
+                done = false;
+            }
+            if (collected != null) {
+                statistics.put(number, collected);
+            }
+        }
+        if (!done) {
+            progress.added();
+        } else {
+            skipped++;
+        }
+        return done;
+    }
+
+    /**
+     * Creates the statistics to fill while generating a diff.
+     *
+     * @return the statistics, null if no statistics are collected
+     */
+    public DiffStatistics newStatistics() {
+        return statistics != null ? new DiffStatistics() : null;
+    }
+
+    /**
+     * Records a generated diff.
+     *
+     * @param number the number of the diff
+     * @param diffFile the diff file
+     * @param oldCommit the old commit
+     * @param newCommit the new commit
+     * @param checksum the CRC32 checksum of the content
+     * @param diffStatistics the statistics of the diff, null if not collected
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    // CHECKSTYLE:OFF
+    public void generated(int number, File diffFile, String oldCommit, String newCommit, long checksum,
+        DiffStatistics diffStatistics) throws IOException {
+        // CHECKSTYLE:ON
+        if (manifest != null) {
+            manifest.add(diffFile, oldCommit, newCommit, checksum);
+        }
+        if (statistics != null && diffStatistics != null) {
+            statistics.put(number, diffStatistics);
+        }
+        progress.finished(diffFile);
+    }
+
+    /**
+     * Records a diff that could not be generated.
+     *
+     * @param diffFile the diff file
+     */
+    public void failed(File diffFile) {
+        progress.finished(diffFile);
+    }
+
+    /**
+     * Marks the run as complete, so that entries of diffs outside the run are
+     * dropped when the recorder is closed.
+     */
+    public void complete() {
+        if (manifest != null) {
+            manifest.complete();
+        }
+        if (statistics != null) {
+            statistics.complete();
+        }
+    }
+
+    /**
+     * Logs the number of diffs reused from a previous run.
+     */
+    public void logSkipped() {
+        if (skipped > 0) {
+            LOGGER.logInfo("Skipping " + skipped + " diffs recorded in " + manifest.getFile());
+        }
+    }
+
+    /**
+     * Closes the manifest and the statistics index.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (manifest != null) {
+                manifest.close();
+            }
+        } finally {
+            if (statistics != null) {
+                statistics.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,254 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Statistics of a diff file: the number of changed files by kind, hunks,
+ * added and removed lines and the size of the diff. The statistics are
+ * collected by a {@link DiffStatisticsStream} while the diff is written and
+ * stored in a {@link DiffStatisticsIndex}.
+ *
+ * <p>
+ * Files are classified by their name: {@code Kconfig*} files define the
+ * variability model, {@code Makefile*} and {@code Kbuild*} files belong to the
+ * build process, and {@code .c}, {@code .h} and {@code .S} files are source
+ * files.
+ * </p>
+ *
+ * @author moritz
+ */
+public class DiffStatistics {
+
+    /** The number of changed files. */
+    private int changedFiles;
+
+    /** The number of changed source files. */
+    private int sourceFiles;
+
+    /** The number of changed build files. */
+    private int buildFiles;
+
+    /** The number of changed variability model files. */
+    private int variabilityFiles;
+
+    /** The number of changed binary files. */
+    private int binaryFiles;
+
+    /** The number of hunks. */
+    private int hunks;
+
+    /** The number of added lines. */
+    private long addedLines;
+
+    /** The number of removed lines. */
+    private long removedLines;
+
+    /** The size of the diff in bytes (uncompressed). */
+    private long bytes;
+
+    /**
+     * Collects the statistics of an existing diff file.
+     *
+     * @param diffFile the diff file, may be compressed (see
+     *        {@link CompressingOutputStream})
+     * @return the statistics
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static DiffStatistics of(File diffFile) throws IOException {
+        DiffStatistics statistics = new DiffStatistics();
+        OutputStream discard = new OutputStream() {
+
+            @Override
+            public void write(int value) {
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) {
+            }
+        };
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream in = DiffGenerator.readDiffFile(diffFile);
+            OutputStream out = new DiffStatisticsStream(discard, statistics)) {
+            for (int read; (read = in.read(buffer)) >= 0;) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Reads statistics written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the statistics
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static DiffStatistics read(DataInput in) throws IOException {
+        DiffStatistics statistics = new DiffStatistics();
+        statistics.changedFiles = in.readInt();
+        statistics.sourceFiles = in.readInt();
+        statistics.buildFiles = in.readInt();
+        statistics.variabilityFiles = in.readInt();
+        statistics.binaryFiles = in.readInt();
+        statistics.hunks = in.readInt();
+        statistics.addedLines = in.readLong();
+        statistics.removedLines = in.readLong();
+        statistics.bytes = in.readLong();
+        return statistics;
+    }
+
+    /**
+     * Writes the statistics.
+     *
+     * @param out the output
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(changedFiles);
+        out.writeInt(sourceFiles);
+        out.writeInt(buildFiles);
+        out.writeInt(variabilityFiles);
+        out.writeInt(binaryFiles);
+        out.writeInt(hunks);
+        out.writeLong(addedLines);
+        out.writeLong(removedLines);
+        out.writeLong(bytes);
+    }
+
+    /**
+     * Counts a changed file.
+     *
+     * @param name the name of the file (without directories)
+     */
+    void addFile(String name) {
+        changedFiles++;
+        if (name.startsWith("Kconfig")) {
+            variabilityFiles++;
+        } else if (name.startsWith("Makefile") || name.startsWith("Kbuild")) {
+            buildFiles++;
+        } else if (name.endsWith(".c") || name.endsWith(".h") || name.endsWith(".S")) {
+            sourceFiles++;
+        }
+    }
+
+    /**
+     * Counts a changed binary file.
+     */
+    void addBinaryFile() {
+        binaryFiles++;
+    }
+
+    /**
+     * Counts a hunk.
+     */
+    void addHunk() {
+        hunks++;
+    }
+
+    /**
+     * Counts lines.
+     *
+     * @param added the number of added lines
+     * @param removed the number of removed lines
+     */
+    void addLines(long added, long removed) {
+        addedLines += added;
+        removedLines += removed;
+    }
+
+    /**
+     * Counts bytes of the diff.
+     *
+     * @param count the number of bytes
+     */
+    void addBytes(long count) {
+        bytes += count;
+    }
+
+    /**
+     * Gets the number of changed files.
+     *
+     * @return the number of files
+     */
+    public int getChangedFiles() {
+        return changedFiles;
+    }
+
+    /**
+     * Gets the number of changed source files.
+     *
+     * @return the number of files
+     */
+    public int getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * Gets the number of changed build files.
+     *
+     * @return the number of files
+     */
+    public int getBuildFiles() {
+        return buildFiles;
+    }
+
+    /**
+     * Gets the number of changed variability model files.
+     *
+     * @return the number of files
+     */
+    public int getVariabilityFiles() {
+        return variabilityFiles;
+    }
+
+    /**
+     * Gets the number of changed binary files.
+     *
+     * @return the number of files
+     */
+    public int getBinaryFiles() {
+        return binaryFiles;
+    }
+
+    /**
+     * Gets the number of hunks.
+     *
+     * @return the number of hunks
+     */
+    public int getHunks() {
+        return hunks;
+    }
+
+    /**
+     * Gets the number of added lines.
+     *
+     * @return the number of lines
+     */
+    public long getAddedLines() {
+        return addedLines;
+    }
+
+    /**
+     * Gets the number of removed lines.
+     *
+     * @return the number of lines
+     */
+    public long getRemovedLines() {
+        return removedLines;
+    }
+
+    /**
+     * Gets the size of the diff.
+     *
+     * @return the size in bytes (uncompressed)
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+}
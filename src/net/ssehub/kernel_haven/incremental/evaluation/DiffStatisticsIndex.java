@@ -0,0 +1,273 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Binary sidecar file storing the {@link DiffStatistics} of the diffs
+ * generated into an output directory by the {@link DiffGenerator}, so that the
+ * {@link PerformanceEvaluator} can relate the timings of an analysis to what
+ * the analyzed diff changed without reading the diffs again.
+ *
+ * <p>
+ * The index is stored next to the output directory (see
+ * {@link #getIndexFile(File)}) and contains a header followed by one
+ * fixed-size record per diff. Diffs are identified by their number, as the
+ * diff files may be renamed for the analysis (see
+ * {@link #getDiffNumber(String)}).
+ * </p>
+ *
+ * <p>
+ * Like the {@link DiffManifest}, records are appended as soon as they are
+ * added, so the statistics of a run that crashes are not lost. Later records
+ * replace earlier records for the same diff, and an incomplete record at the
+ * end of the file is ignored. The index is only compacted to the diffs of the
+ * run when it is closed after a complete run (see {@link #complete()}).
+ * </p>
+ *
+ * @author moritz
+ */
+public class DiffStatisticsIndex implements Closeable {
+
+    /** Suffix appended to the name of the output directory. */
+    public static final String SUFFIX = ".stats";
+
+    /** Marks the file as diff statistics index. */
+    private static final int MAGIC = 0x4B484453;
+
+    /** Version of the format, must be increased whenever the format changes. */
+    private static final int VERSION = 2;
+
+    /** The size of the header (magic and version) in bytes. */
+    private static final int HEADER_SIZE = 8;
+
+    /** The size of a record (number and {@link DiffStatistics}) in bytes. */
+    private static final int RECORD_SIZE = 4 + 6 * 4 + 3 * 8;
+
+    /** The index file. */
+    private File file;
+
+    /** The statistics by diff number. */
+    private Map<Integer, DiffStatistics> entries = new TreeMap<Integer, DiffStatistics>();
+
+    /** The diffs that are kept when the index is compacted. */
+    private Set<Integer> kept = new HashSet<Integer>();
+
+    /** Appends records to the index, null until the first record is added. */
+    private DataOutputStream out;
+
+    /** Whether the file has to be rewritten before records can be appended. */
+    private boolean rewrite = true;
+
+    /** Whether all diffs of the run were kept or added. */
+    private boolean complete;
+
+    /** Whether the index was closed. */
+    private boolean closed;
+
+    /**
+     * Creates an empty index. An existing file is replaced as soon as records
+     * are added or the index is closed.
+     *
+     * @param file the index file
+     */
+    public DiffStatisticsIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads an index. A missing file is treated as empty index; an incomplete
+     * last record (of a run that crashed) is ignored.
+     *
+     * @param file the index file
+     * @return the index
+     * @throws IOException if the file can not be read or is not an index of
+     *         this version
+     */
+    public static DiffStatisticsIndex load(File file) throws IOException {
+        DiffStatisticsIndex index = new DiffStatisticsIndex(file);
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException(file + " is not a diff statistics index of version " + VERSION);
+                }
+                long records = (file.length() - HEADER_SIZE) / RECORD_SIZE;
+                for (long i = 0; i < records; i++) {
+                    int number = in.readInt();
+                    index.entries.put(number, DiffStatistics.read(in));
+                }
+                index.rewrite = HEADER_SIZE + records * RECORD_SIZE != file.length();
+            } catch (EOFException e) {
+                throw new IOException(file + " is not a diff statistics index of version " + VERSION, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the index file of an output directory.
+     *
+     * @param outputDir the output directory
+     * @return the index file
+     */
+    public static File getIndexFile(File outputDir) {
+        File directory = outputDir.getAbsoluteFile();
+        return new File(directory.getParentFile(), directory.getName() + SUFFIX);
+    }
+
+    /**
+     * Gets the number of a diff from the name of its file, which is the first
+     * number in the name (e.g. 12 for {@code 00012-git.diff} or
+     * {@code git-0012.diff}).
+     *
+     * @param diffFileName the name of the diff file
+     * @return the number, -1 if the name does not contain a number
+     */
+    public static int getDiffNumber(String diffFileName) {
+        int start = 0;
+        while (start < diffFileName.length() && !Character.isDigit(diffFileName.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < diffFileName.length() && Character.isDigit(diffFileName.charAt(end)) && end - start < 9) {
+            end++;
+        }
+        return end > start ? Integer.parseInt(diffFileName.substring(start, end)) : -1;
+    }
+
+    /**
+     * Gets the statistics of a diff.
+     *
+     * @param number the number of the diff
+     * @return the statistics, null if not in the index
+     */
+    public synchronized DiffStatistics get(int number) {
+        return entries.get(number);
+    }
+
+    /**
+     * Gets the number of diffs in the index.
+     *
+     * @return the number of diffs
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Keeps the loaded statistics of a diff when the index is compacted.
+     *
+     * @param number the number of the diff
+     * @return true, if the index contains statistics for the diff
+     */
+    public synchronized boolean keep(int number) {
+        boolean contained = entries.containsKey(number);
+        if (contained) {
+            kept.add(number);
+        }
+        return contained;
+    }
+
+    /**
+     * Adds or replaces the statistics of a diff. The record is written
+     * immediately and kept when the index is compacted. Statistics added after
+     * the index was closed (by tasks that were still running when a run was
+     * aborted) are ignored.
+     *
+     * @param number the number of the diff
+     * @param statistics the statistics
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public synchronized void put(int number, DiffStatistics statistics) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (out == null) {
+            if (rewrite) {
+                write();
+            }
+            out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file.toPath(), StandardOpenOption.APPEND)));
+        }
+        entries.put(number, statistics);
+        kept.add(number);
+        out.writeInt(number);
+        statistics.write(out);
+        out.flush();
+    }
+
+    /**
+     * Marks the run as complete: the statistics of every diff of the run were
+     * kept or added, so the statistics of other diffs are dropped when the
+     * index is closed.
+     */
+    public synchronized void complete() {
+        complete = true;
+    }
+
+    /**
+     * Closes the index. After a complete run, the index is compacted to the
+     * statistics that were added or kept since it was loaded; otherwise, all
+     * statistics are kept.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out != null) {
+            out.close();
+        }
+        if (complete) {
+            entries.keySet().retainAll(kept);
+        }
+        if (complete || rewrite) {
+            write();
+        }
+    }
+
+    /**
+     * Rewrites the index with all statistics. The index is written to a
+     * temporary file first so that readers never see a partially written
+     * index.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void write() throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream tempOut = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+                tempOut.writeInt(MAGIC);
+                tempOut.writeInt(VERSION);
+                for (Map.Entry<Integer, DiffStatistics> entry : entries.entrySet()) {
+                    tempOut.writeInt(entry.getKey());
+                    entry.getValue().write(tempOut);
+                }
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+        rewrite = false;
+    }
+
+}
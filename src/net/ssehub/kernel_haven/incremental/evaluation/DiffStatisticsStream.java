@@ -0,0 +1,162 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes a diff through to another stream and collects its
+ * {@link DiffStatistics} on the way, so that the statistics do not require
+ * reading the diff again.
+ *
+ * <p>
+ * Only the lines that describe the structure of the diff (file headers and
+ * hunk headers) are decoded. Lines within hunks are classified by their first
+ * byte, so the large context of the diffs is only scanned for line breaks.
+ * </p>
+ *
+ * @author moritz
+ */
+public class DiffStatisticsStream extends FilterOutputStream {
+
+    /** The number of bytes of a structural line that are decoded. */
+    private static final int LINE_LIMIT = 4096;
+
+    /** Start of the line introducing the diff of a file. */
+    private static final String FILE_HEADER = "diff --git ";
+
+    /** The statistics to fill. */
+    private DiffStatistics statistics;
+
+    /** The start of the current structural line. */
+    private byte[] line = new byte[LINE_LIMIT];
+
+    /** The number of bytes in {@link #line}. */
+    private int lineLength;
+
+    /** Whether the next byte starts a line. */
+    private boolean lineStart = true;
+
+    /** Whether the current line is collected in {@link #line}. */
+    private boolean collecting;
+
+    /** Whether the current position is in a file header (before the first hunk). */
+    private boolean header = true;
+
+    /** The number of added lines not yet passed to the statistics. */
+    private long addedLines;
+
+    /** The number of removed lines not yet passed to the statistics. */
+    private long removedLines;
+
+    /** The number of bytes not yet passed to the statistics. */
+    private long bytes;
+
+    /**
+     * Instantiates a new stream.
+     *
+     * @param out the stream to which the diff is written
+     * @param statistics the statistics to fill; complete after the stream is
+     *        closed
+     */
+    public DiffStatisticsStream(OutputStream out, DiffStatistics statistics) {
+        super(out);
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        out.write(value);
+        inspect((byte) value);
+        bytes++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        out.write(buffer, offset, length);
+        int end = offset + length;
+        int position = offset;
+        while (position < end) {
+            if (!lineStart && !collecting) {
+                // skip the content of a line within a hunk
+                while (position < end && buffer[position] != '\n') {
+                    position++;
+                }
+            }
+            if (position < end) {
+                inspect(buffer[position]);
+                position++;
+            }
+        }
+        bytes += length;
+    }
+
+    /**
+     * Completes the statistics and closes the underlying stream.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        if (collecting) {
+            endLine();
+        }
+        statistics.addLines(addedLines, removedLines);
+        statistics.addBytes(bytes);
+        addedLines = 0;
+        removedLines = 0;
+        bytes = 0;
+        super.close();
+    }
+
+    /**
+     * Inspects one byte of the diff.
+     *
+     * @param value the byte
+     */
+    private void inspect(byte value) {
+        if (lineStart) {
+            lineStart = false;
+            if (header || value != '+' && value != '-' && value != ' ' && value != '\\') {
+                collecting = true;
+                lineLength = 0;
+            } else if (value == '+') {
+                addedLines++;
+            } else if (value == '-') {
+                removedLines++;
+            }
+        }
+        if (value == '\n') {
+            if (collecting) {
+                endLine();
+            }
+            lineStart = true;
+        } else if (collecting && lineLength < line.length) {
+            line[lineLength++] = value;
+        }
+    }
+
+    /**
+     * Evaluates a complete structural line.
+     */
+    private void endLine() {
+        collecting = false;
+        String text = new String(line, 0, lineLength, StandardCharsets.ISO_8859_1);
+        if (text.startsWith(FILE_HEADER)) {
+            header = true;
+            // the name of the new file is last; quoted names end with a quote
+            String name = text.substring(text.lastIndexOf('/') + 1);
+            if (name.endsWith("\"")) {
+                name = name.substring(0, name.length() - 1);
+            }
+            statistics.addFile(name);
+        } else if (text.startsWith("@@")) {
+            header = false;
+            statistics.addHunk();
+        } else if (header && (text.startsWith("GIT binary patch") || text.startsWith("Binary files "))) {
+            statistics.addBinaryFile();
+        }
+    }
+
+}
@@ -0,0 +1,287 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Histogram of durations with fixed memory in the style of an HDR histogram.
+ * Durations are recorded in milliseconds into buckets whose width grows with
+ * the magnitude of the value, so that every recorded value is represented with
+ * a relative error below the configured number of significant digits
+ * regardless of whether it is a few milliseconds or several days long.
+ *
+ * <p>
+ * The range of values is split into buckets covering a power of two each; every
+ * bucket is split into the same number of linear sub-buckets. Only the counts
+ * are stored, so the memory used does not depend on the number of recorded
+ * values.
+ * </p>
+ *
+ * @author moritz
+ */
+public class DurationHistogram {
+
+    /** The default highest trackable duration (one week in milliseconds). */
+    public static final long DEFAULT_HIGHEST_VALUE = 7L * 24 * 60 * 60 * 1000;
+
+    /** The default number of significant digits. */
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    /** Width of the bars of the text histogram. */
+    private static final int BAR_WIDTH = 50;
+
+    /** The highest value that can be recorded, higher values are clamped. */
+    private long highestValue;
+
+    /** Log2 of half the number of sub-buckets. */
+    private int subBucketHalfCountMagnitude;
+
+    /** Half the number of sub-buckets per bucket. */
+    private int subBucketHalfCount;
+
+    /** Mask for values that fall into the first bucket. */
+    private long subBucketMask;
+
+    /** The counts by index (see {@link #getIndex(long)}). */
+    private long[] counts;
+
+    /** The number of recorded values. */
+    private long totalCount;
+
+    /** The smallest recorded value. */
+    private long minValue = Long.MAX_VALUE;
+
+    /** The largest recorded value. */
+    private long maxValue;
+
+    /**
+     * Instantiates a new histogram tracking durations up to
+     * {@link #DEFAULT_HIGHEST_VALUE} with
+     * {@link #DEFAULT_SIGNIFICANT_DIGITS} significant digits.
+     */
+    public DurationHistogram() {
+        this(DEFAULT_HIGHEST_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Instantiates a new histogram.
+     *
+     * @param highestValue the highest duration in milliseconds that can be
+     *        recorded without being clamped
+     * @param significantDigits the number of significant decimal digits kept
+     *        for every value (1 to 5)
+     */
+    public DurationHistogram(long highestValue, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("Significant digits must be between 1 and 5: " + significantDigits);
+        }
+        if (highestValue < 2) {
+            throw new IllegalArgumentException("Highest value must be at least 2: " + highestValue);
+        }
+        this.highestValue = highestValue;
+        long largestSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestSingleUnitResolution) / Math.log(2));
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+        this.subBucketMask = (1L << subBucketCountMagnitude) - 1;
+
+        long smallestUntrackableValue = 1L << subBucketCountMagnitude;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= highestValue) {
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        this.counts = new long[(bucketCount + 1) << subBucketHalfCountMagnitude];
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param seconds the duration in seconds; negative values are recorded as 0
+     */
+    public void recordSeconds(double seconds) {
+        record(Math.round(seconds * 1000));
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param milliseconds the duration in milliseconds; negative values are
+     *        recorded as 0, values above the highest value as the highest value
+     */
+    public void record(long milliseconds) {
+        long value = Math.min(Math.max(milliseconds, 0), highestValue);
+        counts[getIndex(value)]++;
+        totalCount++;
+        minValue = Math.min(minValue, value);
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the duration below which the given percentage of recorded values
+     * lie. The result is the highest value that is equivalent to the value at
+     * the percentile, but never larger than the largest recorded value.
+     *
+     * @param percentile the percentile (0 to 100)
+     * @return the duration in milliseconds, 0 if no values were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long value = 0;
+        if (totalCount > 0) {
+            double requested = Math.min(Math.max(percentile, 0), 100);
+            long countAtPercentile = Math.max(1, (long) Math.ceil(requested / 100 * totalCount));
+            long cumulative = 0;
+            int index = 0;
+            while (cumulative < countAtPercentile) {
+                cumulative += counts[index++];
+            }
+            value = Math.min(getHighestEquivalentValue(index - 1), maxValue);
+        }
+        return value;
+    }
+
+    /**
+     * Formats the common percentiles as single line.
+     *
+     * @return the percentiles in seconds
+     */
+    public String getPercentileSummary() {
+        return "Count: " + totalCount + " p50=" + toSeconds(getValueAtPercentile(50)) + "s p90="
+            + toSeconds(getValueAtPercentile(90)) + "s p99=" + toSeconds(getValueAtPercentile(99)) + "s p99.9="
+            + toSeconds(getValueAtPercentile(99.9)) + "s max=" + toSeconds(totalCount > 0 ? maxValue : 0) + "s";
+    }
+
+    /**
+     * Formats the distribution as text histogram with one line per bucket
+     * (power of two range) between the smallest and the largest recorded
+     * value.
+     *
+     * @return the lines of the histogram, empty if no values were recorded
+     */
+    public String[] toTextHistogram() {
+        String[] lines = new String[0];
+        if (totalCount > 0) {
+            int firstBucket = getBucketIndex(minValue);
+            int lastBucket = getBucketIndex(maxValue);
+            long[] bucketCounts = new long[lastBucket - firstBucket + 1];
+            long largestCount = 0;
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] > 0) {
+                    int bucket = getBucketIndex(getLowestEquivalentValue(index));
+                    bucketCounts[bucket - firstBucket] += counts[index];
+                    largestCount = Math.max(largestCount, bucketCounts[bucket - firstBucket]);
+                }
+            }
+
+            lines = new String[bucketCounts.length];
+            for (int i = 0; i < bucketCounts.length; i++) {
+                int bucket = firstBucket + i;
+                long lowest = bucket == 0 ? 0 : (long) subBucketHalfCount << bucket;
+                long highest = (2L * subBucketHalfCount << bucket) - 1;
+                StringBuilder line = new StringBuilder();
+                line.append(String.format("%10ss - %10ss %8d |", toSeconds(lowest), toSeconds(highest),
+                    bucketCounts[i]));
+                long bar = (bucketCounts[i] * BAR_WIDTH + largestCount - 1) / largestCount;
+                for (int j = 0; j < bar; j++) {
+                    line.append('#');
+                }
+                lines[i] = line.toString();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes all non-empty buckets as CSV file (separated by semicolons) with the
+     * columns lower bound, upper bound (both in milliseconds, inclusive), count
+     * and cumulative percentage.
+     *
+     * @param file the file to write
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("LowerBoundMs;UpperBoundMs;Count;CumulativePercent\n");
+            long cumulative = 0;
+            for (int index = 0; index < counts.length; index++) {
+                if (counts[index] > 0) {
+                    cumulative += counts[index];
+                    writer.write(getLowestEquivalentValue(index) + ";" + getHighestEquivalentValue(index) + ";"
+                        + counts[index] + ";" + (100d * cumulative / totalCount) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the bucket a value falls into.
+     *
+     * @param value the value
+     * @return the bucket index
+     */
+    private int getBucketIndex(long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value | subBucketMask) - (subBucketHalfCountMagnitude + 1);
+    }
+
+    /**
+     * Gets the index of the count for a value.
+     *
+     * @param value the value
+     * @return the index in {@link #counts}
+     */
+    private int getIndex(long value) {
+        int bucketIndex = getBucketIndex(value);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    /**
+     * Gets the smallest value counted at an index.
+     *
+     * @param index the index in {@link #counts}
+     * @return the value
+     */
+    private long getLowestEquivalentValue(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    /**
+     * Gets the largest value counted at an index.
+     *
+     * @param index the index in {@link #counts}
+     * @return the value
+     */
+    private long getHighestEquivalentValue(int index) {
+        int bucketIndex = Math.max((index >> subBucketHalfCountMagnitude) - 1, 0);
+        return getLowestEquivalentValue(index) + (1L << bucketIndex) - 1;
+    }
+
+    /**
+     * Converts milliseconds to seconds.
+     *
+     * @param milliseconds the milliseconds
+     * @return the seconds
+     */
+    private static double toSeconds(long milliseconds) {
+        return milliseconds / 1000d;
+    }
+
+}
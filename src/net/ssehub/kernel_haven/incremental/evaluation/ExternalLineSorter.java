@@ -0,0 +1,201 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts the lines of text files with bounded memory. Lines are read in runs
+ * that fit into the memory budget, each run is sorted and spilled to a
+ * temporary file and all runs are finally combined through a k-way merge.
+ * If sorting fails, all temporary files created so far are deleted.
+ *
+ * @author moritz
+ */
+public class ExternalLineSorter {
+
+    /** Estimated memory overhead of a line held as {@link String} in a list. */
+    private static final int LINE_OVERHEAD_BYTES = 64;
+
+    /** Maximum number of runs merged at once (bounds open file handles). */
+    private static final int MAX_MERGE_WIDTH = 64;
+
+    /** The memory budget for a single run in bytes. */
+    private long memoryBudget;
+
+    /** The directory for temporary files. */
+    private Path tempDir;
+
+    /**
+     * Instantiates a new sorter.
+     *
+     * @param memoryBudget the memory budget for a single run in bytes
+     * @param tempDir the directory for temporary files
+     */
+    public ExternalLineSorter(long memoryBudget, Path tempDir) {
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Sorts the lines of a file. Duplicate lines are retained.
+     *
+     * @param input the input file
+     * @return a temporary file containing the sorted lines; the caller is
+     *         responsible for deleting it
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Path sort(Path input) throws IOException {
+        List<Path> runs = new ArrayList<Path>();
+        List<Path> mergedRuns = new ArrayList<Path>();
+        boolean sorted = false;
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                List<String> run = new ArrayList<String>();
+                long runSize = 0;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    run.add(line);
+                    runSize += LINE_OVERHEAD_BYTES + 2L * line.length();
+                    if (runSize >= memoryBudget) {
+                        runs.add(writeRun(run));
+                        run.clear();
+                        runSize = 0;
+                    }
+                }
+                if (!run.isEmpty() || runs.isEmpty()) {
+                    runs.add(writeRun(run));
+                }
+            }
+
+            while (runs.size() > 1) {
+                mergedRuns = new ArrayList<Path>();
+                for (int i = 0; i < runs.size(); i += MAX_MERGE_WIDTH) {
+                    List<Path> group = runs.subList(i, Math.min(i + MAX_MERGE_WIDTH, runs.size()));
+                    try {
+                        mergedRuns.add(merge(group));
+                    } finally {
+                        deleteAll(group);
+                    }
+                }
+                runs = mergedRuns;
+            }
+            sorted = true;
+        } finally {
+            if (!sorted) {
+                deleteQuietly(runs);
+                deleteQuietly(mergedRuns);
+            }
+        }
+        return runs.get(0);
+    }
+
+    /**
+     * Sorts a run and writes it to a temporary file.
+     *
+     * @param run the lines of the run
+     * @return the temporary file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private Path writeRun(List<String> run) throws IOException {
+        Collections.sort(run);
+        Path runFile = Files.createTempFile(tempDir, "sorted-run-", ".csv");
+        boolean written = false;
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(runFile, StandardCharsets.UTF_8)) {
+                for (String line : run) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                deleteQuietly(Collections.singletonList(runFile));
+            }
+        }
+        return runFile;
+    }
+
+    /**
+     * Merges sorted runs into a single sorted temporary file. The temporary
+     * file is deleted if the merge fails; the runs are left to the caller.
+     *
+     * @param runs the runs
+     * @return the temporary file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private Path merge(List<Path> runs) throws IOException {
+        Path mergedFile = Files.createTempFile(tempDir, "sorted-run-", ".csv");
+        boolean merged = false;
+        try {
+            List<SortedLineReader> readers = new ArrayList<SortedLineReader>();
+            try (BufferedWriter writer = Files.newBufferedWriter(mergedFile, StandardCharsets.UTF_8)) {
+                PriorityQueue<SortedLineReader> queue = new PriorityQueue<SortedLineReader>(runs.size(),
+                    (first, second) -> first.current().compareTo(second.current()));
+                for (Path run : runs) {
+                    SortedLineReader reader = new SortedLineReader(run);
+                    readers.add(reader);
+                    if (reader.current() != null) {
+                        queue.add(reader);
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    SortedLineReader reader = queue.poll();
+                    for (int i = 0; i < reader.currentCount(); i++) {
+                        writer.write(reader.current());
+                        writer.write('\n');
+                    }
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                }
+            } finally {
+                for (SortedLineReader reader : readers) {
+                    reader.close();
+                }
+            }
+            merged = true;
+        } finally {
+            if (!merged) {
+                deleteQuietly(Collections.singletonList(mergedFile));
+            }
+        }
+        return mergedFile;
+    }
+
+    /**
+     * Deletes temporary files, ignoring files that are already gone.
+     *
+     * @param files the files
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void deleteAll(List<Path> files) throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Deletes temporary files after a failure. Files that can not be deleted
+     * are skipped, so that the original failure is not hidden.
+     *
+     * @param files the files
+     */
+    private static void deleteQuietly(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // keep deleting the remaining files
+            }
+        }
+    }
+
+}
@@ -0,0 +1,367 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Generates the diffs between consecutive commits through one long-lived
+ * {@code git diff-tree --stdin} process instead of starting {@code git diff}
+ * for every diff, so that process startup and loading the pack indexes happen
+ * only once.
+ *
+ * <p>
+ * The commit pairs are passed to the standard input of the process by a
+ * separate thread. git writes the diffs one after another to its standard
+ * output, each introduced by a line containing the hash of the new commit
+ * ({@code --always} prints this line for empty diffs as well). The output is
+ * split at these lines into the numbered diff files. No line of a patch can
+ * consist of exactly 40 hexadecimal digits, so the split is unambiguous. With
+ * the same options, the patches of diff-tree are identical to the ones of
+ * {@code git diff}.
+ * </p>
+ *
+ * <p>
+ * Only pairs of full commit hashes can be passed to diff-tree. Diffs for
+ * other pairs (e.g. against the empty tree) and diffs that git did not write
+ * completely are returned to the caller to be generated separately.
+ * </p>
+ *
+ * @author moritz
+ */
+public class GitDiffPipeline {
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The length of a full commit hash. */
+    private static final int HASH_LENGTH = 40;
+
+    /** The size of the buffer for the output of git. */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /** The size of the buffer for writing a diff file. */
+    private static final int OUTPUT_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Receives the diffs written by the pipeline.
+     */
+    public interface DiffListener {
+
+        /**
+         * Called after a diff file was written completely.
+         *
+         * @param number the number of the diff
+         * @param diffFile the diff file
+         * @param checksum the CRC32 checksum of the content
+         * @param statistics the statistics of the diff, null if not collected
+         * @throws IOException Signals that an I/O exception has occurred.
+         */
+        void generated(int number, File diffFile, long checksum, DiffStatistics statistics) throws IOException;
+    }
+
+    /** The git repository. */
+    private File gitRepository;
+
+    /** Whether to write gzip compressed diff files. */
+    private boolean compress;
+
+    /** Whether to collect the statistics of the diffs. */
+    private boolean collectStatistics;
+
+    /**
+     * Instantiates a new pipeline.
+     *
+     * @param gitRepository the git repository
+     * @param compress whether to write gzip compressed diff files (see
+     *        {@link CompressingOutputStream})
+     * @param collectStatistics whether to collect the {@link DiffStatistics}
+     *        of the diffs while they are written
+     */
+    public GitDiffPipeline(File gitRepository, boolean compress, boolean collectStatistics) {
+        this.gitRepository = gitRepository;
+        this.compress = compress;
+        this.collectStatistics = collectStatistics;
+    }
+
+    /**
+     * Generates diffs. The diff with the number i is the diff between the
+     * commits at index i - 1 and i and is written to the file numbered i (see
+     * {@link DiffGenerator#getDiffFile(File, int, boolean)}).
+     *
+     * @param commits the commits
+     * @param diffNumbers the numbers of the diffs to generate in ascending
+     *        order
+     * @param outputDir the output dir
+     * @param listener receives every generated diff
+     * @return the numbers of the diffs that were not generated, in ascending
+     *         order
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public List<Integer> generateDiffs(List<String> commits, List<Integer> diffNumbers, File outputDir,
+        DiffListener listener) throws IOException {
+        List<Integer> numbers = new ArrayList<Integer>();
+        List<Integer> missing = new ArrayList<Integer>();
+        for (int number : diffNumbers) {
+            if (isCommitHash(commits.get(number - 1)) && isCommitHash(commits.get(number))) {
+                numbers.add(number);
+            } else {
+                missing.add(number);
+            }
+        }
+        if (!numbers.isEmpty()) {
+            missing.addAll(run(commits, numbers, outputDir, listener));
+            Collections.sort(missing);
+        }
+        return missing;
+    }
+
+    /**
+     * Runs one git process for the given diffs.
+     *
+     * @param commits the commits
+     * @param numbers the numbers of the diffs to generate in ascending order
+     * @param outputDir the output dir
+     * @param listener receives every generated diff
+     * @return the numbers of the diffs that were not generated
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private List<Integer> run(List<String> commits, List<Integer> numbers, File outputDir, DiffListener listener)
+        throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder("git", "diff-tree", "--stdin", "--always", "-p",
+            "--no-renames", "--binary", "-U100000");
+        processBuilder.directory(gitRepository);
+        Process process = processBuilder.start();
+
+        ByteArrayOutputStream stderrStream = new ByteArrayOutputStream();
+        Thread stderrReader = new Thread(() -> copy(process.getErrorStream(), stderrStream), "git diff-tree stderr");
+        Thread stdinWriter = new Thread(() -> writeCommitPairs(process.getOutputStream(), commits, numbers),
+            "git diff-tree stdin");
+        stderrReader.start();
+        stdinWriter.start();
+
+        List<Integer> missing;
+        try {
+            missing = readDiffs(process, commits, numbers, outputDir, listener);
+            stdinWriter.join();
+            stderrReader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating diffs", e);
+        } finally {
+            process.destroy();
+        }
+
+        String stderr = stderrStream.toString();
+        if (!stderr.isEmpty()) {
+            if (!missing.isEmpty()) {
+                LOGGER.logError(("git diff-tree stderr:\n" + stderr).split("\n"));
+            } else {
+                LOGGER.logDebug(("git diff-tree stderr:\n" + stderr).split("\n"));
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Splits the standard output of git into the diff files and waits for the
+     * process to terminate.
+     *
+     * @param process the git process
+     * @param commits the commits
+     * @param numbers the numbers of the diffs passed to git in ascending order
+     * @param outputDir the output dir
+     * @param listener receives every generated diff
+     * @return the numbers of the diffs that were not generated
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws InterruptedException if interrupted while waiting for git
+     */
+    // CHECKSTYLE:OFF
+    private List<Integer> readDiffs(Process process, List<String> commits, List<Integer> numbers, File outputDir,
+        DiffListener listener) throws IOException, InterruptedException {
+        // CHECKSTYLE:ON
+        List<Integer> missing = new ArrayList<Integer>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int position = 0;
+        int limit = 0;
+        boolean lineStart = true;
+        boolean endOfStream = false;
+        int next = 0;
+        File diffFile = null;
+        CRC32 checksum = new CRC32();
+        DiffStatistics statistics = null;
+        OutputStream out = null;
+
+        try (InputStream stdout = process.getInputStream()) {
+            while (!endOfStream) {
+                if (lineStart && limit - position <= HASH_LENGTH) {
+                    // make sure that a complete hash line can be checked
+                    System.arraycopy(buffer, position, buffer, 0, limit - position);
+                    limit -= position;
+                    position = 0;
+                    int read = 0;
+                    while (read >= 0 && limit <= HASH_LENGTH) {
+                        read = stdout.read(buffer, limit, buffer.length - limit);
+                        limit += Math.max(0, read);
+                    }
+                } else if (position == limit) {
+                    position = 0;
+                    limit = Math.max(0, stdout.read(buffer));
+                }
+                endOfStream = position == limit;
+
+                int header = lineStart && !endOfStream ? findHeader(buffer, position, limit, commits, numbers, next)
+                    : -1;
+                if (header >= 0) {
+                    if (out != null) {
+                        out.close();
+                        listener.generated(numbers.get(next - 1), diffFile, checksum.getValue(), statistics);
+                    }
+                    for (; next < header; next++) {
+                        missing.add(numbers.get(next));
+                    }
+                    diffFile = DiffGenerator.getDiffFile(outputDir, numbers.get(next), compress);
+                    next++;
+                    checksum.reset();
+                    out = new CheckedOutputStream(DiffGenerator.openDiffFile(diffFile, compress), checksum);
+                    if (collectStatistics) {
+                        statistics = new DiffStatistics();
+                        out = new DiffStatisticsStream(out, statistics);
+                    }
+                    out = new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+                    position += HASH_LENGTH + 1;
+                } else if (!endOfStream) {
+                    int end = position;
+                    while (end < limit && buffer[end] != '\n') {
+                        end++;
+                    }
+                    lineStart = end < limit;
+                    if (lineStart) {
+                        end++;
+                    }
+                    if (out != null) {
+                        out.write(buffer, position, end - position);
+                    }
+                    position = end;
+                }
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        if (process.waitFor() == 0 && diffFile != null) {
+            listener.generated(numbers.get(next - 1), diffFile, checksum.getValue(), statistics);
+        } else if (diffFile != null) {
+            // the last diff may be incomplete
+            missing.add(numbers.get(next - 1));
+        }
+        for (; next < numbers.size(); next++) {
+            missing.add(numbers.get(next));
+        }
+        return missing;
+    }
+
+    /**
+     * Checks whether a line introducing one of the remaining diffs starts at
+     * the given position.
+     *
+     * @param buffer the buffered output of git
+     * @param position the start of the line
+     * @param limit the end of the buffered output
+     * @param commits the commits
+     * @param numbers the numbers of the diffs passed to git
+     * @param next the index of the next expected diff in numbers
+     * @return the index of the diff in numbers, -1 if the line does not
+     *         introduce a diff
+     */
+    // CHECKSTYLE:OFF
+    private static int findHeader(byte[] buffer, int position, int limit, List<String> commits,
+        List<Integer> numbers, int next) {
+        // CHECKSTYLE:ON
+        int header = -1;
+        if (limit - position > HASH_LENGTH && buffer[position + HASH_LENGTH] == '\n') {
+            for (int i = next; header < 0 && i < numbers.size(); i++) {
+                String hash = commits.get(numbers.get(i));
+                boolean equal = true;
+                for (int j = 0; equal && j < HASH_LENGTH; j++) {
+                    equal = buffer[position + j] == hash.charAt(j);
+                }
+                if (equal) {
+                    header = i;
+                }
+            }
+        }
+        return header;
+    }
+
+    /**
+     * Writes the commit pairs of the diffs to the standard input of git. Every
+     * line contains the new commit followed by the old commit, which
+     * diff-tree treats as a commit and its parent.
+     *
+     * @param stdin the standard input of git
+     * @param commits the commits
+     * @param numbers the numbers of the diffs
+     */
+    private static void writeCommitPairs(OutputStream stdin, List<String> commits, List<Integer> numbers) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(stdin, StandardCharsets.US_ASCII))) {
+            for (int number : numbers) {
+                writer.write(commits.get(number));
+                writer.write(' ');
+                writer.write(commits.get(number - 1));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            LOGGER.logException("Could not pass commits to git diff-tree", e);
+        }
+    }
+
+    /**
+     * Copies a stream until its end.
+     *
+     * @param in the stream to read
+     * @param out the stream to write
+     */
+    private static void copy(InputStream in, OutputStream out) {
+        byte[] buffer = new byte[8192];
+        try {
+            for (int read; (read = in.read(buffer)) >= 0;) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            LOGGER.logException("Could not read from git diff-tree", e);
+        }
+    }
+
+    /**
+     * Checks whether a hash can be passed to diff-tree as commit.
+     *
+     * @param hash the hash
+     * @return true, if a full hash of a commit
+     */
+    private static boolean isCommitHash(String hash) {
+        boolean commit = hash.length() == HASH_LENGTH && !hash.equals(DiffGenerator.EMPTY_REPOSITORY_HASH);
+        for (int i = 0; commit && i < hash.length(); i++) {
+            char character = hash.charAt(i);
+            commit = (character >= '0' && character <= '9') || (character >= 'a' && character <= 'f');
+        }
+        return commit;
+    }
+
+}
@@ -0,0 +1,108 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Writes results as JSON Lines: one JSON object per record and line, with the
+ * column names as keys. Null strings and doubles that are not finite (which
+ * JSON can not represent) are written as null.
+ *
+ * @author moritz
+ */
+public class JsonLinesResultExporter extends ResultExporter {
+
+    /** The encoded keys including quotes and colon, by column. */
+    private byte[][] keys;
+
+    /** Used to escape strings. */
+    private StringBuilder escaped = new StringBuilder();
+
+    /**
+     * Opens the file.
+     *
+     * @param file the file to write
+     * @param schema the columns of the records
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public JsonLinesResultExporter(Path file, Schema schema) throws IOException {
+        super(file, schema);
+        keys = new byte[schema.size()][];
+        for (int i = 0; i < keys.length; i++) {
+            String prefix = i == 0 ? "{" : ",";
+            keys[i] = (prefix + escape(schema.getName(i)) + ":").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    protected void appendString(int column, String value) throws IOException {
+        outputBytes(keys[column]);
+        if (value == null) {
+            outputText("null");
+        } else {
+            outputText(escape(value));
+        }
+    }
+
+    @Override
+    protected void appendLong(int column, long value) throws IOException {
+        outputBytes(keys[column]);
+        outputNumber(value);
+    }
+
+    @Override
+    protected void appendDouble(int column, double value) throws IOException {
+        outputBytes(keys[column]);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            outputText("null");
+        } else {
+            outputNumber(value);
+        }
+    }
+
+    @Override
+    protected void appendBoolean(int column, boolean value) throws IOException {
+        outputBytes(keys[column]);
+        outputText(value ? "true" : "false");
+    }
+
+    @Override
+    protected void appendEndOfRecord() throws IOException {
+        if (keys.length == 0) {
+            outputByte('{');
+        }
+        outputText("}\n");
+    }
+
+    /**
+     * Quotes a string and escapes the characters that JSON does not allow
+     * within strings.
+     *
+     * @param value the string
+     * @return the quoted string
+     */
+    private CharSequence escape(String value) {
+        escaped.setLength(0);
+        escaped.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                escaped.append('\\').append(character);
+            } else if (character == '\n') {
+                escaped.append("\\n");
+            } else if (character == '\r') {
+                escaped.append("\\r");
+            } else if (character == '\t') {
+                escaped.append("\\t");
+            } else if (character < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) character));
+            } else {
+                escaped.append(character);
+            }
+        }
+        escaped.append('"');
+        return escaped;
+    }
+
+}
@@ -0,0 +1,167 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Filter for reference changes based on the log of the incremental analysis.
+ * Matches entries of files which were only updated (line numbers) or skipped
+ * as they introduced no variability related changes. All file paths are
+ * collected from the log upfront so that each entry can be checked in a single
+ * lookup. Like before, an entry matches if it starts with one of the collected
+ * file paths.
+ *
+ * @author moritz
+ */
+public class LogChangeFilter implements Predicate<String> {
+
+    /** The Logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    private static final String LOG_LINE_UPDATE_PATTERN = "Updating lines for file: ";
+
+    private static final String LOG_LINE_NO_VARCHANGE_PATTERN =
+        " because it introduced no variability related changes.";
+
+    /** Every path remembers the first log line (and thereby rule) that introduced it. */
+    private PrefixTrie<LogFilterEntry> filteredPaths = new PrefixTrie<LogFilterEntry>();
+
+    /** The number of rows removed per rule. */
+    private long[] removedRows = new long[LogFilterRule.values().length];
+
+    /**
+     * Rules for removing entries from the reference changes based on the log of
+     * the incremental analysis.
+     */
+    private enum LogFilterRule {
+
+        /** The incremental analysis only updated line numbers for the file. */
+        LINE_UPDATE("Found new entry in reference that is likely to be a line update: "),
+
+        /** The incremental analysis skipped the file as variability did not change. */
+        NO_VARIABILITY_CHANGE(
+            "Found new entry in reference that is probably not the result of a change to variability: ");
+
+        /** The message logged for every removed entry. */
+        private final String description;
+
+        /**
+         * Instantiates a new rule.
+         *
+         * @param description the message logged for every removed entry
+         */
+        LogFilterRule(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * File path extracted from the log of the incremental analysis.
+     */
+    private static final class LogFilterEntry {
+
+        /** Index of the log line that introduced the path. */
+        private final int logLineIndex;
+
+        /** The rule the path belongs to. */
+        private final LogFilterRule rule;
+
+        /**
+         * Instantiates a new entry.
+         *
+         * @param logLineIndex index of the log line that introduced the path
+         * @param rule the rule the path belongs to
+         */
+        private LogFilterEntry(int logLineIndex, LogFilterRule rule) {
+            this.logLineIndex = logLineIndex;
+            this.rule = rule;
+        }
+    }
+
+    /**
+     * Instantiates a new filter.
+     *
+     * @param logLines the lines of the log of the incremental analysis
+     * @param removeNoVariabilityChanges whether files that were skipped as they
+     *        introduced no variability related changes should be matched as well
+     */
+    public LogChangeFilter(List<String> logLines, boolean removeNoVariabilityChanges) {
+        for (int i = 0; i < logLines.size(); i++) {
+            String line = logLines.get(i);
+            if (line.contains(LOG_LINE_UPDATE_PATTERN)) {
+                String updatedFile = line
+                    .substring(line.indexOf(LOG_LINE_UPDATE_PATTERN) + LOG_LINE_UPDATE_PATTERN.length());
+                filteredPaths.putIfAbsent(updatedFile, new LogFilterEntry(i, LogFilterRule.LINE_UPDATE));
+            } else if (removeNoVariabilityChanges && line.contains(LOG_LINE_NO_VARCHANGE_PATTERN)) {
+                String skippedFile = line.substring(line.indexOf("Skipping ") + "Skipping ".length(),
+                    line.indexOf(LOG_LINE_NO_VARCHANGE_PATTERN));
+                filteredPaths.putIfAbsent(skippedFile,
+                    new LogFilterEntry(i, LogFilterRule.NO_VARIABILITY_CHANGE));
+            }
+        }
+    }
+
+    /**
+     * Checks whether the entry should be removed from the reference changes. A
+     * matching entry is counted for the rule of the earliest log line that
+     * matched it.
+     *
+     * @param entry the entry
+     * @return true, if the entry is matched by the log
+     */
+    @Override
+    public boolean test(String entry) {
+        return test(entry, 1);
+    }
+
+    /**
+     * Checks whether the entry should be removed from the reference changes.
+     *
+     * @param entry the entry
+     * @param occurrences the number of rows represented by the entry
+     * @return true, if the entry is matched by the log
+     */
+    public boolean test(String entry, int occurrences) {
+        LogFilterEntry firstMatch = null;
+        if (!filteredPaths.isEmpty()) {
+            for (LogFilterEntry match : filteredPaths.prefixesOf(entry)) {
+                if (firstMatch == null || match.logLineIndex < firstMatch.logLineIndex) {
+                    firstMatch = match;
+                }
+            }
+        }
+        if (firstMatch != null) {
+            removedRows[firstMatch.rule.ordinal()] += occurrences;
+            LOGGER.logInfo(firstMatch.rule.description + entry);
+        }
+        return firstMatch != null;
+    }
+
+    /**
+     * Removes all matching entries from the reference changes.
+     *
+     * @param referenceChanges the reference changes
+     */
+    public void removeFrom(ResultMultiset referenceChanges) {
+        if (!filteredPaths.isEmpty()) {
+            referenceChanges.removeMatching((entry, count) -> test(entry, count));
+        }
+    }
+
+    /**
+     * Logs how many rows were removed by each rule.
+     *
+     * @param resultName the name of the result the filter was applied to
+     */
+    public void logSummary(String resultName) {
+        StringJoiner summary = new StringJoiner(", ");
+        for (LogFilterRule rule : LogFilterRule.values()) {
+            summary.add(rule + "=" + removedRows[rule.ordinal()]);
+        }
+        LOGGER.logInfo("Log filter for " + resultName + " removed rows from reference changes: " + summary);
+    }
+
+}
@@ -0,0 +1,307 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32;
+
+/**
+ * Binary sidecar file storing the {@link PerformanceResult} extracted from a
+ * log file, so that repeated runs of the {@link PerformanceEvaluator} on the
+ * same results do not have to scan unchanged logs again.
+ *
+ * <p>
+ * The index is stored next to the log file (see {@link #getIndexFile(File)}).
+ * It is only used if the log file and the corresponding time file still have
+ * the same size, modification time and content hash as when the index was
+ * written. The hash covers the first and last {@value #HASHED_BYTES} bytes of a
+ * file, so checking an index does not require reading the whole log.
+ * </p>
+ *
+ * @author moritz
+ */
+public final class LogIndex {
+
+    /** Suffix appended to the name of the log file. */
+    public static final String SUFFIX = ".index";
+
+    /** Number of bytes hashed at the start and at the end of a file. */
+    public static final int HASHED_BYTES = 64 * 1024;
+
+    /** Marks the file as log index. */
+    private static final int MAGIC = 0x4B484C49;
+
+    /** Version of the format, must be increased whenever the format changes. */
+    private static final int VERSION = 4;
+
+    /** Value stored for missing timestamps. */
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Utility class without instances.
+     */
+    private LogIndex() {
+    }
+
+    /**
+     * Gets the index file for a log file.
+     *
+     * @param logFile the log file
+     * @return the index file
+     */
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getParentFile(), logFile.getName() + SUFFIX);
+    }
+
+    /**
+     * Loads the result for a log file from its index.
+     *
+     * @param logFile the log file
+     * @param timeFile the time file belonging to the log file
+     * @param result the result to fill; only changed if the index was valid
+     * @return true, if the index was valid and the result was filled; false if
+     *         the log has to be scanned
+     */
+    public static boolean load(File logFile, File timeFile, PerformanceResult result) {
+        File indexFile = getIndexFile(logFile);
+        boolean loaded = false;
+        if (indexFile.isFile()) {
+            // read into a separate result, as component times accumulate and a
+            // partially read index would otherwise be counted twice by the scan
+            PerformanceResult indexed = new PerformanceResult(result.getDiffFileName());
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && matches(in, logFile)
+                    && matches(in, timeFile)) {
+                    readResult(in, indexed);
+                    loaded = true;
+                }
+            } catch (IOException e) {
+                loaded = false;
+            }
+            if (loaded) {
+                copyResult(indexed, result);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Stores the result for a log file in its index. The index is written to a
+     * temporary file first so that concurrent readers never see a partially
+     * written index.
+     *
+     * @param logFile the log file
+     * @param timeFile the time file belonging to the log file
+     * @param result the result extracted from the log file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void store(File logFile, File timeFile, PerformanceResult result) throws IOException {
+        File indexFile = getIndexFile(logFile);
+        File tempFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeFingerprint(out, logFile);
+                writeFingerprint(out, timeFile);
+                writeResult(out, result);
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Writes size, modification time and content hash of a file.
+     *
+     * @param out the output
+     * @param file the file, may not exist
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeFingerprint(DataOutputStream out, File file) throws IOException {
+        boolean exists = file.isFile();
+        out.writeLong(exists ? file.length() : -1);
+        out.writeLong(exists ? file.lastModified() : -1);
+        out.writeLong(exists ? hash(file) : -1);
+    }
+
+    /**
+     * Checks whether a file still matches the stored fingerprint.
+     *
+     * @param in the input positioned at the fingerprint
+     * @param file the file, may not exist
+     * @return true, if the file did not change
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static boolean matches(DataInputStream in, File file) throws IOException {
+        boolean exists = file.isFile();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        long hash = in.readLong();
+        // compare the cheap attributes first so that changed files are not hashed
+        return size == (exists ? file.length() : -1) && lastModified == (exists ? file.lastModified() : -1)
+            && hash == (exists ? hash(file) : -1);
+    }
+
+    /**
+     * Hashes the first and last {@value #HASHED_BYTES} bytes of a file.
+     *
+     * @param file the file
+     * @return the hash
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static long hash(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            long length = input.length();
+            byte[] block = new byte[(int) Math.min(HASHED_BYTES, length)];
+            input.readFully(block);
+            crc.update(block);
+            if (length > HASHED_BYTES) {
+                block = new byte[(int) Math.min(HASHED_BYTES, length - HASHED_BYTES)];
+                input.seek(length - block.length);
+                input.readFully(block);
+                crc.update(block);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the extracted values of a result.
+     *
+     * @param out the output
+     * @param result the result
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeResult(DataOutputStream out, PerformanceResult result) throws IOException {
+        writeTime(out, result.getStartTime());
+        writeTime(out, result.getEndTime());
+        writeTime(out, result.getStartPreparationPhase());
+        writeTime(out, result.getEndPreparationPhase());
+        writeTime(out, result.getStartExtractionPhase());
+        writeTime(out, result.getEndExtractionPhase());
+        writeTime(out, result.getStartPostExtractionPhase());
+        writeTime(out, result.getEndPostExtractionPhase());
+        writeTime(out, result.getStartAnalysisPhase());
+        writeTime(out, result.getEndAnalysisPhase());
+        out.writeBoolean(result.isPartialAnalysis());
+        out.writeBoolean(result.isEmptyAnalysis());
+        out.writeDouble(result.getTotalTime());
+        out.writeInt(result.getAnalysisComponentCount());
+        for (int i = 0; i < result.getAnalysisComponentCount(); i++) {
+            // numbers of component names are only valid within one execution, so the name is stored
+            out.writeUTF(ComponentNames.getName(result.getAnalysisComponentId(i)));
+            out.writeLong(result.getAnalysisComponentTime(i));
+        }
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            out.writeDouble(result.getResourceUsage(metric));
+        }
+        for (AnalysisPhase phase : AnalysisPhase.values()) {
+            out.writeLong(result.getPhaseMillis(phase));
+        }
+    }
+
+    /**
+     * Reads the extracted values of a result.
+     *
+     * @param in the input
+     * @param result the result to fill
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void readResult(DataInputStream in, PerformanceResult result) throws IOException {
+        result.setStartTime(readTime(in));
+        result.setEndTime(readTime(in));
+        result.setStartPreparationPhase(readTime(in));
+        result.setEndPreparationPhase(readTime(in));
+        result.setStartExtractionPhase(readTime(in));
+        result.setEndExtractionPhase(readTime(in));
+        result.setStartPostExtractionPhase(readTime(in));
+        result.setEndPostExtractionPhase(readTime(in));
+        result.setStartAnalysisPhase(readTime(in));
+        result.setEndAnalysisPhase(readTime(in));
+        result.setPartialAnalysis(in.readBoolean());
+        result.setEmptyAnalysis(in.readBoolean());
+        result.setTotalTime(in.readDouble());
+        int componentCount = in.readInt();
+        for (int i = 0; i < componentCount; i++) {
+            result.addAnalysisComponentTime(in.readUTF(), in.readLong());
+        }
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            result.setResourceUsage(metric, in.readDouble());
+        }
+        for (AnalysisPhase phase : AnalysisPhase.values()) {
+            result.setPhaseMillis(phase, in.readLong());
+        }
+    }
+
+    /**
+     * Copies the extracted values of a result.
+     *
+     * @param from the result to copy
+     * @param to the result to fill
+     */
+    private static void copyResult(PerformanceResult from, PerformanceResult to) {
+        to.setStartTime(from.getStartTime());
+        to.setEndTime(from.getEndTime());
+        to.setStartPreparationPhase(from.getStartPreparationPhase());
+        to.setEndPreparationPhase(from.getEndPreparationPhase());
+        to.setStartExtractionPhase(from.getStartExtractionPhase());
+        to.setEndExtractionPhase(from.getEndExtractionPhase());
+        to.setStartPostExtractionPhase(from.getStartPostExtractionPhase());
+        to.setEndPostExtractionPhase(from.getEndPostExtractionPhase());
+        to.setStartAnalysisPhase(from.getStartAnalysisPhase());
+        to.setEndAnalysisPhase(from.getEndAnalysisPhase());
+        to.setPartialAnalysis(from.isPartialAnalysis());
+        to.setEmptyAnalysis(from.isEmptyAnalysis());
+        to.setTotalTime(from.getTotalTime());
+        for (int i = 0; i < from.getAnalysisComponentCount(); i++) {
+            to.addAnalysisComponentTime(ComponentNames.getName(from.getAnalysisComponentId(i)),
+                from.getAnalysisComponentTime(i));
+        }
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            to.setResourceUsage(metric, from.getResourceUsage(metric));
+        }
+        for (AnalysisPhase phase : AnalysisPhase.values()) {
+            to.setPhaseMillis(phase, from.getPhaseMillis(phase));
+        }
+    }
+
+    /**
+     * Writes a timestamp.
+     *
+     * @param out the output
+     * @param time the time, may be null
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time == null ? 0 : time.getNano());
+    }
+
+    /**
+     * Reads a timestamp.
+     *
+     * @param in the input
+     * @return the time, may be null
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+}
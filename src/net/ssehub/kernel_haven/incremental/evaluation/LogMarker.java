@@ -0,0 +1,241 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Markers in the log of an analysis that are of interest for the
+ * {@link PerformanceEvaluator}. The declaration order is the priority of the
+ * markers: if a line contains more than one marker, only the first one counts.
+ *
+ * <p>
+ * Each marker is described by alternatives of which at least one must match.
+ * An alternative matches if all of its patterns are contained in the line. All
+ * patterns of all markers are searched for at once by a single
+ * {@link MultiPatternMatcher}, so every line is only scanned once regardless of
+ * the number of markers.
+ * </p>
+ *
+ * @author moritz
+ */
+public enum LogMarker {
+
+    /** The analysis is a partial (incremental) analysis. */
+    PARTIAL_ANALYSIS(null, new String[] {"Performing a partial analysis"}),
+
+    /** Start of the preparation phase. */
+    START_PREPARATION(null, new String[] {"[Setup] Running preparation"}),
+
+    /** End of the preparation phase. */
+    END_PREPARATION(null, new String[] {"IncrementalPreparation duration:"}),
+
+    /** Start of the extraction phase (only the first occurrence is relevant). */
+    START_EXTRACTION(null, new String[] {"Extractor-"}),
+
+    /** End of the extraction phase. */
+    END_EXTRACTION(null, new String[] {"Extractor", "finished"}, new String[] {"ExtractorDataDuplicator"}),
+
+    /** End of the analysis phase. */
+    END_ANALYSIS(null, new String[] {"[info   ] [Setup] Analysis has finished"}),
+
+    /** Start of the post extraction phase. */
+    START_POST_EXTRACTION(null,
+        new String[] {"[IncrementalPostExtraction] Analysis component IncrementalPostExtraction starting"}),
+
+    /** End of the post extraction phase. */
+    END_POST_EXTRACTION(null,
+        new String[] {"[IncrementalPostExtraction] Analysis component IncrementalPostExtraction done"}),
+
+    /** The analysis did not cover any source files. */
+    EMPTY_ANALYSIS(null, new String[] {"Analysis finished covering 0 source files."}),
+
+    /**
+     * An analysis component finished. The execution time is logged in the
+     * following line. Use {@link #getFinishedComponent(String)} to get the name.
+     */
+    COMPONENT_DONE(LogMarker.COMPONENT_DONE_SUFFIX, new String[] {LogMarker.COMPONENT_PREFIX});
+
+    /** Text preceding the name of a finished analysis component. */
+    private static final String COMPONENT_PREFIX = "Analysis component ";
+
+    /** Text following the name of a finished analysis component at the end of the line. */
+    private static final String COMPONENT_DONE_SUFFIX = " done";
+
+    /** Matcher for the patterns of all markers. */
+    private static final MultiPatternMatcher MATCHER;
+
+    /** The marker values in priority order. */
+    private static final LogMarker[] MARKERS = values();
+
+    /** Text the line must end with, null if arbitrary. */
+    private final String lineSuffix;
+
+    /** The alternatives, each consisting of patterns that must all be present. */
+    private final String[][] alternatives;
+
+    /** For each alternative, the bits of its patterns in the result of the matcher. */
+    private long[] alternativeMasks;
+
+    static {
+        List<String> patterns = new ArrayList<String>();
+        for (LogMarker marker : values()) {
+            marker.alternativeMasks = new long[marker.alternatives.length];
+            for (int i = 0; i < marker.alternatives.length; i++) {
+                for (String pattern : marker.alternatives[i]) {
+                    int index = patterns.indexOf(pattern);
+                    if (index < 0) {
+                        index = patterns.size();
+                        patterns.add(pattern);
+                    }
+                    marker.alternativeMasks[i] |= 1L << index;
+                }
+            }
+        }
+        MATCHER = new MultiPatternMatcher(patterns);
+    }
+
+    /**
+     * Instantiates a new marker.
+     *
+     * @param lineSuffix text the line must end with, null if arbitrary
+     * @param alternatives the alternatives, each consisting of patterns that
+     *        must all be contained in the line
+     */
+    LogMarker(String lineSuffix, String[]... alternatives) {
+        this.lineSuffix = lineSuffix;
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Finds all markers contained in a line.
+     *
+     * @param line the line
+     * @return bit mask with the bit (1 &lt;&lt; ordinal) of every marker
+     *         contained in the line set
+     */
+    public static long scan(String line) {
+        return scan(findPatterns(line), line);
+    }
+
+    /**
+     * Finds the patterns of all markers in a line. As all patterns are ASCII,
+     * the line may also be given as undecoded bytes of an ASCII compatible
+     * charset (see {@link MappedLogReader#getAsciiLine()}).
+     *
+     * @param line the line
+     * @return the patterns found, 0 if the line contains no marker
+     */
+    public static long findPatterns(CharSequence line) {
+        return MATCHER.match(line);
+    }
+
+    /**
+     * Finds all markers contained in a line. The line may be given as
+     * undecoded bytes like for {@link #findPatterns(CharSequence)}.
+     *
+     * @param patterns the patterns found in the line by
+     *        {@link #findPatterns(CharSequence)}
+     * @param line the line
+     * @return bit mask with the bit (1 &lt;&lt; ordinal) of every marker
+     *         contained in the line set
+     */
+    public static long scan(long patterns, CharSequence line) {
+        long markers = 0;
+        if (patterns != 0) {
+            for (LogMarker marker : MARKERS) {
+                if (marker.matches(patterns, line)) {
+                    markers |= marker.bit();
+                }
+            }
+        }
+        return markers;
+    }
+
+    /**
+     * Gets the marker with the highest priority out of a bit mask.
+     *
+     * @param markers the bit mask as returned by {@link #scan(String)}
+     * @return the marker, null if the mask is empty
+     */
+    public static LogMarker first(long markers) {
+        return markers == 0 ? null : MARKERS[Long.numberOfTrailingZeros(markers)];
+    }
+
+    /**
+     * Gets the bit representing this marker in the result of
+     * {@link #scan(String)}.
+     *
+     * @return the bit
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Gets the name of the finished analysis component from a line marked with
+     * {@link #COMPONENT_DONE}.
+     *
+     * @param line the line
+     * @return the component name
+     */
+    public static String getFinishedComponent(String line) {
+        int end = line.length() - COMPONENT_DONE_SUFFIX.length();
+        int start = line.lastIndexOf(COMPONENT_PREFIX, end - COMPONENT_PREFIX.length()) + COMPONENT_PREFIX.length();
+        return line.substring(start, end);
+    }
+
+    /**
+     * Checks whether this marker is contained in a line.
+     *
+     * @param found the patterns found in the line by the matcher
+     * @param line the line
+     * @return true, if the marker is contained
+     */
+    private boolean matches(long found, CharSequence line) {
+        boolean matches = false;
+        for (int i = 0; !matches && i < alternativeMasks.length; i++) {
+            matches = (found & alternativeMasks[i]) == alternativeMasks[i];
+        }
+        if (matches && lineSuffix != null) {
+            // the suffix must start behind the first pattern of the marker
+            int suffixStart = line.length() - lineSuffix.length();
+            matches = suffixStart >= 0 && regionMatches(line, suffixStart, lineSuffix)
+                && indexOf(line, alternatives[0][0]) + alternatives[0][0].length() <= suffixStart;
+        }
+        return matches;
+    }
+
+    /**
+     * Checks whether the text contains the given string at the given position.
+     *
+     * @param text the text
+     * @param offset the position
+     * @param string the string
+     * @return true, if the string is found at the position
+     */
+    private static boolean regionMatches(CharSequence text, int offset, String string) {
+        boolean matches = offset + string.length() <= text.length();
+        for (int i = 0; matches && i < string.length(); i++) {
+            matches = text.charAt(offset + i) == string.charAt(i);
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the first occurrence of a string.
+     *
+     * @param text the text
+     * @param string the string
+     * @return the position of the first occurrence, -1 if not found
+     */
+    private static int indexOf(CharSequence text, String string) {
+        int index = -1;
+        for (int i = 0; index < 0 && i + string.length() <= text.length(); i++) {
+            if (regionMatches(text, i, string)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+}
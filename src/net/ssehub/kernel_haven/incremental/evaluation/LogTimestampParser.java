@@ -0,0 +1,215 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parser for timestamps of the form {@code [yyyy-MM-dd HH:mm:ss]} in log lines.
+ * The seconds may be followed by a fraction of up to nine digits separated by
+ * a dot or comma (e.g. {@code [yyyy-MM-dd HH:mm:ss.SSS]}) for logs with
+ * sub-second resolution.
+ * Reads the fields at fixed offsets instead of using a regular expression and
+ * a {@link java.time.format.DateTimeFormatter}. Consecutive log lines usually
+ * share the same second, so the last parsed timestamp is remembered and
+ * returned again without creating a new object.
+ *
+ * <p>
+ * Like the regular expression it replaces, the first bracketed timestamp
+ * anywhere in the line is used and an invalid day of month is adjusted to the
+ * last valid day of the month. Like with the formatter, 24:00:00 denotes the
+ * start of the next day and a timestamp using other whitespace than a space as
+ * separator is rejected. Instances keep state and must not be shared between
+ * threads.
+ * </p>
+ *
+ * @author moritz
+ */
+public class LogTimestampParser {
+
+    /** Length of the timestamp without fraction including the brackets. */
+    private static final int TIMESTAMP_LENGTH = "[yyyy-MM-dd HH:mm:ss]".length();
+
+    /** Maximum number of digits of the fraction of a second. */
+    private static final int MAX_FRACTION_DIGITS = 9;
+
+    /** Offsets of the digits within the timestamp (relative to the opening bracket). */
+    private static final int[] DIGIT_OFFSETS = {1, 2, 3, 4, 6, 7, 9, 10, 12, 13, 15, 16, 18, 19};
+
+    /** The characters of the last parsed timestamp (without brackets). */
+    private char[] lastKey = new char[TIMESTAMP_LENGTH - 1 + MAX_FRACTION_DIGITS];
+
+    /** The number of characters of the last parsed timestamp. */
+    private int lastKeyLength;
+
+    /** The last parsed timestamp, null if none was parsed yet. */
+    private LocalDateTime lastTime;
+
+    /**
+     * Parses the first timestamp contained in a log line. The line may also be
+     * given as undecoded bytes of an ASCII compatible charset (see
+     * {@link MappedLogReader#getAsciiLine()}).
+     *
+     * @param logLine the log line
+     * @return the time, null if the line does not contain a timestamp
+     * @throws DateTimeException if the timestamp contains invalid values
+     */
+    public LocalDateTime parse(CharSequence logLine) {
+        LocalDateTime time = null;
+        int start = indexOf(logLine, '[', 0);
+        int end = start < 0 ? -1 : getTimestampEnd(logLine, start);
+        while (start >= 0 && start + TIMESTAMP_LENGTH <= logLine.length() && end < 0) {
+            start = indexOf(logLine, '[', start + 1);
+            end = start < 0 ? -1 : getTimestampEnd(logLine, start);
+        }
+        if (end >= 0) {
+            time = isCached(logLine, start, end) ? lastTime : parseAt(logLine, start, end);
+        }
+        return time;
+    }
+
+    /**
+     * Checks whether the timestamp at the given position equals the last
+     * parsed one.
+     *
+     * @param logLine the log line
+     * @param start the position of the opening bracket
+     * @param end the position of the closing bracket
+     * @return true, if the cached time can be used
+     */
+    private boolean isCached(CharSequence logLine, int start, int end) {
+        boolean cached = lastTime != null && lastKeyLength == end - start - 1;
+        for (int i = lastKeyLength - 1; cached && i >= 0; i--) {
+            cached = lastKey[i] == logLine.charAt(start + 1 + i);
+        }
+        return cached;
+    }
+
+    /**
+     * Parses the timestamp at the given position and remembers it.
+     *
+     * @param logLine the log line
+     * @param start the position of the opening bracket
+     * @param end the position of the closing bracket
+     * @return the time
+     */
+    private LocalDateTime parseAt(CharSequence logLine, int start, int end) {
+        if (logLine.charAt(start + 11) != ' ') {
+            throw new DateTimeParseException("Date and time must be separated by a space", logLine, start + 11);
+        }
+        int year = number(logLine, start + 1, 4);
+        int month = number(logLine, start + 6, 2);
+        int day = number(logLine, start + 9, 2);
+        if (day > 28 && day <= 31 && month >= 1 && month <= 12) {
+            day = Math.min(day, YearMonth.of(year, month).lengthOfMonth());
+        }
+        int hour = number(logLine, start + 12, 2);
+        int minute = number(logLine, start + 15, 2);
+        int second = number(logLine, start + 18, 2);
+        int nanos = 0;
+        int fractionStart = start + TIMESTAMP_LENGTH;
+        for (int i = 0; i < MAX_FRACTION_DIGITS; i++) {
+            nanos = nanos * 10 + (fractionStart + i < end ? logLine.charAt(fractionStart + i) - '0' : 0);
+        }
+        LocalDateTime time;
+        if (hour == 24 && minute == 0 && second == 0 && nanos == 0) {
+            time = LocalDateTime.of(year, month, day, 0, 0).plusDays(1);
+        } else {
+            time = LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        }
+        lastKeyLength = end - start - 1;
+        for (int i = 0; i < lastKeyLength; i++) {
+            lastKey[i] = logLine.charAt(start + 1 + i);
+        }
+        lastTime = time;
+        return time;
+    }
+
+    /**
+     * Checks whether a complete timestamp starts at the given position.
+     *
+     * @param logLine the log line
+     * @param start the position of the opening bracket
+     * @return the position of the closing bracket, -1 if no timestamp starts
+     *         at the position
+     */
+    private static int getTimestampEnd(CharSequence logLine, int start) {
+        int end = start + TIMESTAMP_LENGTH - 1;
+        boolean timestamp = end < logLine.length() && logLine.charAt(start + 5) == '-'
+            && logLine.charAt(start + 8) == '-' && isWhitespace(logLine.charAt(start + 11))
+            && logLine.charAt(start + 14) == ':' && logLine.charAt(start + 17) == ':';
+        for (int i = 0; timestamp && i < DIGIT_OFFSETS.length; i++) {
+            timestamp = isDigit(logLine.charAt(start + DIGIT_OFFSETS[i]));
+        }
+        if (timestamp && logLine.charAt(end) != ']') {
+            // optional fraction of a second
+            timestamp = logLine.charAt(end) == '.' || logLine.charAt(end) == ',';
+            int fractionEnd = end + 1;
+            while (fractionEnd < logLine.length() && fractionEnd - end <= MAX_FRACTION_DIGITS
+                && isDigit(logLine.charAt(fractionEnd))) {
+                fractionEnd++;
+            }
+            end = fractionEnd;
+            timestamp = timestamp && fractionEnd > start + TIMESTAMP_LENGTH && fractionEnd < logLine.length()
+                && logLine.charAt(fractionEnd) == ']';
+        }
+        return timestamp ? end : -1;
+    }
+
+    /**
+     * Checks whether a character is an ASCII digit.
+     *
+     * @param character the character
+     * @return true, if a digit
+     */
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    /**
+     * Finds the first occurrence of a character.
+     *
+     * @param text the text
+     * @param character the character
+     * @param from the index to start from
+     * @return the index of the character, -1 if not found
+     */
+    private static int indexOf(CharSequence text, char character, int from) {
+        int index = -1;
+        for (int i = from; index < 0 && i < text.length(); i++) {
+            if (text.charAt(i) == character) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether a character is whitespace (equivalent to {@code \s} in a
+     * regular expression).
+     *
+     * @param character the character
+     * @return true, if whitespace
+     */
+    private static boolean isWhitespace(char character) {
+        return character == ' ' || (character >= '\t' && character <= '\r');
+    }
+
+    /**
+     * Reads a number consisting of ASCII digits.
+     *
+     * @param text the text
+     * @param start the position of the first digit
+     * @param length the number of digits
+     * @return the number
+     */
+    private static int number(CharSequence text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+}
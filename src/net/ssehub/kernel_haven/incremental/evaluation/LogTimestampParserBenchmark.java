@@ -0,0 +1,253 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Compares the time needed to extract the timestamps of log lines with the
+ * previous implementation of the PerformanceEvaluator (a regular expression
+ * and a {@link DateTimeFormatter} per line) and with the
+ * {@link LogTimestampParser}. Both implementations are first checked to
+ * return the same time for every line and are then run alternately on all
+ * lines, with one parser per log file like in the PerformanceEvaluator.
+ *
+ * <p>
+ * The lines are read from the given log files of a KernelHaven execution (or
+ * from all {@code .log} files in the given directories). Lines with a
+ * timestamp with a fraction of a second are skipped, as only the
+ * {@link LogTimestampParser} supports them.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code LogTimestampParserBenchmark [-runs N] <log file or
+ * directory>...}
+ * </p>
+ *
+ * @author moritz
+ */
+public class LogTimestampParserBenchmark {
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** Matches timestamps with a fraction of a second, which the previous implementation did not support. */
+    private static final Pattern FRACTION_PATTERN = Pattern.compile(
+        "\\[\\d{4}-\\d{2}-\\d{2}\\s\\d{2}:\\d{2}:\\d{2}[.,]\\d+\\]");
+
+    /** The maximum number of differing lines that are logged. */
+    private static final int MAX_LOGGED_DIFFERENCES = 10;
+
+    /** Receives the results of the measured runs, so that they are not optimized away. */
+    private static volatile int sink;
+
+    /**
+     * Utility class without instances.
+     */
+    private LogTimestampParserBenchmark() {
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the arguments
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = 5;
+        List<Path> inputs = new ArrayList<Path>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-runs") && i + 1 < args.length) {
+                i++;
+                runs = Integer.parseInt(args[i]);
+            } else {
+                inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty() || runs < 1) {
+            LOGGER.logError("Usage: LogTimestampParserBenchmark [-runs N] <log file or directory>...");
+            System.exit(1);
+        }
+
+        List<String[]> logs = new ArrayList<String[]>();
+        int lineCount = 0;
+        int skipped = 0;
+        int differences = 0;
+        for (Path logFile : findLogFiles(inputs)) {
+            List<String> lines = new ArrayList<String>();
+            LogTimestampParser parser = new LogTimestampParser();
+            for (String line : Files.readAllLines(logFile, StandardCharsets.ISO_8859_1)) {
+                if (FRACTION_PATTERN.matcher(line).find()) {
+                    skipped++;
+                } else {
+                    String expected = describe(line, false, null);
+                    String parsed = describe(line, true, parser);
+                    if (!expected.equals(parsed)) {
+                        differences++;
+                        if (differences <= MAX_LOGGED_DIFFERENCES) {
+                            LOGGER.logError("Different times (regex " + expected + ", parser " + parsed + ") in "
+                                + logFile + ": " + line);
+                        }
+                    }
+                    lines.add(line);
+                }
+            }
+            logs.add(lines.toArray(new String[lines.size()]));
+            lineCount += lines.size();
+        }
+        if (differences > 0) {
+            LOGGER.logError(differences + " of " + lineCount + " lines have different times");
+            System.exit(1);
+        }
+        LOGGER.logInfo("Both implementations agree on all " + lineCount + " lines of " + logs.size()
+            + " log files (" + skipped + " lines with fractions of a second skipped); measuring " + runs + " times");
+
+        // warm up both implementations before measuring
+        measure(logs, lineCount, false);
+        measure(logs, lineCount, true);
+        double[] regexNanos = new double[runs];
+        double[] parserNanos = new double[runs];
+        for (int run = 0; run < runs; run++) {
+            // alternate the order so that neither implementation always runs first
+            if (run % 2 == 0) {
+                regexNanos[run] = measure(logs, lineCount, false);
+                parserNanos[run] = measure(logs, lineCount, true);
+            } else {
+                parserNanos[run] = measure(logs, lineCount, true);
+                regexNanos[run] = measure(logs, lineCount, false);
+            }
+            LOGGER.logInfo(String.format(Locale.ROOT, "Run %d: regex and formatter %.1f ns/line, parser %.1f ns/line",
+                run + 1, regexNanos[run], parserNanos[run]));
+        }
+
+        double regex = median(regexNanos);
+        double parser = median(parserNanos);
+        LOGGER.logInfo(String.format(Locale.ROOT, "Median: regex and formatter %.1f ns/line, parser %.1f ns/line, "
+            + "speedup %.2fx", regex, parser, regex / parser));
+    }
+
+    /**
+     * Finds the log files.
+     *
+     * @param inputs the log files and directories containing log files
+     * @return the log files
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static List<Path> findLogFiles(List<Path> inputs) throws IOException {
+        List<Path> logFiles = new ArrayList<Path>();
+        for (Path input : inputs) {
+            if (Files.isRegularFile(input)) {
+                logFiles.add(input);
+            } else {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    logFiles.addAll(walk.filter(file -> Files.isRegularFile(file)
+                        && file.getFileName().toString().endsWith(".log")).sorted().collect(Collectors.toList()));
+                }
+            }
+        }
+        return logFiles;
+    }
+
+    /**
+     * Describes the result of extracting the timestamp of a line, so that
+     * invalid timestamps are compared as well.
+     *
+     * @param line the line
+     * @param useParser whether to use the parser instead of the previous
+     *        implementation
+     * @param parser the parser of the log file, null if not used
+     * @return the time, "none" if there is no timestamp or "invalid" if the
+     *         timestamp contains invalid values
+     */
+    private static String describe(String line, boolean useParser, LogTimestampParser parser) {
+        String description;
+        try {
+            LocalDateTime time = useParser ? parser.parse(line) : extractDateFromLogLine(line);
+            description = Objects.toString(time, "none");
+        } catch (DateTimeException e) {
+            description = "invalid";
+        }
+        return description;
+    }
+
+    /**
+     * Extracts the timestamps of all lines once.
+     *
+     * @param logs the lines of each log file
+     * @param lineCount the total number of lines
+     * @param useParser whether to use the {@link LogTimestampParser} instead
+     *        of the previous implementation
+     * @return the time per line in nanoseconds
+     */
+    private static double measure(List<String[]> logs, int lineCount, boolean useParser) {
+        long start = System.nanoTime();
+        int found = 0;
+        for (String[] lines : logs) {
+            LogTimestampParser parser = new LogTimestampParser();
+            for (String line : lines) {
+                try {
+                    if ((useParser ? parser.parse(line) : extractDateFromLogLine(line)) != null) {
+                        found++;
+                    }
+                } catch (DateTimeException e) {
+                    found--;
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        sink = found;
+        return (double) nanos / Math.max(1, lineCount);
+    }
+
+    /**
+     * The previous implementation in the PerformanceEvaluator: matches a
+     * regular expression and parses the timestamp with a formatter.
+     *
+     * @param logLine the log line
+     * @return the local date time
+     */
+    private static LocalDateTime extractDateFromLogLine(String logLine) {
+        Pattern pattern = Pattern.compile("\\[(\\d{4}-\\d{2}-\\d{2}\\s{1}\\d{2}:\\d{2}:\\d{2})\\]");
+        Matcher matcher = pattern.matcher(logLine);
+
+        LocalDateTime time = null;
+
+        if (matcher.find()) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+            String timeString = matcher.group(1);
+            time = LocalDateTime.parse(timeString, formatter);
+        }
+
+        return time;
+    }
+
+    /**
+     * Calculates the median.
+     *
+     * @param values the values (reordered by this method)
+     * @return the median
+     */
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        return values.length % 2 == 1 ? values[values.length / 2]
+            : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+    }
+
+}
@@ -0,0 +1,260 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Line reader for large log files working directly on the bytes of the file.
+ * The file is memory mapped in windows, so files larger than 2 GB are
+ * supported. Bytes are transferred from the mapped window into a reusable
+ * array in bulk as scanning an array is considerably faster than accessing the
+ * mapped buffer byte by byte. Lines are not decoded unless {@link #getLine()}
+ * is called; {@link #getAsciiLine()} gives access to the raw bytes of the
+ * current line, which is sufficient to search for ASCII markers (see
+ * {@link LogMarker#findPatterns(CharSequence)}) and timestamps (see
+ * {@link LogTimestampParser}).
+ *
+ * <p>
+ * Lines are split like by {@link java.io.BufferedReader#readLine()}: a line is
+ * terminated by \n, \r or \r\n and a terminator at the end of the file does not
+ * start another line. The charset must be ASCII compatible.
+ * </p>
+ *
+ * @author moritz
+ */
+public class MappedLogReader implements Closeable {
+
+    /** The default size of the mapped windows. */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** The initial size of the line buffer, grows for longer lines. */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /** The maximum size of the line buffer. */
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    /** The channel of the file. */
+    private FileChannel channel;
+
+    /** The size of the file. */
+    private long fileSize;
+
+    /** The charset used to decode lines. */
+    private Charset charset;
+
+    /** The size of the mapped windows. */
+    private int windowSize;
+
+    /** The currently mapped window, null if nothing is mapped yet. */
+    private MappedByteBuffer window;
+
+    /** Position of the window within the file. */
+    private long windowPosition;
+
+    /** Bytes transferred from the window that have not been consumed yet. */
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    /** The number of valid bytes in the buffer. */
+    private int bufferLength;
+
+    /** Start of the current line within the buffer. */
+    private int lineStart;
+
+    /** End of the current line (exclusive, without terminator) within the buffer. */
+    private int lineEnd;
+
+    /** Start of the next line within the buffer. */
+    private int nextLineStart;
+
+    /** View of the bytes of the current line. */
+    private AsciiLine asciiLine = new AsciiLine();
+
+    /**
+     * View of the bytes of the current line as characters. Every byte is one
+     * character, so non-ASCII characters appear as multiple characters
+     * &gt;= 128. The view changes when the reader advances.
+     */
+    private final class AsciiLine implements CharSequence {
+
+        @Override
+        public int length() {
+            return lineEnd - lineStart;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer[lineStart + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(length());
+            for (int i = 0; i < length(); i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Opens a log file.
+     *
+     * @param file the log file
+     * @param charset the charset used to decode lines
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public MappedLogReader(Path file, Charset charset) throws IOException {
+        this(file, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a log file.
+     *
+     * @param file the log file
+     * @param charset the charset used to decode lines
+     * @param windowSize the size of the mapped windows
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public MappedLogReader(Path file, Charset charset, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.charset = charset;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return true, if there is another line; false if the end of the file was
+     *         reached
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public boolean nextLine() throws IOException {
+        lineStart = nextLineStart;
+        boolean found = lineStart < bufferLength || fill();
+        if (found) {
+            int terminator = findTerminator(lineStart);
+            // a \r at the end of the buffer might be followed by \n
+            while ((terminator < 0 || (terminator == bufferLength - 1 && buffer[terminator] == '\r'))
+                && !isEndOfInput()) {
+                int scanned = (terminator < 0 ? bufferLength : terminator) - lineStart;
+                fill();
+                terminator = findTerminator(scanned);
+            }
+            lineEnd = terminator < 0 ? bufferLength : terminator;
+            nextLineStart = lineEnd;
+            if (terminator >= 0) {
+                nextLineStart++;
+                if (buffer[terminator] == '\r' && nextLineStart < bufferLength && buffer[nextLineStart] == '\n') {
+                    nextLineStart++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the bytes of the current line as characters without decoding them.
+     * The returned view changes when the reader advances.
+     *
+     * @return the current line, one character per byte
+     */
+    public CharSequence getAsciiLine() {
+        return asciiLine;
+    }
+
+    /**
+     * Decodes the current line.
+     *
+     * @return the current line
+     */
+    public String getLine() {
+        return new String(buffer, lineStart, lineEnd - lineStart, charset);
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the size in bytes
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Finds the next line terminator.
+     *
+     * @param start the position in the buffer to start from
+     * @return the position of the terminator, -1 if there is no terminator
+     *         until the end of the buffer
+     */
+    private int findTerminator(int start) {
+        byte[] bytes = buffer;
+        int length = bufferLength;
+        int index = start;
+        while (index < length && bytes[index] != '\n' && bytes[index] != '\r') {
+            index++;
+        }
+        return index < length ? index : -1;
+    }
+
+    /**
+     * Checks whether all bytes of the file were transferred to the buffer.
+     *
+     * @return true, if the end of the file was reached
+     */
+    private boolean isEndOfInput() {
+        return window != null && !window.hasRemaining() && windowPosition + window.limit() >= fileSize;
+    }
+
+    /**
+     * Moves the current line to the start of the buffer and transfers further
+     * bytes from the file behind it.
+     *
+     * @return true, if bytes were added; false if the end of the file was
+     *         reached
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private boolean fill() throws IOException {
+        int kept = bufferLength - lineStart;
+        System.arraycopy(buffer, lineStart, buffer, 0, kept);
+        bufferLength = kept;
+        nextLineStart -= lineStart;
+        lineStart = 0;
+        if (bufferLength == buffer.length) {
+            if (buffer.length == MAX_BUFFER_SIZE) {
+                throw new IOException("Line is longer than " + MAX_BUFFER_SIZE + " bytes");
+            }
+            byte[] larger = new byte[(int) Math.min(MAX_BUFFER_SIZE, 2L * buffer.length)];
+            System.arraycopy(buffer, 0, larger, 0, bufferLength);
+            buffer = larger;
+        }
+        if (window == null || (!window.hasRemaining() && windowPosition + window.limit() < fileSize)) {
+            long position = window == null ? 0 : windowPosition + window.limit();
+            window = channel.map(MapMode.READ_ONLY, position, Math.min(windowSize, fileSize - position));
+            windowPosition = position;
+        }
+        int count = Math.min(window.remaining(), buffer.length - bufferLength);
+        window.get(buffer, bufferLength, count);
+        bufferLength += count;
+        return count > 0;
+    }
+
+}
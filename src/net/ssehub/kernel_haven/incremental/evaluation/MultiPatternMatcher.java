@@ -0,0 +1,154 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton finding all occurrences of a fixed set of patterns in a
+ * single pass over a text. Patterns must consist of ASCII characters; any other
+ * character in the text simply does not continue a match. At most 64 patterns
+ * are supported as the result is reported as a bit mask.
+ *
+ * <p>
+ * Characters are mapped to classes first (all characters not used in any
+ * pattern share one class), which keeps the transition table small enough to
+ * stay in the CPU cache.
+ * </p>
+ *
+ * @author moritz
+ */
+public class MultiPatternMatcher {
+
+    /** Maximum number of supported patterns. */
+    public static final int MAX_PATTERNS = Long.SIZE;
+
+    /** Number of characters that may be used in patterns. */
+    private static final int ALPHABET_SIZE = 128;
+
+    /** Maximum number of states as they are stored as char. */
+    private static final int MAX_STATES = Character.MAX_VALUE + 1;
+
+    /** The class of each ASCII character, 0 for characters not used in any pattern. */
+    private byte[] characterClasses = new byte[ALPHABET_SIZE];
+
+    /** Whether an ASCII character is the first character of a pattern. */
+    private boolean[] startsPattern = new boolean[ALPHABET_SIZE];
+
+    /** The number of character classes. */
+    private int classCount;
+
+    /** The transition table: next state for state * classCount + character class. */
+    private char[] transitions;
+
+    /** The patterns ending in each state (including suffix matches) as bit mask. */
+    private long[] outputs;
+
+    /**
+     * Instantiates a new matcher.
+     *
+     * @param patterns the patterns; the index of a pattern is its bit in the
+     *        result of {@link #match(CharSequence)}
+     */
+    public MultiPatternMatcher(List<String> patterns) {
+        if (patterns.size() > MAX_PATTERNS) {
+            throw new IllegalArgumentException("At most " + MAX_PATTERNS + " patterns are supported");
+        }
+
+        int maxStates = 1;
+        classCount = 1;
+        for (String pattern : patterns) {
+            maxStates += pattern.length();
+            if (!pattern.isEmpty() && pattern.charAt(0) < ALPHABET_SIZE) {
+                startsPattern[pattern.charAt(0)] = true;
+            }
+            for (int i = 0; i < pattern.length(); i++) {
+                char character = pattern.charAt(i);
+                if (character >= ALPHABET_SIZE) {
+                    throw new IllegalArgumentException("Pattern contains non-ASCII character: " + pattern);
+                }
+                if (characterClasses[character] == 0) {
+                    characterClasses[character] = (byte) classCount++;
+                }
+            }
+        }
+        if (maxStates > MAX_STATES) {
+            throw new IllegalArgumentException("Patterns are too long");
+        }
+        int[] trie = new int[maxStates * classCount];
+        Arrays.fill(trie, -1);
+        long[] stateOutputs = new long[maxStates];
+        int states = 1;
+
+        // build the trie of all patterns
+        for (int index = 0; index < patterns.size(); index++) {
+            String pattern = patterns.get(index);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int characterClass = characterClasses[pattern.charAt(i)];
+                int next = trie[state * classCount + characterClass];
+                if (next < 0) {
+                    next = states++;
+                    trie[state * classCount + characterClass] = next;
+                }
+                state = next;
+            }
+            stateOutputs[state] |= 1L << index;
+        }
+
+        // turn the trie into a deterministic automaton (breadth first over failure links)
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<Integer>();
+        for (int characterClass = 0; characterClass < classCount; characterClass++) {
+            int next = trie[characterClass];
+            if (next < 0) {
+                trie[characterClass] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            stateOutputs[state] |= stateOutputs[failure[state]];
+            for (int characterClass = 0; characterClass < classCount; characterClass++) {
+                int next = trie[state * classCount + characterClass];
+                int fallback = trie[failure[state] * classCount + characterClass];
+                if (next < 0) {
+                    trie[state * classCount + characterClass] = fallback;
+                } else {
+                    failure[next] = fallback;
+                    queue.add(next);
+                }
+            }
+        }
+
+        this.transitions = new char[states * classCount];
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = (char) trie[i];
+        }
+        this.outputs = Arrays.copyOf(stateOutputs, states);
+    }
+
+    /**
+     * Finds the patterns occurring in the text.
+     *
+     * @param text the text
+     * @return bit mask with the bit of every pattern that occurs in the text set
+     */
+    public long match(CharSequence text) {
+        long found = 0;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            // outside of a match, only characters starting a pattern leave the initial state
+            if (state != 0 || (character < ALPHABET_SIZE && startsPattern[character])) {
+                state = transitions[state * classCount + (character < ALPHABET_SIZE ? characterClasses[character] : 0)];
+                found |= outputs[state];
+            }
+        }
+        return found;
+    }
+
+}
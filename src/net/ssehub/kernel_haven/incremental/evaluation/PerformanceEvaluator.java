@@ -1,16 +1,12 @@
 package net.ssehub.kernel_haven.incremental.evaluation;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.NumberFormat;
-import java.text.ParseException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -19,9 +15,15 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import net.ssehub.kernel_haven.incremental.evaluation.PerformanceStatistics.GroupStatistics;
 import net.ssehub.kernel_haven.util.Logger;
 
 /**
@@ -40,9 +42,31 @@ public class PerformanceEvaluator {
 	/** The Constant LOGGER. */
 	private static final Logger LOGGER = Logger.get();
 
+	/** Pattern for the execution time logged after an analysis component finished. */
+	private static final Pattern EXECUTION_TIME_PATTERN = Pattern.compile(".\\s*Execution took (\\d*)");
+
+	/** The analysis component performing the incremental post extraction. */
+	private static final String POST_EXTRACTION_COMPONENT = "IncrementalPostExtraction";
+
+	/** Threshold in seconds for counting short non partial and long partial analyses. */
+	private static final double THRESHOLD_SECONDS = 60;
+
+	/** The columns exported for the {@link DiffStatistics} of a diff. */
+	private static final String[] DIFF_STATISTICS_COLUMNS = {"changed_files", "source_files", "build_files",
+			"variability_files", "binary_files", "hunks", "added_lines", "removed_lines", "diff_bytes"};
+
 	/** The base dir. */
 	private Path baseDir;
 
+	/** Total size of all log files read so far. */
+	private AtomicLong extractedLogBytes = new AtomicLong();
+
+	/** Whether results are loaded from and stored in log indexes. */
+	private boolean useIndex = true;
+
+	/** The number of results loaded from log indexes. */
+	private AtomicLong indexHits = new AtomicLong();
+
 	/**
 	 * Instantiates a new performance evaluator.
 	 *
@@ -60,383 +84,542 @@ public class PerformanceEvaluator {
 	 */
 	public static void main(String[] args) {
 		Path baseDir = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean useIndex = true;
+		Path histogramDir = null;
+		List<Path> exportFiles = new ArrayList<Path>();
+		DiffStatisticsIndex diffStatistics = null;
 		// Parse arguments
-		if (args.length == 1) {
-			baseDir = Paths.get(args[0]);
-		} else if (args.length > 1) {
-			LOGGER.logError("too many arguments ");
-			System.exit(1);
-		} else {
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-j") && i + 1 < args.length) {
+				i++;
+				threads = parseThreadCount(args[i]);
+			} else if (args[i].equals("-noindex")) {
+				useIndex = false;
+			} else if (args[i].equals("-histograms") && i + 1 < args.length) {
+				i++;
+				histogramDir = Paths.get(args[i]);
+			} else if (args[i].equals("-export") && i + 1 < args.length) {
+				i++;
+				exportFiles.add(parseExportFile(args[i]));
+			} else if (args[i].equals("-diffstats") && i + 1 < args.length) {
+				i++;
+				diffStatistics = loadDiffStatistics(args[i]);
+			} else if (args[i].startsWith("-")) {
+				LOGGER.logError("unknown option " + args[i]);
+				System.exit(1);
+			} else if (baseDir != null) {
+				LOGGER.logError("too many arguments ");
+				System.exit(1);
+			} else {
+				baseDir = Paths.get(args[i]);
+			}
+		}
+		if (baseDir == null) {
 			LOGGER.logError("You need to provide the path to the execution results.");
 			System.exit(1);
 		}
 
 		PerformanceEvaluator evaluator = new PerformanceEvaluator(baseDir);
+		evaluator.setUseIndex(useIndex);
+
+		LOGGER.logInfo("Extracting times from incremental and reference reading " + threads + " log files at once");
+		Map<Path, PerformanceResultStore> results = evaluator.generateResults(threads, LOG_INCREMENTAL_DIR,
+				LOG_REFERENCE_DIR);
+		PerformanceResultStore incrementalResults = results.get(LOG_INCREMENTAL_DIR);
+		PerformanceResultStore referenceResults = results.get(LOG_REFERENCE_DIR);
 
-		LOGGER.logInfo("Extracting times from incremental");
-		Map<String, PerformanceResult> incrementalResults = evaluator.generateResults(LOG_INCREMENTAL_DIR);
-		LOGGER.logInfo("Extracting times from reference");
-		Map<String, PerformanceResult> referenceResults = evaluator.generateResults(LOG_REFERENCE_DIR);
+		PerformanceStatistics incrementalStatistics = PerformanceStatistics.withDefaultGroups(THRESHOLD_SECONDS);
+		incrementalStatistics.aggregate(incrementalResults);
+		PerformanceStatistics referenceStatistics = PerformanceStatistics.withDefaultGroups(THRESHOLD_SECONDS);
+		referenceStatistics.aggregate(referenceResults);
 
 		LOGGER.logInfo("Calculating times for incremental results");
-		logGenericDurations(incrementalResults);
+		logGenericDurations(incrementalStatistics.getGroup(PerformanceStatistics.ALL));
 
 		LOGGER.logInfo("Calculating times for reference results");
-		logGenericDurations(referenceResults);
+		logGenericDurations(referenceStatistics.getGroup(PerformanceStatistics.ALL));
 
 		LOGGER.logInfo("Execution times for every incremental iteration:");
-		logExecutionTimes(incrementalResults);
+		logExecutionTimes(incrementalStatistics);
 
 		LOGGER.logInfo("Execution times for every reference iteration:");
-		logExecutionTimes(referenceResults);
+		logExecutionTimes(referenceStatistics);
 
 		LOGGER.logInfo("Logging data for partial analyses in incremental:");
-		logPartialExecutionData(incrementalResults);
-		logPartialExecutionDataForEffectivePartials(incrementalResults);
-		logPartialExecutionDataForEmptyPartials(incrementalResults);
+		logPartialExecutionData(incrementalStatistics.getGroup(PerformanceStatistics.PARTIAL));
+		LOGGER.logInfo("The following data is for effective partial analyses that covered at least one source file:");
+		logPartialExecutionData(incrementalStatistics.getGroup(PerformanceStatistics.EFFECTIVE_PARTIAL));
+		LOGGER.logInfo("The following data is for empty partial analyses that did not cover a single source file:");
+		logPartialExecutionData(incrementalStatistics.getGroup(PerformanceStatistics.EMPTY_PARTIAL));
 
 		LOGGER.logInfo("Logging data for non partial analyses in incremental:");
-		logNonPartialExecutionData(incrementalResults);
+		logNonPartialExecutionData(incrementalStatistics.getGroup(PerformanceStatistics.NON_PARTIAL));
 
 		LOGGER.logInfo("Calculating comparison between incremental and reference");
 		logWhichOneWasFaster(incrementalResults, referenceResults);
-	}
 
-	/**
-	 * Log non partial execution data.
-	 *
-	 * @param results the results
-	 */
-	private static void logNonPartialExecutionData(Map<String, PerformanceResult> results) {
-		List<String> keySet = new ArrayList<String>(results.keySet());
-		Collections.sort(keySet);
+		LOGGER.logInfo("Distribution of durations for incremental results:");
+		logDistributions("incremental", incrementalStatistics, histogramDir);
 
-		long shorterThan60sec = 0;
-		double longestNonPartial = 0;
-		double accumulatedNonPartial = 0;
-		long totalNonPartialCount = 0;
-		double shortestNonPartial = -1;
+		LOGGER.logInfo("Distribution of durations for reference results:");
+		logDistributions("reference", referenceStatistics, histogramDir);
 
-		for (String key : keySet) {
-			PerformanceResult performanceResult = results.get(key);
-			double currentDuration = ChronoUnit.SECONDS.between(performanceResult.getStartTime(),
-					performanceResult.getEndTime());
-			if (performanceResult.getTotalTime() != -1) {
-				currentDuration = performanceResult.getTotalTime();
-			}
+		LOGGER.logInfo("Resource usage reported by GNU time (incremental vs. reference):");
+		logResourceComparison(incrementalStatistics.getGroup(PerformanceStatistics.ALL),
+				referenceStatistics.getGroup(PerformanceStatistics.ALL));
 
-			if (!performanceResult.isPartialAnalysis()) {
-				totalNonPartialCount++;
-				accumulatedNonPartial += currentDuration;
-				if (currentDuration > longestNonPartial) {
-					longestNonPartial = currentDuration;
-				}
-				if (shortestNonPartial == -1 || currentDuration < shortestNonPartial) {
-					shortestNonPartial = currentDuration;
-				}
+		LOGGER.logInfo("Execution times of analysis components (incremental vs. reference):");
+		logComponentComparison(incrementalStatistics.getComponents(), referenceStatistics.getComponents());
 
-				if (currentDuration < 60) {
-					shorterThan60sec++;
-				}
-			}
+		if (diffStatistics != null) {
+			LOGGER.logInfo("Average durations by changed files (incremental vs. reference):");
+			logDurationsByChangedFiles(incrementalResults, referenceResults, diffStatistics);
 		}
 
-		double avgPartialDuration = ((double) accumulatedNonPartial) / ((double) totalNonPartialCount);
-
-		LOGGER.logInfo("NonPartialAccumulatedDuration:" + accumulatedNonPartial + "s NonPartialAnalysisCount: "
-				+ totalNonPartialCount + " NonPartialAnalysesShorterThan60s: " + shorterThan60sec
-				+ " AverageNonPartialDuration: " + avgPartialDuration + "s LongestNonPartialDuration: "
-				+ longestNonPartial + "s ShortestNonPartialDuration:" + shortestNonPartial + "s");
-
+		for (Path exportFile : exportFiles) {
+			try {
+				exportResults(exportFile, incrementalResults, referenceResults, diffStatistics);
+				LOGGER.logInfo("Exported performance results to " + exportFile);
+			} catch (IOException e) {
+				LOGGER.logException("Could not export results to " + exportFile, e);
+			}
+		}
 	}
 
 	/**
-	 * Log partial execution data.
+	 * Parses the file given for the -export option.
 	 *
-	 * @param results the results
+	 * @param value the value
+	 * @return the file
 	 */
-	private static void logPartialExecutionData(Map<String, PerformanceResult> results) {
-		List<String> keySet = new ArrayList<String>(results.keySet());
-		Collections.sort(keySet);
+	private static Path parseExportFile(String value) {
+		Path file = Paths.get(value);
+		try {
+			ResultExporter.Format.forFile(file);
+		} catch (IllegalArgumentException e) {
+			LOGGER.logError(e.getMessage());
+			System.exit(1);
+		}
+		return file;
+	}
 
-		long longerThan60sec = 0;
-		double longestPartial = 0;
-		double accumulatdPartial = 0;
-		long totalPartialCount = 0;
-		double shortestPartial = -1;
+	/**
+	 * Loads the diff statistics index given for the -diffstats option.
+	 *
+	 * @param value the value
+	 * @return the index
+	 */
+	private static DiffStatisticsIndex loadDiffStatistics(String value) {
+		File file = new File(value);
+		DiffStatisticsIndex index = null;
+		if (!file.isFile()) {
+			LOGGER.logError("diff statistics index " + value + " does not exist");
+			System.exit(1);
+		}
+		try {
+			index = DiffStatisticsIndex.load(file);
+		} catch (IOException e) {
+			LOGGER.logException("Could not read diff statistics index " + value, e);
+			System.exit(1);
+		}
+		return index;
+	}
 
-		for (String key : keySet) {
-			PerformanceResult performanceResult = results.get(key);
-			double currentDuration = ChronoUnit.SECONDS.between(performanceResult.getStartTime(),
-					performanceResult.getEndTime());
-			if (performanceResult.getTotalTime() != -1) {
-				currentDuration = performanceResult.getTotalTime();
-			}
+	/**
+	 * Parses the number of threads given for the -j option.
+	 *
+	 * @param value the value
+	 * @return the number of threads
+	 */
+	private static int parseThreadCount(String value) {
+		int threads = 0;
+		try {
+			threads = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			threads = 0;
+		}
+		if (threads < 1) {
+			LOGGER.logError("invalid number of threads " + value);
+			System.exit(1);
+		}
+		return threads;
+	}
 
-			if (performanceResult.isPartialAnalysis()) {
-				totalPartialCount++;
-				accumulatdPartial += currentDuration;
-				if (currentDuration > longestPartial) {
-					longestPartial = currentDuration;
-				}
+	/**
+	 * Log non partial execution data.
+	 *
+	 * @param statistics the statistics of the non partial analyses
+	 */
+	private static void logNonPartialExecutionData(GroupStatistics statistics) {
+		LOGGER.logInfo("NonPartialAccumulatedDuration:" + statistics.getSum() + "s NonPartialAnalysisCount: "
+				+ statistics.getCount() + " NonPartialAnalysesShorterThan60s: " + statistics.getShorterThanThreshold()
+				+ " AverageNonPartialDuration: " + statistics.getMean() + "s LongestNonPartialDuration: "
+				+ statistics.getMax() + "s ShortestNonPartialDuration:" + statistics.getMin() + "s");
+	}
 
-				if (shortestPartial == -1 || shortestPartial > currentDuration) {
-					shortestPartial = currentDuration;
-				}
+	/**
+	 * Log partial execution data.
+	 *
+	 * @param statistics the statistics of the partial analyses
+	 */
+	private static void logPartialExecutionData(GroupStatistics statistics) {
+		LOGGER.logInfo("PartialAccumulatedDuration:" + statistics.getSum() + "s PartialAnalysisCount: "
+				+ statistics.getCount() + " PartialAnalysesLongerThan60s: " + statistics.getLongerThanThreshold()
+				+ " AveragePartialDuration: " + statistics.getMean() + "s LongestPartialDuration: "
+				+ statistics.getMax() + "s ShortestPartialDuration: " + statistics.getMin() + "s");
+	}
 
-				if (currentDuration > 60) {
-					longerThan60sec++;
-				}
-			}
+	/**
+	 * Log execution times.
+	 *
+	 * @param statistics the statistics
+	 */
+	private static void logExecutionTimes(PerformanceStatistics statistics) {
+		StringJoiner times = new StringJoiner(";");
+		for (double duration : statistics.getDurations()) {
+			times.add(Double.toString(duration));
 		}
 
-		double avgPartialDuration = ((double) accumulatdPartial) / ((double) totalPartialCount);
-
-		LOGGER.logInfo("PartialAccumulatedDuration:" + accumulatdPartial + "s PartialAnalysisCount: "
-				+ totalPartialCount + " PartialAnalysesLongerThan60s: " + longerThan60sec + " AveragePartialDuration: "
-				+ avgPartialDuration + "s LongestPartialDuration: " + longestPartial + "s ShortestPartialDuration: "
-				+ shortestPartial + "s");
+		LOGGER.logInfo("Execution times: " + times.toString());
+	}
 
+	/**
+	 * Logs generic durations for a given result set.
+	 *
+	 * @param statistics the statistics of all results
+	 */
+	private static void logGenericDurations(GroupStatistics statistics) {
+		double count = statistics.getCount();
+		LOGGER.logInfo("Average duration: " + statistics.getMean() + "s");
+		LOGGER.logInfo("Maximum duration: " + statistics.getMax() + "s  for "
+				+ getDiffFileName(statistics.getMaxDiffFileName()));
+		LOGGER.logInfo("Minimum duration: " + statistics.getMin() + "s  for "
+				+ getDiffFileName(statistics.getMinDiffFileName()));
+		LOGGER.logInfo("Accumulated duration: " + statistics.getSum() + "s");
+
+		LOGGER.logInfo("Accumulated values: " + formatPhases(statistics, 1));
+		LOGGER.logInfo("Average values: " + formatPhases(statistics, count));
 	}
 
 	/**
-	 * Log partial execution data.
+	 * Formats the accumulated durations of the phases in seconds.
 	 *
-	 * @param results the results
+	 * @param statistics the statistics
+	 * @param divisor    the divisor for the durations (1 for accumulated
+	 *                   values, the number of results for average values)
+	 * @return the formatted durations
 	 */
-	private static void logPartialExecutionDataForEffectivePartials(Map<String, PerformanceResult> results) {
-		List<String> keySet = new ArrayList<String>(results.keySet());
-		Collections.sort(keySet);
+	private static String formatPhases(GroupStatistics statistics, double divisor) {
+		return "setup=" + toSeconds(statistics.getPhaseMillis(AnalysisPhase.SETUP), divisor) + " preparation="
+				+ toSeconds(statistics.getPhaseMillis(AnalysisPhase.PREPARATION), divisor) + " extraction="
+				+ toSeconds(statistics.getPhaseMillis(AnalysisPhase.EXTRACTION), divisor) + " analysis="
+				+ toSeconds(statistics.getPhaseMillis(AnalysisPhase.ANALYSIS), divisor) + " overlap="
+				+ toSeconds(statistics.getPhaseMillis(AnalysisPhase.OVERLAP), divisor) + " post-extraction="
+				+ toSeconds(statistics.getPhaseMillis(AnalysisPhase.POST_EXTRACTION), divisor);
+	}
 
-		long longerThan60sec = 0;
-		double longestPartial = 0;
-		double accumulatdPartial = 0;
-		long totalPartialCount = 0;
-		double shortestPartial = -1;
+	/**
+	 * Converts milliseconds to seconds.
+	 *
+	 * @param millis  the milliseconds
+	 * @param divisor the divisor applied to the result
+	 * @return the seconds
+	 */
+	private static double toSeconds(long millis, double divisor) {
+		return millis / 1000d / divisor;
+	}
 
-		for (String key : keySet) {
-			PerformanceResult performanceResult = results.get(key);
-			double currentDuration = ChronoUnit.SECONDS.between(performanceResult.getStartTime(),
-					performanceResult.getEndTime());
-			if (performanceResult.getTotalTime() != -1) {
-				currentDuration = performanceResult.getTotalTime();
+	/**
+	 * Logs percentiles and a text histogram of the durations for every group.
+	 * If a directory is given, the buckets of every group are additionally
+	 * written to histogram-&lt;kind&gt;-&lt;group&gt;.csv in that directory.
+	 *
+	 * @param kind         the kind of the results (incremental or reference)
+	 * @param statistics   the statistics
+	 * @param histogramDir the directory for the CSV files, may be null
+	 */
+	private static void logDistributions(String kind, PerformanceStatistics statistics, Path histogramDir) {
+		for (String group : statistics.getGroupNames()) {
+			DurationHistogram histogram = statistics.getGroup(group).getHistogram();
+			LOGGER.logInfo("Percentiles for " + group + " analyses: " + histogram.getPercentileSummary());
+			if (histogram.getTotalCount() > 0) {
+				LOGGER.logInfo(histogram.toTextHistogram());
 			}
-
-			if (performanceResult.isPartialAnalysis() && !performanceResult.isEmptyAnalysis()) {
-				totalPartialCount++;
-				accumulatdPartial += currentDuration;
-				if (currentDuration > longestPartial) {
-					longestPartial = currentDuration;
-				}
-				if (shortestPartial == -1 || shortestPartial > currentDuration) {
-					shortestPartial = currentDuration;
-				}
-
-				if (currentDuration > 60) {
-					longerThan60sec++;
+			if (histogramDir != null) {
+				Path csvFile = histogramDir.resolve("histogram-" + kind + "-" + group + ".csv");
+				try {
+					Files.createDirectories(histogramDir);
+					histogram.writeCsv(csvFile);
+				} catch (IOException e) {
+					LOGGER.logException("Could not write histogram to " + csvFile, e);
 				}
 			}
 		}
-
-		double avgPartialDuration = ((double) accumulatdPartial) / ((double) totalPartialCount);
-
-		LOGGER.logInfo("The following data is for effective partial analyses that covered at least one source file:");
-		LOGGER.logInfo("PartialAccumulatedDuration:" + accumulatdPartial + "s PartialAnalysisCount: "
-				+ totalPartialCount + " PartialAnalysesLongerThan60s: " + longerThan60sec + " AveragePartialDuration: "
-				+ avgPartialDuration + "s LongestPartialDuration: " + longestPartial + "s ShortestPartialDuration: "
-				+ shortestPartial + "s");
-
 	}
 
 	/**
-	 * Log partial execution data.
+	 * Exports the incremental and reference results with one record per diff
+	 * and execution. The format is determined by the extension of the file (see
+	 * {@link ResultExporter.Format}). Every record contains the flags, the
+	 * duration, the GNU time total, the duration of every phase, the resource
+	 * usage and the time of every analysis component. Values that were not
+	 * measured are exported as -1.
 	 *
-	 * @param results the results
+	 * @param file        the file to write
+	 * @param incremental the incremental results
+	 * @param reference   the reference results
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private static void logPartialExecutionDataForEmptyPartials(Map<String, PerformanceResult> results) {
-		List<String> keySet = new ArrayList<String>(results.keySet());
-		Collections.sort(keySet);
-
-		long longerThan60sec = 0;
-		double longestPartial = 0;
-		double accumulatdPartial = 0;
-		long totalPartialCount = 0;
-		double shortestPartial = -1;
+	public static void exportResults(Path file, PerformanceResultStore incremental, PerformanceResultStore reference)
+			throws IOException {
+		exportResults(file, incremental, reference, null);
+	}
 
-		for (String key : keySet) {
-			PerformanceResult performanceResult = results.get(key);
-			double currentDuration = ChronoUnit.SECONDS.between(performanceResult.getStartTime(),
-					performanceResult.getEndTime());
-			if (performanceResult.getTotalTime() != -1) {
-				currentDuration = performanceResult.getTotalTime();
+	/**
+	 * Exports the results like {@link #exportResults(Path, PerformanceResultStore,
+	 * PerformanceResultStore)}. If a diff statistics index is given, every record
+	 * additionally contains the statistics of its diff, joined by the number of
+	 * the diff (see {@link DiffStatisticsIndex#getDiffNumber(String)}); diffs
+	 * without statistics are exported with -1.
+	 *
+	 * @param file           the file to write
+	 * @param incremental    the incremental results
+	 * @param reference      the reference results
+	 * @param diffStatistics the statistics of the diffs, may be null
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void exportResults(Path file, PerformanceResultStore incremental, PerformanceResultStore reference,
+			DiffStatisticsIndex diffStatistics) throws IOException {
+		int componentCount = Math.max(incremental.getComponentCount(), reference.getComponentCount());
+		ResultExporter.Schema schema = new ResultExporter.Schema()
+				.add("execution", ResultExporter.ColumnType.STRING)
+				.add("diff", ResultExporter.ColumnType.STRING)
+				.add("partial", ResultExporter.ColumnType.BOOLEAN)
+				.add("empty", ResultExporter.ColumnType.BOOLEAN)
+				.add("duration_s", ResultExporter.ColumnType.DOUBLE)
+				.add("total_time_s", ResultExporter.ColumnType.DOUBLE);
+		for (AnalysisPhase phase : AnalysisPhase.values()) {
+			schema.add(phase.name().toLowerCase(Locale.ROOT) + "_ms", ResultExporter.ColumnType.LONG);
+		}
+		for (ResourceMetric metric : ResourceMetric.values()) {
+			String unit = metric.getUnit().isEmpty() ? "" : "_" + metric.getUnit().toLowerCase(Locale.ROOT);
+			schema.add(metric.name().toLowerCase(Locale.ROOT) + unit, ResultExporter.ColumnType.DOUBLE);
+		}
+		for (int id = 0; id < componentCount; id++) {
+			schema.add("component_" + ComponentNames.getName(id) + "_ms", ResultExporter.ColumnType.LONG);
+		}
+		if (diffStatistics != null) {
+			for (String column : DIFF_STATISTICS_COLUMNS) {
+				schema.add(column, ResultExporter.ColumnType.LONG);
 			}
+		}
 
-			if (performanceResult.isPartialAnalysis() && performanceResult.isEmptyAnalysis()) {
-				totalPartialCount++;
-				accumulatdPartial += currentDuration;
-				if (currentDuration > longestPartial) {
-					longestPartial = currentDuration;
-				}
+		try (ResultExporter exporter = ResultExporter.open(file, schema)) {
+			exportResults(exporter, "incremental", incremental, componentCount, diffStatistics);
+			exportResults(exporter, "reference", reference, componentCount, diffStatistics);
+		}
+	}
 
-				if (shortestPartial == -1 || shortestPartial > currentDuration) {
-					shortestPartial = currentDuration;
+	/**
+	 * Writes one record per result of an execution.
+	 *
+	 * @param exporter       the exporter
+	 * @param execution      the name of the execution
+	 * @param results        the results
+	 * @param componentCount the number of component columns
+	 * @param diffStatistics the statistics of the diffs, null if not exported
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void exportResults(ResultExporter exporter, String execution, PerformanceResultStore results,
+			int componentCount, DiffStatisticsIndex diffStatistics) throws IOException {
+		for (int i = 0; i < results.size(); i++) {
+			if (results.isPresent(i)) {
+				exporter.writeString(execution);
+				exporter.writeString(results.getDiffFileName(i));
+				exporter.writeBoolean(results.isPartialAnalysis(i));
+				exporter.writeBoolean(results.isEmptyAnalysis(i));
+				exporter.writeDouble(PerformanceStatistics.getDuration(results, i));
+				exporter.writeDouble(results.getTotalTime(i));
+				for (AnalysisPhase phase : AnalysisPhase.values()) {
+					exporter.writeLong(results.getPhaseMillis(phase, i));
 				}
-
-				if (currentDuration > 60) {
-					longerThan60sec++;
+				for (ResourceMetric metric : ResourceMetric.values()) {
+					exporter.writeDouble(results.getResourceUsage(metric, i));
 				}
+				for (int id = 0; id < componentCount; id++) {
+					exporter.writeLong(results.getComponentMillis(id, i));
+				}
+				if (diffStatistics != null) {
+					exportDiffStatistics(exporter, diffStatistics.get(
+							DiffStatisticsIndex.getDiffNumber(results.getDiffFileName(i))));
+				}
+				exporter.endRecord();
 			}
 		}
-
-		double avgPartialDuration = ((double) accumulatdPartial) / ((double) totalPartialCount);
-
-		LOGGER.logInfo("The following data is for empty partial analyses that did not cover a single source file:");
-		LOGGER.logInfo("PartialAccumulatedDuration:" + accumulatdPartial + "s PartialAnalysisCount: "
-				+ totalPartialCount + " PartialAnalysesLongerThan60s: " + longerThan60sec + " AveragePartialDuration: "
-				+ avgPartialDuration + "s LongestPartialDuration: " + longestPartial + "s ShortestPartialDuration: "
-				+ shortestPartial + "s");
-
 	}
 
 	/**
-	 * Log execution times.
+	 * Writes the values of the {@link #DIFF_STATISTICS_COLUMNS} of a record.
 	 *
-	 * @param results the results
+	 * @param exporter   the exporter
+	 * @param statistics the statistics of the diff, null if there are none
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private static void logExecutionTimes(Map<String, PerformanceResult> results) {
-		StringJoiner times = new StringJoiner(";");
-		List<String> keySet = new ArrayList<String>(results.keySet());
-		Collections.sort(keySet);
-		for (String key : keySet) {
-			PerformanceResult performanceResult = results.get(key);
-			if (performanceResult == null) {
-				LOGGER.logError("Performance result for " + key + " was null");
-			}
-
-			if (performanceResult.getStartTime() == null) {
-				LOGGER.logError("Start time  for " + key + " was null");
+	private static void exportDiffStatistics(ResultExporter exporter, DiffStatistics statistics) throws IOException {
+		if (statistics == null) {
+			for (int i = 0; i < DIFF_STATISTICS_COLUMNS.length; i++) {
+				exporter.writeLong(-1);
 			}
+		} else {
+			exporter.writeLong(statistics.getChangedFiles());
+			exporter.writeLong(statistics.getSourceFiles());
+			exporter.writeLong(statistics.getBuildFiles());
+			exporter.writeLong(statistics.getVariabilityFiles());
+			exporter.writeLong(statistics.getBinaryFiles());
+			exporter.writeLong(statistics.getHunks());
+			exporter.writeLong(statistics.getAddedLines());
+			exporter.writeLong(statistics.getRemovedLines());
+			exporter.writeLong(statistics.getBytes());
+		}
+	}
 
-			if (performanceResult.getEndTime() == null) {
-				LOGGER.logError("EndTime for " + key + " was null");
+	/**
+	 * Logs the number of diffs and the average incremental and reference
+	 * durations for diffs that changed the variability model (Kconfig files),
+	 * diffs that changed build files but not the variability model, and all
+	 * other diffs.
+	 *
+	 * @param incremental    the incremental results
+	 * @param reference      the reference results
+	 * @param diffStatistics the statistics of the diffs
+	 */
+	private static void logDurationsByChangedFiles(PerformanceResultStore incremental,
+			PerformanceResultStore reference, DiffStatisticsIndex diffStatistics) {
+		String[] kinds = {"variability model", "build files", "other files", "unknown"};
+		double[][] sums = new double[kinds.length][2];
+		int[][] counts = new int[kinds.length][2];
+		PerformanceResultStore[] executions = {incremental, reference};
+		for (int execution = 0; execution < executions.length; execution++) {
+			PerformanceResultStore results = executions[execution];
+			for (int i = 0; i < results.size(); i++) {
+				if (results.isPresent(i)) {
+					DiffStatistics statistics = diffStatistics.get(
+							DiffStatisticsIndex.getDiffNumber(results.getDiffFileName(i)));
+					int kind;
+					if (statistics == null) {
+						kind = 3;
+					} else if (statistics.getVariabilityFiles() > 0) {
+						kind = 0;
+					} else if (statistics.getBuildFiles() > 0) {
+						kind = 1;
+					} else {
+						kind = 2;
+					}
+					sums[kind][execution] += PerformanceStatistics.getDuration(results, i);
+					counts[kind][execution]++;
+				}
 			}
-
-			double currentDuration = ChronoUnit.SECONDS.between(performanceResult.getStartTime(),
-					performanceResult.getEndTime());
-
-			if (performanceResult.getTotalTime() != -1) {
-				currentDuration = performanceResult.getTotalTime();
+		}
+		for (int kind = 0; kind < kinds.length; kind++) {
+			if (counts[kind][0] > 0 || counts[kind][1] > 0) {
+				LOGGER.logInfo(String.format(Locale.ROOT, "%s: incremental=%.3fs (%d diffs) reference=%.3fs (%d diffs)",
+						kinds[kind], sums[kind][0] / Math.max(1, counts[kind][0]), counts[kind][0],
+						sums[kind][1] / Math.max(1, counts[kind][1]), counts[kind][1]));
 			}
-			times.add(Double.toString(currentDuration));
 		}
-
-		LOGGER.logInfo("Execution times: " + times.toString());
 	}
 
 	/**
-	 * Gets duration of the interval between start and end in seconds. Returns 0 if
-	 * start was before end.
+	 * Logs the average and maximum resource usage of the incremental and the
+	 * reference results for every metric reported in the time files.
 	 *
-	 * @param start the start
-	 * @param end   the end
-	 * @return the time in seconds
+	 * @param incremental the statistics of all incremental results
+	 * @param reference   the statistics of all reference results
 	 */
-	private static long getTimeInSeconds(LocalDateTime start, LocalDateTime end) {
-		long duration = 0;
-		if (start != null && end != null && start.isBefore(end)) {
-			duration = ChronoUnit.SECONDS.between(start, end);
+	private static void logResourceComparison(GroupStatistics incremental, GroupStatistics reference) {
+		for (ResourceMetric metric : ResourceMetric.values()) {
+			if (incremental.getResourceCount(metric) > 0 || reference.getResourceCount(metric) > 0) {
+				StringBuilder line = new StringBuilder(metric.getDisplayName());
+				line.append(": incremental=").append(formatResourceUsage(incremental, metric));
+				line.append(" reference=").append(formatResourceUsage(reference, metric));
+				if (reference.getResourceMean(metric) > 0) {
+					line.append(" deviation=").append(String.format(Locale.ROOT, "%.1f%%", getDeviationInPercent(
+							incremental.getResourceMean(metric), reference.getResourceMean(metric))));
+				}
+				LOGGER.logInfo(line.toString());
+			}
 		}
-		return duration;
 	}
 
 	/**
-	 * Logs generic durations for a given result set.
+	 * Formats the resource usage of a group.
 	 *
-	 * @param results the results
+	 * @param statistics the statistics of the group
+	 * @param metric     the metric
+	 * @return the formatted average, maximum and number of results
 	 */
-	// CHECKSTYLE:OFF
-	private static void logGenericDurations(Map<String, PerformanceResult> results) {
-
-		double accumulatedDuration = 0;
-		List<String> keySet = new ArrayList<String>(results.keySet());
-		Collections.sort(keySet);
-
-		long accumulatedSetupDuration = 0;
-		long accumulatedExtractionDuration = 0;
-		long accumulatedOverlap = 0;
-		long accumulatedAnalysisDuration = 0;
-		long accumulatedPostExtractionDuration = 0;
-		long accumulatedPreparationTime = 0;
-
-		int numberOfValues = keySet.size();
-		double maxDuration = 0;
-		double minDuration = -1;
-
-		PerformanceResult maxResult = null;
-		PerformanceResult minResult = null;
-
-		for (String key : keySet) {
-			PerformanceResult incrResult = results.get(key);
-			double currentDuration = getTimeInSeconds(incrResult.getStartTime(), incrResult.getEndTime());
-			long currentSetupDuration = getTimeInSeconds(incrResult.getStartTime(),
-					incrResult.getStartExtractionPhase());
-			long currentPreparationDuration = getTimeInSeconds(incrResult.getStartPreparationPhase(),
-					incrResult.getEndPreparationPhase());
-
-			long currentExtractionDuration = getTimeInSeconds(incrResult.getStartExtractionPhase(),
-					incrResult.getEndExtractionPhase());
-
-			long currentPostExtractionDuration = getTimeInSeconds(incrResult.getEndExtractionPhase(),
-					incrResult.getStartAnalysisPhase());
-
-			long currentAnalysisTime = getTimeInSeconds(incrResult.getStartAnalysisPhase(),
-					incrResult.getEndAnalysisPhase());
-
-			if (incrResult.getTotalTime() != -1) {
-				currentDuration = incrResult.getTotalTime();
-			}
-
-			long currentOverlap = getTimeInSeconds(incrResult.getStartAnalysisPhase(),
-					incrResult.getEndExtractionPhase());
-
-			accumulatedSetupDuration += currentSetupDuration;
-			accumulatedExtractionDuration += currentExtractionDuration;
-			accumulatedOverlap += currentOverlap;
-			accumulatedAnalysisDuration += currentAnalysisTime;
-			accumulatedPostExtractionDuration += currentPostExtractionDuration;
-			accumulatedPreparationTime += currentPreparationDuration;
-			accumulatedDuration += currentDuration;
-			if (maxDuration < currentDuration) {
-				maxDuration = currentDuration;
-				maxResult = incrResult;
-			}
+	private static String formatResourceUsage(GroupStatistics statistics, ResourceMetric metric) {
+		return String.format(Locale.ROOT, "avg %.2f%s, max %.2f%s (%d results)", statistics.getResourceMean(metric),
+				metric.getUnit(), statistics.getResourceMax(metric), metric.getUnit(),
+				statistics.getResourceCount(metric));
+	}
 
-			if (minDuration == -1 || minDuration > currentDuration) {
-				minDuration = currentDuration;
-				minResult = incrResult;
+	/**
+	 * Logs the accumulated execution times of all analysis components for the
+	 * incremental and the reference results. Components are ordered by their
+	 * accumulated time in both executions, so the dominating components come
+	 * first.
+	 *
+	 * @param incremental the component times of the incremental results
+	 * @param reference   the component times of the reference results
+	 */
+	private static void logComponentComparison(ComponentStatistics incremental, ComponentStatistics reference) {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int id = 0; id < ComponentNames.size(); id++) {
+			ids.add(id);
+		}
+		ids.sort((first, second) -> Long.compare(
+				incremental.getTotalTime(second) + reference.getTotalTime(second),
+				incremental.getTotalTime(first) + reference.getTotalTime(first)));
+
+		for (int id : ids) {
+			StringBuilder line = new StringBuilder(ComponentNames.getName(id));
+			line.append(": incremental=").append(formatComponentTime(incremental, id));
+			line.append(" reference=").append(formatComponentTime(reference, id));
+			if (reference.getTotalTime(id) > 0) {
+				line.append(" deviation=").append(String.format(Locale.ROOT, "%.1f%%",
+						getDeviationInPercent(incremental.getTotalTime(id), reference.getTotalTime(id))));
 			}
+			LOGGER.logInfo(line.toString());
 		}
+	}
 
-		double averageDuration = accumulatedDuration / numberOfValues;
-		LOGGER.logInfo("Average duration: " + averageDuration + "s");
-		LOGGER.logInfo("Maximum duration: " + maxDuration + "s  for " + maxResult.getDiffFileName());
-		LOGGER.logInfo("Minimum duration: " + minDuration + "s  for " + minResult.getDiffFileName());
-		LOGGER.logInfo("Accumulated duration: " + accumulatedDuration + "s");
-
-		LOGGER.logInfo(
-				"Accumulated values: setup=" + accumulatedSetupDuration + " preparation=" + accumulatedPreparationTime
-						+ " extraction=" + accumulatedExtractionDuration + " analysis=" + accumulatedAnalysisDuration
-						+ " overlap=" + accumulatedOverlap + " post-extraction=" + accumulatedPostExtractionDuration);
-
-		LOGGER.logInfo("Average values: setup=" + ((double) accumulatedSetupDuration) / ((double) numberOfValues)
-				+ " preparation=" + ((double) accumulatedPreparationTime) / ((double) numberOfValues) + " extraction="
-				+ ((double) accumulatedExtractionDuration) / ((double) numberOfValues) + " analysis="
-				+ ((double) accumulatedAnalysisDuration) / ((double) numberOfValues) + " overlap="
-				+ ((double) accumulatedOverlap) / ((double) numberOfValues) + " post-extraction="
-				+ ((double) accumulatedPostExtractionDuration) / ((double) numberOfValues));
+	/**
+	 * Formats the accumulated time of a component.
+	 *
+	 * @param statistics the component statistics
+	 * @param id         the number of the component name
+	 * @return the formatted time, number of results, average and share
+	 */
+	private static String formatComponentTime(ComponentStatistics statistics, int id) {
+		String time = statistics.getTotalTime(id) + "ms (" + statistics.getOccurrences(id) + " results";
+		if (statistics.getOccurrences(id) > 0) {
+			time += String.format(Locale.ROOT, ", avg %.1fms, max %dms, %.1f%% of all components",
+					statistics.getAverageTime(id), statistics.getMaxTime(id), statistics.getShareInPercent(id));
+		}
+		return time + ")";
+	}
 
+	/**
+	 * Gets the name of a diff file for the output.
+	 *
+	 * @param diffFileName the name of the diff file, may be null
+	 * @return the name of the diff file, "-" if there is no name
+	 */
+	private static String getDiffFileName(String diffFileName) {
+		return diffFileName == null ? "-" : diffFileName;
 	}
-	// CHECKSTYLE:ON
 
 	/**
 	 * Gets the deviation between two long values in percent.
@@ -458,26 +641,23 @@ public class PerformanceEvaluator {
 	 * @param incrementalResults the incremental results
 	 * @param referenceResults   the reference results
 	 */
-	private static void logWhichOneWasFaster(Map<String, PerformanceResult> incrementalResults,
-			Map<String, PerformanceResult> referenceResults) {
+	private static void logWhichOneWasFaster(PerformanceResultStore incrementalResults,
+			PerformanceResultStore referenceResults) {
 
 		int refFaster = 0;
 		int incrFaster = 0;
 		StringJoiner fasterReference = new StringJoiner(", ");
 		StringJoiner fasterIncr = new StringJoiner(", ");
 
-		for (String key : referenceResults.keySet()) {
-			PerformanceResult incrResult = incrementalResults.get(key);
-			PerformanceResult refResult = referenceResults.get(key);
-			double refDuration = ChronoUnit.SECONDS.between(refResult.getStartTime(), refResult.getEndTime());
-			if (refResult.getTotalTime() != -1) {
-				refDuration = refResult.getTotalTime();
-			}
-
-			double incrDuration = ChronoUnit.SECONDS.between(incrResult.getStartTime(), incrResult.getEndTime());
-			if (incrResult.getTotalTime() != -1) {
-				incrDuration = incrResult.getTotalTime();
+		// results are ordered by their names, so the output does not depend on the order in which they were added
+		for (int refIndex = 0; refIndex < referenceResults.size(); refIndex++) {
+			String key = referenceResults.getDiffFileName(refIndex);
+			int incrIndex = incrementalResults.indexOf(key);
+			if (!referenceResults.isPresent(refIndex) || incrIndex < 0 || !incrementalResults.isPresent(incrIndex)) {
+				continue;
 			}
+			double refDuration = PerformanceStatistics.getDuration(referenceResults, refIndex);
+			double incrDuration = PerformanceStatistics.getDuration(incrementalResults, incrIndex);
 
 			if (refDuration < incrDuration) {
 				fasterReference.add(key + "(difference: " + (incrDuration - refDuration) + ", "
@@ -494,31 +674,136 @@ public class PerformanceEvaluator {
 		LOGGER.logInfo("Diffs where reference was faster: " + fasterReference);
 		LOGGER.logInfo("Number of times that incremental was faster: " + incrFaster);
 		LOGGER.logInfo("Diffs where incemental was faster: " + fasterIncr);
-		LOGGER.logInfo("Number of executions: " + referenceResults.keySet().size());
+		LOGGER.logInfo("Number of executions: " + referenceResults.getResultCount());
 	}
 
 	/**
-	 * Generate results.
+	 * Generate results for multiple log directories at once. Log files are
+	 * independent of each other and are therefore read concurrently, regardless
+	 * of the directory they belong to. Errors are reported for each file
+	 * individually; a file that can not be read does not stop the others.
 	 *
-	 * @param relativeLogDir the relative log dir
-	 * @return the map
+	 * @param threads         the maximum number of log files read at the same
+	 *                        time
+	 * @param relativeLogDirs the relative log dirs
+	 * @return the results for each of the log dirs
 	 */
-	private Map<String, PerformanceResult> generateResults(Path relativeLogDir) {
-		Map<String, PerformanceResult> resultMap = new HashMap<String, PerformanceResult>();
-		File[] files = baseDir.resolve(relativeLogDir).toFile().listFiles();
-		Arrays.sort(files);
-		for (File file : files) {
-			if (file.getName().startsWith("log-") && file.getName().endsWith(".log")) {
-				PerformanceResult result = new PerformanceResult(getDiffFileName(file));
-				try {
-					extractTimes(file, result);
-				} catch (IOException e) {
-					LOGGER.logException("Could not generate result", e);
+	private Map<Path, PerformanceResultStore> generateResults(int threads, Path... relativeLogDirs) {
+		Map<Path, PerformanceResultStore> results = new HashMap<Path, PerformanceResultStore>();
+		List<String> failedFiles = Collections.synchronizedList(new ArrayList<String>());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> tasks = new ArrayList<Future<?>>();
+		long startNanos = System.nanoTime();
+		long startBytes = extractedLogBytes.get();
+		for (Path relativeLogDir : relativeLogDirs) {
+			File[] files = baseDir.resolve(relativeLogDir).toFile().listFiles();
+			Arrays.sort(files);
+			List<File> logFiles = new ArrayList<File>();
+			List<String> diffFileNames = new ArrayList<String>();
+			for (File file : files) {
+				if (file.getName().startsWith("log-") && file.getName().endsWith(".log")) {
+					logFiles.add(file);
+					diffFileNames.add(getDiffFileName(file));
 				}
-				resultMap.put(result.getDiffFileName(), result);
 			}
+			PerformanceResultStore store = new PerformanceResultStore(diffFileNames);
+			results.put(relativeLogDir, store);
+			for (File file : logFiles) {
+				tasks.add(executor.submit(() -> generateResult(file, store, failedFiles)));
+			}
+		}
+		executor.shutdown();
+		try {
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			executor.shutdownNow();
+			throw new IllegalStateException("Extracting times was interrupted", e);
 		}
-		return resultMap;
+		LOGGER.logInfo("Read log files with "
+				+ formatThroughput(extractedLogBytes.get() - startBytes, System.nanoTime() - startNanos));
+		if (useIndex) {
+			LOGGER.logInfo("Loaded " + indexHits.get() + " of " + tasks.size() + " results from log indexes");
+		}
+		if (!failedFiles.isEmpty()) {
+			Collections.sort(failedFiles);
+			LOGGER.logError("Could not extract all times from " + failedFiles.size() + " log files: " + failedFiles);
+		}
+		return results;
+	}
+
+	/**
+	 * Generate the result for a single log file.
+	 *
+	 * @param file        the log file
+	 * @param store       the store to add the result to
+	 * @param failedFiles the list to add the name of the log file to if an error
+	 *                    occurs
+	 */
+	private void generateResult(File file, PerformanceResultStore store, List<String> failedFiles) {
+		PerformanceResult result = new PerformanceResult(getDiffFileName(file));
+		File timeFile = getTimeFile(file);
+		try {
+			if (useIndex && LogIndex.load(file, timeFile, result)) {
+				indexHits.incrementAndGet();
+				if (result.getTotalTime() == -1) {
+					LOGGER.logError(
+							"Could not extract precise absolute execution times from: " + timeFile.getAbsolutePath());
+				}
+			} else {
+				extractTimes(file, result);
+				storeIndex(file, timeFile, result);
+			}
+			store.set(result);
+		} catch (IOException e) {
+			// times extracted before the error are still usable
+			store.set(result);
+			failedFiles.add(file.getPath());
+			LOGGER.logException("Could not generate result for " + file.getPath(), e);
+		} catch (RuntimeException e) {
+			failedFiles.add(file.getPath());
+			LOGGER.logException("Could not generate result for " + file.getPath() + ", skipping it", e);
+		}
+	}
+
+	/**
+	 * Stores the result for a log file in its index. Failing to do so (e.g. on
+	 * a read-only file system) is not an error as the index is only a cache.
+	 *
+	 * @param logFile  the log file
+	 * @param timeFile the time file
+	 * @param result   the result
+	 */
+	private void storeIndex(File logFile, File timeFile, PerformanceResult result) {
+		if (useIndex) {
+			try {
+				LogIndex.store(logFile, timeFile, result);
+			} catch (IOException e) {
+				LOGGER.logDebug("Could not write log index for " + logFile.getPath() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Sets whether results are loaded from and stored in log indexes (see
+	 * {@link LogIndex}).
+	 *
+	 * @param useIndex true, to use log indexes
+	 */
+	public void setUseIndex(boolean useIndex) {
+		this.useIndex = useIndex;
+	}
+
+	/**
+	 * Gets the time file belonging to a log file.
+	 *
+	 * @param logFile the log file
+	 * @return the time file
+	 */
+	private File getTimeFile(File logFile) {
+		return new File(logFile.getAbsolutePath().replaceAll("[/\\\\]log[/\\\\]", "/time/")
+				.replaceAll("[/\\\\]log-", "/time-"));
 	}
 
 	/**
@@ -532,25 +817,168 @@ public class PerformanceEvaluator {
 	}
 
 	/**
-	 * Extract date from log line.
+	 * Decodes the current line of the reader if the name of a finished analysis
+	 * component has to be extracted from it.
 	 *
-	 * @param logLine the log line
-	 * @return the local date time
+	 * @param reader  the reader
+	 * @param markers the markers found in the current line
+	 * @return the decoded line, null if it is not needed
 	 */
-	private LocalDateTime extractDateFromLogLine(String logLine) {
-		Pattern pattern = Pattern.compile("\\[(\\d{4}-\\d{2}-\\d{2}\\s{1}\\d{2}:\\d{2}:\\d{2})\\]");
-		Matcher matcher = pattern.matcher(logLine);
+	private static String decodeComponentLine(MappedLogReader reader, long markers) {
+		String line = null;
+		if ((markers & LogMarker.COMPONENT_DONE.bit()) != 0) {
+			line = reader.getLine();
+		}
+		return line;
+	}
 
-		LocalDateTime time = null;
+	/**
+	 * Adds the execution time of a finished analysis component to the result.
+	 *
+	 * @param result    the result
+	 * @param component the name of the component
+	 * @param timeLine  the line following the one stating that the component
+	 *                  finished, usually containing the execution time
+	 */
+	private static void addComponentTime(PerformanceResult result, String component, String timeLine) {
+		Matcher timeMatcher = EXECUTION_TIME_PATTERN.matcher(timeLine);
+		if (timeMatcher.find()) {
+			result.addAnalysisComponentTime(component, Long.parseLong(timeMatcher.group(1)));
+		}
+	}
+
+	/**
+	 * Stores the durations of all phases in the result. The durations are
+	 * measured from the timestamps in the result. If the log only has
+	 * timestamps with a resolution of seconds, the execution time logged by the
+	 * post extraction component is used for the post extraction phase instead.
+	 *
+	 * @param result              the result with all timestamps set
+	 * @param subSecondTimestamps whether the log has timestamps with a
+	 *                            resolution of milliseconds
+	 */
+	private static void measurePhases(PerformanceResult result, boolean subSecondTimestamps) {
+		for (AnalysisPhase phase : AnalysisPhase.values()) {
+			result.setPhaseMillis(phase, phase.measure(result));
+		}
+		long postExtractionMillis = result.getAnalysisComponentTime(POST_EXTRACTION_COMPONENT);
+		if (!subSecondTimestamps && postExtractionMillis >= 0) {
+			result.setPhaseMillis(AnalysisPhase.POST_EXTRACTION, postExtractionMillis);
+		}
+	}
 
-		if (matcher.find()) {
-			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+	/**
+	 * Formats the throughput of reading log files.
+	 *
+	 * @param bytes the number of bytes read
+	 * @param nanos the time it took in nanoseconds
+	 * @return the formatted size and throughput
+	 */
+	private static String formatThroughput(long bytes, long nanos) {
+		double megabytes = bytes / (1024d * 1024d);
+		double seconds = Math.max(nanos, 1) / 1e9;
+		return String.format(Locale.ROOT, "%.1f MB in %.3f s (%.1f MB/s)", megabytes, seconds, megabytes / seconds);
+	}
+
+	/**
+	 * Reads the timestamps of the phases, the component times and the flags of
+	 * an analysis from its log and stores them in the result.
+	 *
+	 * @param reader the reader positioned at the first line of the log
+	 * @param result the result to fill
+	 * @return whether the log has timestamps with a resolution of milliseconds
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static boolean scanLog(MappedLogReader reader, PerformanceResult result) throws IOException {
+		LogTimestampParser timestampParser = new LogTimestampParser();
+		LocalDateTime startTime = timestampParser.parse(reader.getAsciiLine());
+		LocalDateTime currentTime = startTime;
+		boolean subSecondTimestamps = startTime != null && startTime.getNano() != 0;
+
+		// markers are found in the undecoded bytes, only component lines are decoded
+		LocalDateTime timeFromCurrentLine = startTime;
+		long currentMarkers = LogMarker.scan(LogMarker.findPatterns(reader.getAsciiLine()), reader.getAsciiLine());
+		String currentLine = decodeComponentLine(reader, currentMarkers);
+
+		// the current line is evaluated once the next line was read (the last line is never evaluated)
+		while (reader.nextLine()) {
+			// Update the time to always reflect the most recent timestamp
+			if (timeFromCurrentLine != null) {
+				currentTime = timeFromCurrentLine;
+				subSecondTimestamps |= currentTime.getNano() != 0;
+			}
+			long markers = currentMarkers;
+			if (result.getStartExtractionPhase() != null) {
+				markers &= ~LogMarker.START_EXTRACTION.bit();
+			}
+			LogMarker marker = LogMarker.first(markers);
+			if (marker != null) {
+				applyMarker(result, marker, currentTime, currentLine, reader);
+			}
+			timeFromCurrentLine = timestampParser.parse(reader.getAsciiLine());
+			currentMarkers = LogMarker.scan(LogMarker.findPatterns(reader.getAsciiLine()), reader.getAsciiLine());
+			currentLine = decodeComponentLine(reader, currentMarkers);
+		}
 
-			String timeString = matcher.group(1);
-			time = LocalDateTime.parse(timeString, formatter);
+		if (result.getEndPostExtractionPhase() != null) {
+			result.setStartAnalysisPhase(result.getEndPostExtractionPhase());
+		} else {
+			result.setStartAnalysisPhase(result.getEndExtractionPhase());
 		}
+		result.setStartTime(startTime);
+		result.setEndTime(currentTime);
+		return subSecondTimestamps;
+	}
 
-		return time;
+	/**
+	 * Stores what a marker found in a log line states about the analysis in the
+	 * result.
+	 *
+	 * @param result the result to fill
+	 * @param marker the marker found in the line
+	 * @param time   the most recent timestamp of the log
+	 * @param line   the decoded line containing the marker, null unless it
+	 *               contains {@link LogMarker#COMPONENT_DONE}
+	 * @param reader the reader positioned at the line following the marker,
+	 *               which contains the execution time of finished components
+	 */
+	private static void applyMarker(PerformanceResult result, LogMarker marker, LocalDateTime time, String line,
+			MappedLogReader reader) {
+		switch (marker) {
+		case PARTIAL_ANALYSIS:
+			result.setPartialAnalysis(true);
+			break;
+		case START_PREPARATION:
+			result.setStartPreparationPhase(time);
+			break;
+		case END_PREPARATION:
+			result.setEndPreparationPhase(time);
+			break;
+		case START_EXTRACTION:
+			result.setStartExtractionPhase(time);
+			break;
+		case END_EXTRACTION:
+			result.setEndExtractionPhase(time);
+			break;
+		case END_ANALYSIS:
+			result.setEndAnalysisPhase(time);
+			break;
+		case START_POST_EXTRACTION:
+			result.setStartPostExtractionPhase(time);
+			break;
+		case END_POST_EXTRACTION:
+			result.setEndPostExtractionPhase(time);
+			addComponentTime(result, POST_EXTRACTION_COMPONENT, reader.getLine());
+			break;
+		case EMPTY_ANALYSIS:
+			result.setEmptyAnalysis(true);
+			break;
+		case COMPONENT_DONE:
+			addComponentTime(result, LogMarker.getFinishedComponent(line), reader.getLine());
+			break;
+		default:
+			break;
+		}
 	}
 
 	/**
@@ -560,119 +988,25 @@ public class PerformanceEvaluator {
 	 * @param result  the result
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	// CHECKSTYLE:OFF
-	private void extractTimes(File logFile, PerformanceResult result)
-			// CHECKSTYLE:ON
-			throws IOException {
+	private void extractTimes(File logFile, PerformanceResult result) throws IOException {
 		LOGGER.logInfo("Extracting times for " + logFile.getName());
-		try (BufferedReader br = new BufferedReader(new FileReader(logFile))) {
-			String currentLine = br.readLine();
-			LocalDateTime startTime = extractDateFromLogLine(currentLine);
-			LocalDateTime currentTime = startTime;
-			LocalDateTime startPreparationPhase = null;
-			LocalDateTime finishPreparationPhase = null;
-			LocalDateTime startExtractionPhase = null;
-			LocalDateTime endExtractionPhase = null;
-			LocalDateTime startAnalysisPhase = null;
-			LocalDateTime endAnalysisPhase = null;
-			LocalDateTime endTime = null;
-			LocalDateTime startPostExtractionPhase = null;
-			LocalDateTime endPostExtractionPhase = null;
-			boolean partial = false;
-			boolean emptyAnalysis = false;
-
-			// read line within loop so that it is not visible outside
-			// CHECKSTYLE:OFF
-			for (String nextLine; (nextLine = br.readLine()) != null;) {
-				// CHECKSTYLE:ON
-				// Update the time to always reflect the most recent timestamp
-				LocalDateTime timeFromCurrentLine = extractDateFromLogLine(currentLine);
-				if (timeFromCurrentLine != null) {
-					currentTime = timeFromCurrentLine;
-				}
-				if (currentLine.contains("Performing a partial analysis")) {
-					partial = true;
-				} else if (currentLine.contains("[Setup] Running preparation")) {
-					startPreparationPhase = currentTime;
-				} else if (currentLine.contains("IncrementalPreparation duration:")) {
-					finishPreparationPhase = currentTime;
-				} else if (startExtractionPhase == null && currentLine.contains("Extractor-")) {
-					startExtractionPhase = currentTime;
-				} else if ((currentLine.contains("Extractor") && currentLine.contains("finished"))
-						|| currentLine.contains("ExtractorDataDuplicator")) {
-					endExtractionPhase = currentTime;
-				} else if (currentLine.contains("[info   ] [Setup] Analysis has finished")) {
-					endAnalysisPhase = currentTime;
-				} else if (currentLine.contains(
-						"[IncrementalPostExtraction] Analysis component IncrementalPostExtraction starting")) {
-					startPostExtractionPhase = currentTime;
-				} else if (currentLine
-						.contains("[IncrementalPostExtraction] Analysis component IncrementalPostExtraction done")) {
-					endPostExtractionPhase = currentTime;
-				} else if (currentLine.contains("Analysis finished covering 0 source files.")) {
-					emptyAnalysis = true;
-				} else if (currentLine.matches(".*Analysis component .* done")) {
-					Pattern componentPattern = Pattern.compile(".*Analysis component (.*) done");
-					Matcher componentMatcher = componentPattern.matcher(currentLine);
-					componentMatcher.find();
-					String finishedComponent = componentMatcher.group(1);
-					Pattern timePattern = Pattern.compile(".\\s*Execution took (\\d*)");
-					Matcher timeMatcher = timePattern.matcher(nextLine);
-					timeMatcher.find();
-					long componentTime = Long.parseLong(timeMatcher.group(1));
-					result.addAnalysisComponentTime(finishedComponent, componentTime);
-				}
-				currentLine = nextLine;
-			}
-
-			if (endPostExtractionPhase != null) {
-				startAnalysisPhase = endPostExtractionPhase;
-			} else {
-				startAnalysisPhase = endExtractionPhase;
+		long startNanos = System.nanoTime();
+		try (MappedLogReader reader = new MappedLogReader(logFile.toPath(), Charset.defaultCharset())) {
+			if (!reader.nextLine()) {
+				throw new IllegalStateException("Log file is empty: " + logFile.getPath());
 			}
+			boolean subSecondTimestamps = scanLog(reader, result);
+			measurePhases(result, subSecondTimestamps);
 
-			endTime = currentTime;
-			result.setEndAnalysisPhase(endAnalysisPhase);
-			result.setStartAnalysisPhase(startAnalysisPhase);
-			result.setEndExtractionPhase(endExtractionPhase);
-			result.setStartPreparationPhase(startPreparationPhase);
-			result.setStartExtractionPhase(startExtractionPhase);
-			result.setEmptyAnalysis(emptyAnalysis);
-
-			result.setStartPostExtractionPhase(startPostExtractionPhase);
-			result.setEndPostExtractionPhase(endPostExtractionPhase);
-			result.setEndPreparationPhase(finishPreparationPhase);
-			result.setEndTime(endTime);
-			result.setStartTime(startTime);
-
-			result.setPartialAnalysis(partial);
+			extractedLogBytes.addAndGet(reader.getFileSize());
+			LOGGER.logDebug("Read " + logFile.getName() + " with "
+					+ formatThroughput(reader.getFileSize(), System.nanoTime() - startNanos));
 		}
 
-		File timeFile = new File(logFile.getAbsolutePath().replaceAll("[/\\\\]log[/\\\\]", "/time/")
-				.replaceAll("[/\\\\]log-", "/time-"));
-
-		try (BufferedReader br = new BufferedReader(new FileReader(timeFile))) {
-			for (String nextLine; (nextLine = br.readLine()) != null;) {
-				if (nextLine.contains("Elapsed (wall clock) time (h:mm:ss or m:ss): ")) {
-					Pattern componentPattern = Pattern.compile("((?<hour>\\d+):)?(?<minute>\\d+):(?<second>\\d+.\\d+)");
-					Matcher componentMatcher = componentPattern.matcher(nextLine);
-					componentMatcher.find();
-
-					double hour = 0;
-					if (componentMatcher.group("hour") != null) {
-						hour = parseDouble(componentMatcher.group("hour")) * 3600l;
-					}
-
-					double minute = 0;
-					if (componentMatcher.group("minute") != null) {
-						hour = parseDouble(componentMatcher.group("minute")) * 60l;
-					}
+		File timeFile = getTimeFile(logFile);
 
-					double second = parseDouble(componentMatcher.group("second"));
-					result.setTotalTime(hour + minute + second);
-					break;
-				}
-			}
+		try {
+			TimeFileParser.parse(timeFile, result);
 			if (result.getTotalTime() == -1) {
 				LOGGER.logError(
 						"Could not extract precise absolute execution times from: " + timeFile.getAbsolutePath());
@@ -684,15 +1018,4 @@ public class PerformanceEvaluator {
 
 	}
 
-	private double parseDouble(String text) {
-		NumberFormat format = NumberFormat.getInstance(Locale.US);
-		Number number = 0;
-		try {
-			number = format.parse(text);
-		} catch (ParseException e) {
-			e.printStackTrace();
-		}
-		return number.doubleValue();
-	}
-
 }
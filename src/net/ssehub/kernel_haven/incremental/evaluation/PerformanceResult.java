@@ -1,6 +1,7 @@
 package net.ssehub.kernel_haven.incremental.evaluation;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 /**
  * Storage class for performance results.
@@ -47,6 +48,21 @@ public class PerformanceResult {
 
 	private double total = -1d;
 
+    /** The numbers of the finished analysis components (see {@link ComponentNames}). */
+    private int[] componentIds = new int[0];
+
+    /** The execution times of the components in milliseconds, parallel to {@link #componentIds}. */
+    private long[] componentTimes = new long[0];
+
+    /** The number of components stored in the arrays. */
+    private int componentCount;
+
+    /** The durations of the phases in milliseconds by {@link AnalysisPhase#ordinal()}. */
+    private long[] phaseMillis = new long[AnalysisPhase.values().length];
+
+    /** The resource usage reported by GNU time by {@link ResourceMetric#ordinal()}, -1 if not reported. */
+    private double[] resourceUsage = newResourceUsage();
+
     /**
      * Instantiates a new performance result.
      *
@@ -221,14 +237,77 @@ public class PerformanceResult {
     }
 
     /**
-     * NOT IMPLEMENTED: Adds the analysis component time.
+     * Adds the execution time of an analysis component. If the component
+     * finished more than once, the times are summed up.
      * 
      * @param finishedComponent the finished component
-     * @param componentTime     the component time
+     * @param componentTime     the component time in milliseconds
      */
     public void addAnalysisComponentTime(String finishedComponent, long componentTime) {
-        // NOT IMPLEMENTED
+        int id = ComponentNames.intern(finishedComponent);
+        int index = 0;
+        while (index < componentCount && componentIds[index] != id) {
+            index++;
+        }
+        if (index == componentCount) {
+            if (componentCount == componentIds.length) {
+                int capacity = Math.max(4, 2 * componentCount);
+                componentIds = Arrays.copyOf(componentIds, capacity);
+                componentTimes = Arrays.copyOf(componentTimes, capacity);
+            }
+            componentIds[index] = id;
+            componentCount++;
+        }
+        componentTimes[index] += componentTime;
+    }
 
+    /**
+     * Gets the number of analysis components with an execution time.
+     *
+     * @return the number of components
+     */
+    public int getAnalysisComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Gets the number of an analysis component (see {@link ComponentNames}).
+     *
+     * @param index the index of the component (0 to
+     *              {@link #getAnalysisComponentCount()} - 1)
+     * @return the number of the component name
+     */
+    public int getAnalysisComponentId(int index) {
+        return componentIds[index];
+    }
+
+    /**
+     * Gets the execution time of an analysis component.
+     *
+     * @param index the index of the component (0 to
+     *              {@link #getAnalysisComponentCount()} - 1)
+     * @return the execution time in milliseconds
+     */
+    public long getAnalysisComponentTime(int index) {
+        return componentTimes[index];
+    }
+
+    /**
+     * Gets the execution time of an analysis component.
+     *
+     * @param component the name of the component
+     * @return the execution time in milliseconds, -1 if the component did not
+     *         finish
+     */
+    public long getAnalysisComponentTime(String component) {
+        int id = ComponentNames.find(component);
+        long time = -1;
+        for (int index = 0; time == -1 && index < componentCount; index++) {
+            if (componentIds[index] == id) {
+                time = componentTimes[index];
+            }
+        }
+        return time;
     }
 
     /**
@@ -303,5 +382,57 @@ public class PerformanceResult {
 		return total;
 	}
 
+    /**
+     * Sets the duration of a phase.
+     *
+     * @param phase  the phase
+     * @param millis the duration in milliseconds
+     */
+    public void setPhaseMillis(AnalysisPhase phase, long millis) {
+        phaseMillis[phase.ordinal()] = millis;
+    }
+
+    /**
+     * Gets the duration of a phase.
+     *
+     * @param phase the phase
+     * @return the duration in milliseconds, 0 if the phase was not found in
+     *         the log
+     */
+    public long getPhaseMillis(AnalysisPhase phase) {
+        return phaseMillis[phase.ordinal()];
+    }
+
+    /**
+     * Sets a resource usage reported by GNU time.
+     *
+     * @param metric the metric
+     * @param value  the value in the unit of the metric
+     */
+    public void setResourceUsage(ResourceMetric metric, double value) {
+        resourceUsage[metric.ordinal()] = value;
+    }
+
+    /**
+     * Gets a resource usage reported by GNU time.
+     *
+     * @param metric the metric
+     * @return the value in the unit of the metric, -1 if not reported
+     */
+    public double getResourceUsage(ResourceMetric metric) {
+        return resourceUsage[metric.ordinal()];
+    }
+
+    /**
+     * Creates the storage for the resource usage with all metrics missing.
+     *
+     * @return the array indexed by {@link ResourceMetric#ordinal()}
+     */
+    private static double[] newResourceUsage() {
+        double[] usage = new double[ResourceMetric.values().length];
+        Arrays.fill(usage, -1);
+        return usage;
+    }
+
 
 }
@@ -0,0 +1,367 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Columnar storage for the {@link PerformanceResult}s of all diffs of one
+ * execution. Every value is stored in a primitive array indexed by the ordinal
+ * of the diff; the ordinals follow the sorted order of the diff file names.
+ * Compared to one object per diff (with about a dozen {@link LocalDateTime}
+ * objects each), this keeps the memory per diff small and constant, and
+ * aggregations over all diffs run over contiguous arrays.
+ *
+ * <p>
+ * Results are added with {@link #set(PerformanceResult)}, after which the
+ * result object is no longer needed. {@link #get(int)} recreates a result
+ * object for code that needs one. Timestamps are stored with millisecond
+ * precision. Results may be added concurrently.
+ * </p>
+ *
+ * @author moritz
+ */
+public class PerformanceResultStore {
+
+    /**
+     * The timestamps of a result stored in the columns.
+     */
+    private enum Timestamp {
+        START(PerformanceResult::getStartTime, PerformanceResult::setStartTime),
+        END(PerformanceResult::getEndTime, PerformanceResult::setEndTime),
+        START_PREPARATION(PerformanceResult::getStartPreparationPhase, PerformanceResult::setStartPreparationPhase),
+        END_PREPARATION(PerformanceResult::getEndPreparationPhase, PerformanceResult::setEndPreparationPhase),
+        START_EXTRACTION(PerformanceResult::getStartExtractionPhase, PerformanceResult::setStartExtractionPhase),
+        END_EXTRACTION(PerformanceResult::getEndExtractionPhase, PerformanceResult::setEndExtractionPhase),
+        START_POST_EXTRACTION(PerformanceResult::getStartPostExtractionPhase,
+            PerformanceResult::setStartPostExtractionPhase),
+        END_POST_EXTRACTION(PerformanceResult::getEndPostExtractionPhase, PerformanceResult::setEndPostExtractionPhase),
+        START_ANALYSIS(PerformanceResult::getStartAnalysisPhase, PerformanceResult::setStartAnalysisPhase),
+        END_ANALYSIS(PerformanceResult::getEndAnalysisPhase, PerformanceResult::setEndAnalysisPhase);
+
+        private final Function<PerformanceResult, LocalDateTime> getter;
+
+        private final BiConsumer<PerformanceResult, LocalDateTime> setter;
+
+        /**
+         * Instantiates a new timestamp.
+         *
+         * @param getter gets the timestamp from a result
+         * @param setter sets the timestamp of a result
+         */
+        Timestamp(Function<PerformanceResult, LocalDateTime> getter,
+            BiConsumer<PerformanceResult, LocalDateTime> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    /** Value stored for missing timestamps. */
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /** Value stored for components that did not finish in a diff. */
+    private static final long NO_COMPONENT_TIME = -1;
+
+    /** The sorted diff file names; the index is the ordinal of a diff. */
+    private String[] names;
+
+    /** The timestamps as epoch milliseconds by {@link Timestamp#ordinal()} and diff ordinal. */
+    private long[][] timestamps = new long[Timestamp.values().length][];
+
+    /** The phase durations in milliseconds by {@link AnalysisPhase#ordinal()} and diff ordinal. */
+    private long[][] phaseMillis = new long[AnalysisPhase.values().length][];
+
+    /** The resource usage by {@link ResourceMetric#ordinal()} and diff ordinal. */
+    private double[][] resourceUsage = new double[ResourceMetric.values().length][];
+
+    /** The component times in milliseconds by component number (see {@link ComponentNames}) and diff ordinal. */
+    private long[][] componentMillis = new long[0][];
+
+    /** The total times in seconds measured by GNU time. */
+    private double[] totalTimes;
+
+    /** The diffs for which a result was added. */
+    private BitSet present = new BitSet();
+
+    /** The diffs that were analyzed partially. */
+    private BitSet partial = new BitSet();
+
+    /** The diffs whose analysis did not cover a single source file. */
+    private BitSet empty = new BitSet();
+
+    /**
+     * Creates a store for the given diffs. Results can only be added for these
+     * diffs.
+     *
+     * @param diffFileNames the names of the diff files
+     */
+    public PerformanceResultStore(Collection<String> diffFileNames) {
+        names = diffFileNames.toArray(new String[0]);
+        Arrays.sort(names);
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = new long[names.length];
+            Arrays.fill(timestamps[i], NO_TIME);
+        }
+        for (int i = 0; i < phaseMillis.length; i++) {
+            phaseMillis[i] = new long[names.length];
+        }
+        for (int i = 0; i < resourceUsage.length; i++) {
+            resourceUsage[i] = new double[names.length];
+            Arrays.fill(resourceUsage[i], -1);
+        }
+        totalTimes = new double[names.length];
+        Arrays.fill(totalTimes, -1);
+    }
+
+    /**
+     * Creates a store containing the given results.
+     *
+     * @param results the results by diff file name
+     * @return the store
+     */
+    public static PerformanceResultStore of(Map<String, PerformanceResult> results) {
+        PerformanceResultStore store = new PerformanceResultStore(results.keySet());
+        for (PerformanceResult result : results.values()) {
+            store.set(result);
+        }
+        return store;
+    }
+
+    /**
+     * Copies a result into the store.
+     *
+     * @param result the result
+     * @throws IllegalArgumentException if the diff of the result is not part of
+     *         the store
+     */
+    public synchronized void set(PerformanceResult result) {
+        int index = indexOf(result.getDiffFileName());
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown diff file: " + result.getDiffFileName());
+        }
+        for (Timestamp timestamp : Timestamp.values()) {
+            LocalDateTime time = timestamp.getter.apply(result);
+            timestamps[timestamp.ordinal()][index] =
+                time == null ? NO_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        for (AnalysisPhase phase : AnalysisPhase.values()) {
+            phaseMillis[phase.ordinal()][index] = result.getPhaseMillis(phase);
+        }
+        for (ResourceMetric metric : ResourceMetric.values()) {
+            resourceUsage[metric.ordinal()][index] = result.getResourceUsage(metric);
+        }
+        for (long[] times : componentMillis) {
+            times[index] = NO_COMPONENT_TIME;
+        }
+        for (int i = 0; i < result.getAnalysisComponentCount(); i++) {
+            getComponentColumn(result.getAnalysisComponentId(i))[index] = result.getAnalysisComponentTime(i);
+        }
+        totalTimes[index] = result.getTotalTime();
+        partial.set(index, result.isPartialAnalysis());
+        empty.set(index, result.isEmptyAnalysis());
+        present.set(index);
+    }
+
+    /**
+     * Creates a result object for a diff. Changes to the object do not affect
+     * the store.
+     *
+     * @param index the ordinal of the diff
+     * @return the result, null if no result was added for the diff
+     */
+    public PerformanceResult get(int index) {
+        PerformanceResult result = null;
+        if (isPresent(index)) {
+            result = new PerformanceResult(names[index]);
+            for (Timestamp timestamp : Timestamp.values()) {
+                long millis = timestamps[timestamp.ordinal()][index];
+                timestamp.setter.accept(result, millis == NO_TIME ? null
+                    : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                        (int) Math.floorMod(millis, 1000) * 1000000, ZoneOffset.UTC));
+            }
+            for (AnalysisPhase phase : AnalysisPhase.values()) {
+                result.setPhaseMillis(phase, getPhaseMillis(phase, index));
+            }
+            for (ResourceMetric metric : ResourceMetric.values()) {
+                result.setResourceUsage(metric, getResourceUsage(metric, index));
+            }
+            for (int id = 0; id < componentMillis.length; id++) {
+                if (getComponentMillis(id, index) != NO_COMPONENT_TIME) {
+                    result.addAnalysisComponentTime(ComponentNames.getName(id), getComponentMillis(id, index));
+                }
+            }
+            result.setTotalTime(totalTimes[index]);
+            result.setPartialAnalysis(isPartialAnalysis(index));
+            result.setEmptyAnalysis(isEmptyAnalysis(index));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of diffs (with or without result).
+     *
+     * @return the number of diffs
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets the number of diffs for which a result was added.
+     *
+     * @return the number of results
+     */
+    public int getResultCount() {
+        return present.cardinality();
+    }
+
+    /**
+     * Gets the ordinal of a diff.
+     *
+     * @param diffFileName the name of the diff file
+     * @return the ordinal, negative if the diff is not part of the store
+     */
+    public int indexOf(String diffFileName) {
+        return Arrays.binarySearch(names, diffFileName);
+    }
+
+    /**
+     * Gets the name of a diff file.
+     *
+     * @param index the ordinal of the diff
+     * @return the name
+     */
+    public String getDiffFileName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Checks whether a result was added for a diff.
+     *
+     * @param index the ordinal of the diff
+     * @return true, if there is a result
+     */
+    public boolean isPresent(int index) {
+        return present.get(index);
+    }
+
+    /**
+     * Checks whether a diff was analyzed partially.
+     *
+     * @param index the ordinal of the diff
+     * @return true, if partial
+     */
+    public boolean isPartialAnalysis(int index) {
+        return partial.get(index);
+    }
+
+    /**
+     * Checks whether the analysis of a diff did not cover a single source file.
+     *
+     * @param index the ordinal of the diff
+     * @return true, if empty
+     */
+    public boolean isEmptyAnalysis(int index) {
+        return empty.get(index);
+    }
+
+    /**
+     * Gets the total time measured by GNU time.
+     *
+     * @param index the ordinal of the diff
+     * @return the time in seconds, -1 if not measured
+     */
+    public double getTotalTime(int index) {
+        return totalTimes[index];
+    }
+
+    /**
+     * Gets the time of the first log entry.
+     *
+     * @param index the ordinal of the diff
+     * @return the time in epoch milliseconds (UTC), {@link Long#MIN_VALUE} if
+     *         missing
+     */
+    public long getStartMillis(int index) {
+        return timestamps[Timestamp.START.ordinal()][index];
+    }
+
+    /**
+     * Gets the time of the last evaluated log entry.
+     *
+     * @param index the ordinal of the diff
+     * @return the time in epoch milliseconds (UTC), {@link Long#MIN_VALUE} if
+     *         missing
+     */
+    public long getEndMillis(int index) {
+        return timestamps[Timestamp.END.ordinal()][index];
+    }
+
+    /**
+     * Gets the duration of a phase.
+     *
+     * @param phase the phase
+     * @param index the ordinal of the diff
+     * @return the duration in milliseconds
+     */
+    public long getPhaseMillis(AnalysisPhase phase, int index) {
+        return phaseMillis[phase.ordinal()][index];
+    }
+
+    /**
+     * Gets a resource usage reported by GNU time.
+     *
+     * @param metric the metric
+     * @param index the ordinal of the diff
+     * @return the value in the unit of the metric, -1 if not reported
+     */
+    public double getResourceUsage(ResourceMetric metric, int index) {
+        return resourceUsage[metric.ordinal()][index];
+    }
+
+    /**
+     * Gets the execution time of an analysis component.
+     *
+     * @param componentId the number of the component name (see
+     *        {@link ComponentNames})
+     * @param index the ordinal of the diff
+     * @return the time in milliseconds, -1 if the component did not finish
+     */
+    public long getComponentMillis(int componentId, int index) {
+        return componentId < componentMillis.length ? componentMillis[componentId][index] : NO_COMPONENT_TIME;
+    }
+
+    /**
+     * Gets the number of component columns. All component numbers used in this
+     * store are smaller than this.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return componentMillis.length;
+    }
+
+    /**
+     * Gets the column for the times of a component, creating it if necessary.
+     *
+     * @param componentId the number of the component name
+     * @return the column
+     */
+    private long[] getComponentColumn(int componentId) {
+        if (componentId >= componentMillis.length) {
+            int oldLength = componentMillis.length;
+            componentMillis = Arrays.copyOf(componentMillis, componentId + 1);
+            for (int id = oldLength; id < componentMillis.length; id++) {
+                componentMillis[id] = new long[names.length];
+                Arrays.fill(componentMillis[id], NO_COMPONENT_TIME);
+            }
+        }
+        return componentMillis[componentId];
+    }
+
+}
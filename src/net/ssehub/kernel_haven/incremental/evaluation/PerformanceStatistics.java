@@ -0,0 +1,417 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statistics about the durations of a set of {@link PerformanceResult}s.
+ * Results are assigned to groups by pluggable classifiers and the statistics
+ * of all groups are computed in a single pass over the columns of a
+ * {@link PerformanceResultStore}.
+ *
+ * @author moritz
+ */
+public class PerformanceStatistics {
+
+    /** Group containing all results. */
+    public static final String ALL = "all";
+
+    /** Group containing partial analyses. */
+    public static final String PARTIAL = "partial";
+
+    /** Group containing partial analyses that covered at least one source file. */
+    public static final String EFFECTIVE_PARTIAL = "effective-partial";
+
+    /** Group containing partial analyses that did not cover a single source file. */
+    public static final String EMPTY_PARTIAL = "empty-partial";
+
+    /** Group containing analyses that were not partial. */
+    public static final String NON_PARTIAL = "non-partial";
+
+    /** The classifiers of the groups (in the order they were added). */
+    private Map<String, Classifier> classifiers = new LinkedHashMap<String, Classifier>();
+
+    /** The statistics of the groups. */
+    private Map<String, GroupStatistics> groups = new LinkedHashMap<String, GroupStatistics>();
+
+    /** Durations below and above this threshold (in seconds) are counted. */
+    private double thresholdSeconds;
+
+    /** The durations of all results in the order of their names. */
+    private double[] durations = new double[0];
+
+    /** The number of valid entries in {@link #durations}. */
+    private int durationCount;
+
+    /** The execution times of the analysis components of all results. */
+    private ComponentStatistics components = new ComponentStatistics();
+
+    /**
+     * Decides whether a result belongs to a group.
+     */
+    public interface Classifier {
+
+        /**
+         * Checks whether a result belongs to the group.
+         *
+         * @param results the results
+         * @param index the ordinal of the result
+         * @return true, if the result belongs to the group
+         */
+        boolean belongs(PerformanceResultStore results, int index);
+    }
+
+    /**
+     * Statistics of a single group of results.
+     */
+    public static final class GroupStatistics {
+
+        private long count;
+
+        private double sum;
+
+        private double min = -1;
+
+        private double max;
+
+        private String minDiffFileName;
+
+        private String maxDiffFileName;
+
+        private long shorterThanThreshold;
+
+        private long longerThanThreshold;
+
+        private long[] phaseMillis = new long[AnalysisPhase.values().length];
+
+        private DurationHistogram histogram = new DurationHistogram();
+
+        private double[] resourceSums = new double[ResourceMetric.values().length];
+
+        private double[] resourceMax = new double[ResourceMetric.values().length];
+
+        private long[] resourceCounts = new long[ResourceMetric.values().length];
+
+        /**
+         * Adds a result to the group.
+         *
+         * @param results the results
+         * @param index the ordinal of the result
+         * @param duration the duration of the result
+         * @param threshold the threshold for durations in seconds
+         */
+        private void add(PerformanceResultStore results, int index, double duration, double threshold) {
+            count++;
+            sum += duration;
+            histogram.recordSeconds(duration);
+            if (max < duration) {
+                max = duration;
+                maxDiffFileName = results.getDiffFileName(index);
+            }
+            if (min == -1 || min > duration) {
+                min = duration;
+                minDiffFileName = results.getDiffFileName(index);
+            }
+            if (duration < threshold) {
+                shorterThanThreshold++;
+            } else if (duration > threshold) {
+                longerThanThreshold++;
+            }
+            for (AnalysisPhase phase : AnalysisPhase.values()) {
+                phaseMillis[phase.ordinal()] += results.getPhaseMillis(phase, index);
+            }
+            for (ResourceMetric metric : ResourceMetric.values()) {
+                double value = results.getResourceUsage(metric, index);
+                if (value != -1) {
+                    int metricIndex = metric.ordinal();
+                    resourceSums[metricIndex] += value;
+                    resourceMax[metricIndex] = Math.max(resourceMax[metricIndex], value);
+                    resourceCounts[metricIndex]++;
+                }
+            }
+        }
+
+        /**
+         * Gets the number of results.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the accumulated duration.
+         *
+         * @return the sum in seconds
+         */
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * Gets the average duration.
+         *
+         * @return the mean in seconds, NaN for an empty group
+         */
+        public double getMean() {
+            return sum / count;
+        }
+
+        /**
+         * Gets the shortest duration.
+         *
+         * @return the minimum in seconds, -1 for an empty group
+         */
+        public double getMin() {
+            return min;
+        }
+
+        /**
+         * Gets the longest duration.
+         *
+         * @return the maximum in seconds, 0 for an empty group
+         */
+        public double getMax() {
+            return max;
+        }
+
+        /**
+         * Gets the diff with the shortest duration.
+         *
+         * @return the name of the diff file, null for an empty group
+         */
+        public String getMinDiffFileName() {
+            return minDiffFileName;
+        }
+
+        /**
+         * Gets the diff with the longest duration.
+         *
+         * @return the name of the diff file, null if no duration was longer
+         *         than 0 seconds
+         */
+        public String getMaxDiffFileName() {
+            return maxDiffFileName;
+        }
+
+        /**
+         * Gets the number of results shorter than the threshold.
+         *
+         * @return the count
+         */
+        public long getShorterThanThreshold() {
+            return shorterThanThreshold;
+        }
+
+        /**
+         * Gets the number of results longer than the threshold.
+         *
+         * @return the count
+         */
+        public long getLongerThanThreshold() {
+            return longerThanThreshold;
+        }
+
+        /**
+         * Gets the accumulated duration of a phase.
+         *
+         * @param phase the phase
+         * @return the duration in milliseconds
+         */
+        public long getPhaseMillis(AnalysisPhase phase) {
+            return phaseMillis[phase.ordinal()];
+        }
+
+        /**
+         * Gets the distribution of the durations.
+         *
+         * @return the histogram
+         */
+        public DurationHistogram getHistogram() {
+            return histogram;
+        }
+
+        /**
+         * Gets the accumulated resource usage over all results that reported
+         * the metric.
+         *
+         * @param metric the metric
+         * @return the sum in the unit of the metric
+         */
+        public double getResourceSum(ResourceMetric metric) {
+            return resourceSums[metric.ordinal()];
+        }
+
+        /**
+         * Gets the average resource usage over all results that reported the
+         * metric.
+         *
+         * @param metric the metric
+         * @return the mean in the unit of the metric, NaN if no result
+         *         reported the metric
+         */
+        public double getResourceMean(ResourceMetric metric) {
+            return resourceSums[metric.ordinal()] / resourceCounts[metric.ordinal()];
+        }
+
+        /**
+         * Gets the highest resource usage of all results.
+         *
+         * @param metric the metric
+         * @return the maximum in the unit of the metric
+         */
+        public double getResourceMax(ResourceMetric metric) {
+            return resourceMax[metric.ordinal()];
+        }
+
+        /**
+         * Gets the number of results that reported a metric.
+         *
+         * @param metric the metric
+         * @return the count
+         */
+        public long getResourceCount(ResourceMetric metric) {
+            return resourceCounts[metric.ordinal()];
+        }
+    }
+
+    /**
+     * Instantiates new statistics without groups.
+     *
+     * @param thresholdSeconds durations below and above this threshold (in
+     *        seconds) are counted
+     */
+    public PerformanceStatistics(double thresholdSeconds) {
+        this.thresholdSeconds = thresholdSeconds;
+    }
+
+    /**
+     * Creates statistics with the groups {@link #ALL}, {@link #PARTIAL},
+     * {@link #EFFECTIVE_PARTIAL}, {@link #EMPTY_PARTIAL} and
+     * {@link #NON_PARTIAL}.
+     *
+     * @param thresholdSeconds durations below and above this threshold (in
+     *        seconds) are counted
+     * @return the statistics
+     */
+    public static PerformanceStatistics withDefaultGroups(double thresholdSeconds) {
+        PerformanceStatistics statistics = new PerformanceStatistics(thresholdSeconds);
+        statistics.addGroup(ALL, (results, index) -> true);
+        statistics.addGroup(PARTIAL, (results, index) -> results.isPartialAnalysis(index));
+        statistics.addGroup(EFFECTIVE_PARTIAL,
+            (results, index) -> results.isPartialAnalysis(index) && !results.isEmptyAnalysis(index));
+        statistics.addGroup(EMPTY_PARTIAL,
+            (results, index) -> results.isPartialAnalysis(index) && results.isEmptyAnalysis(index));
+        statistics.addGroup(NON_PARTIAL, (results, index) -> !results.isPartialAnalysis(index));
+        return statistics;
+    }
+
+    /**
+     * Adds a group. A result may belong to any number of groups.
+     *
+     * @param name the name of the group
+     * @param classifier decides whether a result belongs to the group
+     */
+    public void addGroup(String name, Classifier classifier) {
+        classifiers.put(name, classifier);
+        groups.put(name, new GroupStatistics());
+    }
+
+    /**
+     * Adds all results to the groups they belong to. Results are processed in
+     * the order of their names.
+     *
+     * @param results the results by name
+     */
+    public void aggregate(Map<String, PerformanceResult> results) {
+        aggregate(PerformanceResultStore.of(results));
+    }
+
+    /**
+     * Adds all results of a store to the groups they belong to. Results are
+     * processed in the order of their ordinals (i.e. their names).
+     *
+     * @param results the results
+     */
+    public void aggregate(PerformanceResultStore results) {
+        Classifier[] groupClassifiers = classifiers.values().toArray(new Classifier[0]);
+        GroupStatistics[] groupStatistics = groups.values().toArray(new GroupStatistics[0]);
+        durations = Arrays.copyOf(durations, durationCount + results.getResultCount());
+        for (int index = 0; index < results.size(); index++) {
+            if (results.isPresent(index)) {
+                double duration = getDuration(results, index);
+                durations[durationCount++] = duration;
+                components.add(results, index);
+                for (int group = 0; group < groupClassifiers.length; group++) {
+                    if (groupClassifiers[group].belongs(results, index)) {
+                        groupStatistics[group].add(results, index, duration, thresholdSeconds);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the statistics of a group.
+     *
+     * @param name the name of the group
+     * @return the statistics, null if there is no such group
+     */
+    public GroupStatistics getGroup(String name) {
+        return groups.get(name);
+    }
+
+    /**
+     * Gets the names of all groups in the order they were added.
+     *
+     * @return the names
+     */
+    public Set<String> getGroupNames() {
+        return groups.keySet();
+    }
+
+    /**
+     * Gets the execution times of the analysis components of all aggregated
+     * results.
+     *
+     * @return the component statistics
+     */
+    public ComponentStatistics getComponents() {
+        return components;
+    }
+
+    /**
+     * Gets the durations of all aggregated results in the order of their
+     * names.
+     *
+     * @return the durations in seconds
+     */
+    public double[] getDurations() {
+        return Arrays.copyOf(durations, durationCount);
+    }
+
+    /**
+     * Gets the duration of a result. The precise time measured by
+     * /usr/bin/time is used if available, otherwise the time between the
+     * first and last timestamp of the log.
+     *
+     * @param results the results
+     * @param index the ordinal of the result
+     * @return the duration in seconds
+     */
+    public static double getDuration(PerformanceResultStore results, int index) {
+        double duration;
+        if (results.getTotalTime(index) != -1) {
+            duration = results.getTotalTime(index);
+        } else if (results.getStartMillis(index) != Long.MIN_VALUE && results.getEndMillis(index) != Long.MIN_VALUE) {
+            duration = (results.getEndMillis(index) - results.getStartMillis(index)) / 1000d;
+        } else {
+            duration = 0;
+        }
+        return duration;
+    }
+
+}
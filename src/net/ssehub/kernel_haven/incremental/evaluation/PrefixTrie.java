@@ -0,0 +1,149 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Character trie mapping prefixes to values. Used to check a text against a
+ * large number of prefixes (e.g. file paths extracted from a log) in time
+ * proportional to the length of the text instead of the number of prefixes.
+ *
+ * @param <T> the type of values stored for each prefix
+ * @author moritz
+ */
+public class PrefixTrie<T> {
+
+    /** The root node representing the empty prefix. */
+    private Node<T> root = new Node<T>();
+
+    /** The number of stored prefixes. */
+    private int size;
+
+    /**
+     * Node of the trie. Children are kept in sorted arrays as the fan-out for
+     * file paths is usually small.
+     *
+     * @param <T> the type of the stored value
+     */
+    private static final class Node<T> {
+
+        /** The characters leading to the children (sorted). */
+        private char[] keys = new char[0];
+
+        /** The children. */
+        private Node<T>[] children = newArray(0);
+
+        /** The value if a prefix ends at this node, null otherwise. */
+        private T value;
+
+        /**
+         * Creates a new array of nodes.
+         *
+         * @param <T> the type of the stored value
+         * @param length the length
+         * @return the array
+         */
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node<?>[length];
+        }
+
+        /**
+         * Gets the child for a character.
+         *
+         * @param key the character
+         * @return the child or null if not present
+         */
+        private Node<T> get(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Gets the child for a character and creates it if it is not present.
+         *
+         * @param key the character
+         * @return the child
+         */
+        private Node<T> getOrCreate(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            Node<T> child;
+            if (index >= 0) {
+                child = children[index];
+            } else {
+                int insertAt = -index - 1;
+                char[] newKeys = new char[keys.length + 1];
+                Node<T>[] newChildren = newArray(children.length + 1);
+                System.arraycopy(keys, 0, newKeys, 0, insertAt);
+                System.arraycopy(children, 0, newChildren, 0, insertAt);
+                System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+                System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+                child = new Node<T>();
+                newKeys[insertAt] = key;
+                newChildren[insertAt] = child;
+                keys = newKeys;
+                children = newChildren;
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Stores a value for a prefix if no value is present for that prefix yet.
+     *
+     * @param prefix the prefix
+     * @param value the value (must not be null)
+     * @return true, if the value was stored
+     */
+    public boolean putIfAbsent(String prefix, T value) {
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.getOrCreate(prefix.charAt(i));
+        }
+        boolean stored = node.value == null;
+        if (stored) {
+            node.value = value;
+            size++;
+        }
+        return stored;
+    }
+
+    /**
+     * Gets the values of all stored prefixes of the given text, ordered from the
+     * shortest to the longest prefix.
+     *
+     * @param text the text
+     * @return the values of matching prefixes (empty if no prefix matches)
+     */
+    public List<T> prefixesOf(String text) {
+        List<T> matches = new ArrayList<T>(1);
+        Node<T> node = root;
+        for (int i = 0; node != null; i++) {
+            if (node.value != null) {
+                matches.add(node.value);
+            }
+            node = i < text.length() ? node.get(text.charAt(i)) : null;
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the number of stored prefixes.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if no prefix is stored.
+     *
+     * @return true, if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
@@ -0,0 +1,96 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+/**
+ * Scanner detecting whether a result line depends on variables of the
+ * variability model. Works directly on the characters of the line and neither
+ * splits the line nor uses regular expressions, so no objects are allocated
+ * per line.
+ *
+ * <p>
+ * Columns are determined like with {@code line.split(";")}: trailing empty
+ * columns are ignored, the second column is the file presence condition and the
+ * last remaining column is the presence condition. A variable is considered
+ * to be from the variability model if it starts with CONFIG_, i.e. if CONFIG_
+ * appears at the beginning of a column or after a character that can not be
+ * part of an identifier.
+ * </p>
+ *
+ * @author moritz
+ */
+public final class PresenceConditionScanner {
+
+    /** The prefix of variables of the variability model. */
+    private static final String CONFIG_PREFIX = "CONFIG_";
+
+    /** The column separator. */
+    private static final char SEPARATOR = ';';
+
+    /**
+     * Utility class without instances.
+     */
+    private PresenceConditionScanner() {
+    }
+
+    /**
+     * Checks whether a result line is variability related. This is the case if
+     * the presence condition contains a CONFIG_ variable or if the presence
+     * condition is empty and the file presence condition contains one.
+     *
+     * @param line the result line
+     * @return true, if the line is variability related; false for lines with
+     *         less than two columns
+     */
+    public static boolean isVariabilityRelated(String line) {
+        // ignore trailing empty columns like String.split
+        int pcEnd = line.length();
+        while (pcEnd > 0 && line.charAt(pcEnd - 1) == SEPARATOR) {
+            pcEnd--;
+        }
+        int pcStart = line.lastIndexOf(SEPARATOR, pcEnd - 1) + 1;
+
+        int filePcStart = line.indexOf(SEPARATOR) + 1;
+        int filePcEnd = filePcStart > 0 ? line.indexOf(SEPARATOR, filePcStart) : -1;
+        if (filePcEnd < 0 || filePcEnd > pcEnd) {
+            filePcEnd = pcEnd;
+        }
+
+        boolean related = false;
+        if (filePcStart > 0 && filePcStart <= pcEnd) {
+            boolean pcEmpty = pcStart >= pcEnd;
+            related = containsConfigVariable(line, pcStart, pcEnd)
+                || (pcEmpty && containsConfigVariable(line, filePcStart, filePcEnd));
+        }
+        return related;
+    }
+
+    /**
+     * Checks whether a CONFIG_ variable starts within the given column.
+     *
+     * @param line the line
+     * @param start the start of the column (inclusive)
+     * @param end the end of the column (exclusive)
+     * @return true, if a CONFIG_ variable was found
+     */
+    private static boolean containsConfigVariable(String line, int start, int end) {
+        boolean found = false;
+        int index = line.indexOf(CONFIG_PREFIX, start);
+        while (!found && index >= 0 && index + CONFIG_PREFIX.length() <= end) {
+            found = index == start || !isIdentifierPart(line.charAt(index - 1));
+            index = line.indexOf(CONFIG_PREFIX, index + 1);
+        }
+        return found;
+    }
+
+    /**
+     * Checks whether a character can be part of an identifier (equivalent to
+     * {@code \w} in a regular expression).
+     *
+     * @param character the character
+     * @return true, if the character is a letter, digit or underscore
+     */
+    private static boolean isIdentifierPart(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z')
+            || (character >= '0' && character <= '9') || character == '_';
+    }
+
+}
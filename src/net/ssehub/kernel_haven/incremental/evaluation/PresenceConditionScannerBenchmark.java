@@ -0,0 +1,216 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.ssehub.kernel_haven.util.Logger;
+
+/**
+ * Compares the time needed to decide whether result lines are variability
+ * related with the previous implementation of the QualityEvaluator (splitting
+ * the line and matching a regular expression on the presence conditions) and
+ * with the {@link PresenceConditionScanner}. Both implementations are first
+ * checked to return the same verdict for every line and are then run
+ * alternately on all lines.
+ *
+ * <p>
+ * The lines are read from the given result files of a KernelHaven execution
+ * (or from all files in the given directories). Lines with less than two
+ * columns are only used for the check, as the previous implementation failed
+ * on them; the scanner considers them not variability related.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code PresenceConditionScannerBenchmark [-runs N] <result file or
+ * directory>...}
+ * </p>
+ *
+ * @author moritz
+ */
+public class PresenceConditionScannerBenchmark {
+
+    /** The Constant LOGGER. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** Matches CONFIG_ at the beginning of a variable (previous implementation). */
+    private static final Pattern CONFIG_VARIABLE_PATTERN = Pattern.compile("(?<!(_|\\w|\\d))CONFIG_");
+
+    /** The maximum number of differing lines that are logged. */
+    private static final int MAX_LOGGED_DIFFERENCES = 10;
+
+    /** Receives the results of the measured runs, so that they are not optimized away. */
+    private static volatile int sink;
+
+    /**
+     * Utility class without instances.
+     */
+    private PresenceConditionScannerBenchmark() {
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the arguments
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws IOException {
+        int runs = 5;
+        List<Path> inputs = new ArrayList<Path>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-runs") && i + 1 < args.length) {
+                i++;
+                runs = Integer.parseInt(args[i]);
+            } else {
+                inputs.add(Paths.get(args[i]));
+            }
+        }
+        if (inputs.isEmpty() || runs < 1) {
+            LOGGER.logError("Usage: PresenceConditionScannerBenchmark [-runs N] <result file or directory>...");
+            System.exit(1);
+        }
+
+        List<String> allLines = readLines(inputs);
+        List<String> measuredLines = new ArrayList<String>();
+        int related = 0;
+        int differences = 0;
+        for (String line : allLines) {
+            boolean scanned = PresenceConditionScanner.isVariabilityRelated(line);
+            boolean expected = false;
+            if (line.split(";").length >= 2) {
+                expected = isVariabilityRelatedBySplitting(line);
+                measuredLines.add(line);
+            }
+            if (scanned != expected) {
+                differences++;
+                if (differences <= MAX_LOGGED_DIFFERENCES) {
+                    LOGGER.logError("Different verdicts (split " + expected + ", scanner " + scanned + "): " + line);
+                }
+            }
+            if (scanned) {
+                related++;
+            }
+        }
+        if (differences > 0) {
+            LOGGER.logError(differences + " of " + allLines.size() + " lines have different verdicts");
+            System.exit(1);
+        }
+        LOGGER.logInfo("Both implementations agree on all " + allLines.size() + " lines (" + related
+            + " variability related); measuring " + measuredLines.size() + " lines " + runs + " times");
+
+        String[] lines = measuredLines.toArray(new String[measuredLines.size()]);
+        // warm up both implementations before measuring
+        measure(lines, false);
+        measure(lines, true);
+        double[] splitNanos = new double[runs];
+        double[] scannerNanos = new double[runs];
+        for (int run = 0; run < runs; run++) {
+            // alternate the order so that neither implementation always runs first
+            if (run % 2 == 0) {
+                splitNanos[run] = measure(lines, false);
+                scannerNanos[run] = measure(lines, true);
+            } else {
+                scannerNanos[run] = measure(lines, true);
+                splitNanos[run] = measure(lines, false);
+            }
+            LOGGER.logInfo(String.format(Locale.ROOT, "Run %d: split and regex %.1f ns/line, scanner %.1f ns/line",
+                run + 1, splitNanos[run], scannerNanos[run]));
+        }
+
+        double split = median(splitNanos);
+        double scanner = median(scannerNanos);
+        LOGGER.logInfo(String.format(Locale.ROOT, "Median: split and regex %.1f ns/line, scanner %.1f ns/line, "
+            + "speedup %.2fx", split, scanner, split / scanner));
+    }
+
+    /**
+     * Reads the lines of all result files.
+     *
+     * @param inputs the result files and directories containing result files
+     * @return the lines
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static List<String> readLines(List<Path> inputs) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (Path input : inputs) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(input)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Decides for all lines whether they are variability related once.
+     *
+     * @param lines the lines
+     * @param scanner whether to use the {@link PresenceConditionScanner}
+     *        instead of the previous implementation
+     * @return the time per line in nanoseconds
+     */
+    private static double measure(String[] lines, boolean scanner) {
+        long start = System.nanoTime();
+        int related = 0;
+        if (scanner) {
+            for (String line : lines) {
+                if (PresenceConditionScanner.isVariabilityRelated(line)) {
+                    related++;
+                }
+            }
+        } else {
+            for (String line : lines) {
+                if (isVariabilityRelatedBySplitting(line)) {
+                    related++;
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        sink = related;
+        return (double) nanos / Math.max(1, lines.length);
+    }
+
+    /**
+     * The previous implementation of the check in the QualityEvaluator: splits
+     * the line and matches a regular expression on the presence conditions.
+     *
+     * @param entry the entry, must have at least two columns
+     * @return true, if the entry is variability related
+     */
+    private static boolean isVariabilityRelatedBySplitting(String entry) {
+        String[] entryParts = entry.split(";");
+        String presenceCondition = entryParts[entryParts.length - 1];
+        String filePc = entryParts[1];
+        Matcher matcher = CONFIG_VARIABLE_PATTERN.matcher(presenceCondition);
+        Matcher filePcMatcher = CONFIG_VARIABLE_PATTERN.matcher(filePc);
+        boolean pcFound = matcher.find();
+        boolean filePcFound = filePcMatcher.find();
+        return pcFound || (filePcFound && presenceCondition.isEmpty());
+    }
+
+    /**
+     * Calculates the median.
+     *
+     * @param values the values (reordered by this method)
+     * @return the median
+     */
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        return values.length % 2 == 1 ? values[values.length / 2]
+            : (values[values.length / 2 - 1] + values[values.length / 2]) / 2;
+    }
+
+}
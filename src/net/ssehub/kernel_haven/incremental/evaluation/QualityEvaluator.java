@@ -7,12 +7,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
 
 import net.ssehub.kernel_haven.util.Logger;
 
@@ -39,21 +42,50 @@ public class QualityEvaluator {
 	/** The Logger. */
 	private static final Logger LOGGER = Logger.get();
 
-	private static final String LOG_LINE_UPDATE_PATTERN = "Updating lines for file: ";
+	/** Bytes per megabyte for the -streamingthreshold option. */
+	private static final long MEGABYTE = 1024L * 1024L;
 
-	private static final String LOG_LINE_NO_VARCHANGE_PATTERN = " because it introduced no variability related changes.";
+	/**
+	 * Number of chunks of consecutive diffs per thread in parallel mode. More
+	 * chunks than threads allow idle workers to steal work.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
 
 	/** The base dir. */
 	private Path baseDir;
 
 	/** The incremental results. */
-	private Map<String, QualityResult> incrementalResults = new HashMap<String, QualityResult>();
+	private Map<String, QualityResult> incrementalResults = new ConcurrentHashMap<String, QualityResult>();
 
 	/** The reference results. */
-	private Map<String, QualityResult> referenceResults = new HashMap<String, QualityResult>();
+	private Map<String, QualityResult> referenceResults = new ConcurrentHashMap<String, QualityResult>();
 
 	private Mode mode;
 
+	/** The number of row dictionaries created so far. */
+	private AtomicLong rowDictionaries = new AtomicLong();
+
+	/** The largest number of bytes stored by a dropped row dictionary. */
+	private AtomicLong maxRowDictionaryBytes = new AtomicLong();
+
+	/** Cache for parsed result files used for sequential evaluation. */
+	private ResultCache resultCache = new ResultCache(createRowDictionary());
+
+	/** Cache hits of the caches of evaluated chunks in parallel mode. */
+	private AtomicLong chunkCacheHits = new AtomicLong();
+
+	/** Cache misses of the caches of evaluated chunks in parallel mode. */
+	private AtomicLong chunkCacheMisses = new AtomicLong();
+
+	/**
+	 * Combined size of the result files for a diff above which the results are
+	 * compared through external sorting instead of in memory.
+	 */
+	private long streamingThreshold = Runtime.getRuntime().maxMemory() / 8;
+
+	/** The number of diffs compared through external sorting. */
+	private AtomicLong streamedComparisons = new AtomicLong();
+
 	public enum Mode {
 		CONFIG_BLOCK_CHANGE, BLOCK_CHANGE, ARTIFACT_CHANGE,
 	}
@@ -67,7 +99,6 @@ public class QualityEvaluator {
 	public QualityEvaluator(Mode mode, Path path) {
 		this.baseDir = path;
 		this.mode = mode;
-
 	}
 
 	/**
@@ -79,24 +110,37 @@ public class QualityEvaluator {
 	public static void main(String[] args) throws IOException {
 		Path baseDir = null;
 		Mode mode = Mode.ARTIFACT_CHANGE;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long streamingThreshold = -1;
+		List<Path> exportFiles = new ArrayList<Path>();
 
 		// Parse arguments
-		if (args.length == 1) {
-			baseDir = Paths.get(args[0]);
-		} else if (args.length == 2) {
-			baseDir = Paths.get(args[1]);
-			if (args[0].equals("-configurationblockchange") || args[0].equals("-cbc")) {
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-j") && i + 1 < args.length) {
+				i++;
+				threads = parseThreadCount(args[i]);
+			} else if ((args[i].equals("-streamingthreshold") || args[i].equals("-st")) && i + 1 < args.length) {
+				i++;
+				streamingThreshold = parseStreamingThreshold(args[i]);
+			} else if (args[i].equals("-export") && i + 1 < args.length) {
+				i++;
+				exportFiles.add(parseExportFile(args[i]));
+			} else if (args[i].equals("-configurationblockchange") || args[i].equals("-cbc")) {
 				mode = Mode.CONFIG_BLOCK_CHANGE;
-			} else if (args[0].equals("-blockchange") || args[0].equals("-bc")) {
+			} else if (args[i].equals("-blockchange") || args[i].equals("-bc")) {
 				mode = Mode.BLOCK_CHANGE;
-			} else if (!(args[0].equals("-change") || args[0].equals("-c") || args[0].equals("-ac")
-					|| args[0].equals("-artifactchange"))) {
-				LOGGER.logError("unknown option " + args[0]);
+			} else if (args[i].equals("-change") || args[i].equals("-c") || args[i].equals("-ac")
+					|| args[i].equals("-artifactchange")) {
+				mode = Mode.ARTIFACT_CHANGE;
+			} else if (args[i].startsWith("-")) {
+				LOGGER.logError("unknown option " + args[i]);
 				System.exit(1);
+			} else {
+				baseDir = Paths.get(args[i]);
 			}
 		}
 
-		LOGGER.logInfo("Working on directory \"" + baseDir + "\". Mode=" + mode + ".");
+		LOGGER.logInfo("Working on directory \"" + baseDir + "\". Mode=" + mode + ". Threads=" + threads + ".");
 
 		if (baseDir != null && !baseDir.toFile().exists()) {
 			LOGGER.logError("Directory \"" + baseDir + "\" does not exist!");
@@ -105,20 +149,284 @@ public class QualityEvaluator {
 
 		if (baseDir != null) {
 			QualityEvaluator evaluator = new QualityEvaluator(mode, baseDir);
+			if (streamingThreshold >= 0) {
+				evaluator.setStreamingThreshold(streamingThreshold);
+			} else {
+				// every thread holds the results of one diff in memory
+				evaluator.setStreamingThreshold(evaluator.getStreamingThreshold() / threads);
+			}
+			LOGGER.logInfo("Comparing results through external sorting above "
+					+ evaluator.getStreamingThreshold() / MEGABYTE + " MB.");
 			List<String> extractedDiffFilenames = evaluator.extractDiffFilenamesFromReferenceResults();
 			Collections.sort(extractedDiffFilenames);
 
-			for (int i = 0; i < extractedDiffFilenames.size(); i++) {
-				if (i == 0) {
-					evaluator.compareForInputDiffName(extractedDiffFilenames.get(i), null);
+			evaluator.compareAll(extractedDiffFilenames, threads);
+			for (Path exportFile : exportFiles) {
+				evaluator.exportResults(exportFile, extractedDiffFilenames);
+				LOGGER.logInfo("Exported quality results to " + exportFile);
+			}
+
+			LOGGER.logInfo("Result cache: hits=" + evaluator.getResultCacheHits() + " misses="
+					+ evaluator.getResultCacheMisses() + " streamed comparisons="
+					+ evaluator.getStreamedComparisons());
+			LOGGER.logInfo("Row dictionaries: created=" + evaluator.getRowDictionaries() + " max stored bytes="
+					+ evaluator.getMaxRowDictionaryBytes());
+		}
+
+	}
+
+	/**
+	 * Parses the threshold in megabytes given for the -streamingthreshold option.
+	 *
+	 * @param value the value
+	 * @return the threshold in bytes
+	 */
+	private static long parseStreamingThreshold(String value) {
+		long threshold = -1;
+		try {
+			threshold = Long.parseLong(value) * MEGABYTE;
+		} catch (NumberFormatException e) {
+			threshold = -1;
+		}
+		if (threshold < 0) {
+			LOGGER.logError("invalid streaming threshold " + value);
+			System.exit(1);
+		}
+		return threshold;
+	}
+
+	/**
+	 * Gets the combined size of the result files for a diff above which results
+	 * are compared through external sorting.
+	 *
+	 * @return the streaming threshold in bytes
+	 */
+	public long getStreamingThreshold() {
+		return streamingThreshold;
+	}
+
+	/**
+	 * Sets the combined size of the result files for a diff above which results
+	 * are compared through external sorting instead of in memory.
+	 *
+	 * @param streamingThreshold the streaming threshold in bytes
+	 */
+	public void setStreamingThreshold(long streamingThreshold) {
+		this.streamingThreshold = streamingThreshold;
+	}
+
+	/**
+	 * Gets the number of row dictionaries created so far. Every chunk of diffs
+	 * uses its own dictionary, and a dictionary is replaced once it stores more
+	 * bytes than the streaming threshold.
+	 *
+	 * @return the number of row dictionaries
+	 */
+	public long getRowDictionaries() {
+		return rowDictionaries.get();
+	}
+
+	/**
+	 * Gets the largest number of bytes stored by a single row dictionary.
+	 *
+	 * @return the maximum stored bytes
+	 */
+	public long getMaxRowDictionaryBytes() {
+		return Math.max(maxRowDictionaryBytes.get(), resultCache.getDictionary().getStoredBytes());
+	}
 
+	/**
+	 * Gets the number of diffs that were compared through external sorting.
+	 *
+	 * @return the number of streamed comparisons
+	 */
+	public long getStreamedComparisons() {
+		return streamedComparisons.get();
+	}
+
+	/**
+	 * Parses the file given for the -export option.
+	 *
+	 * @param value the value
+	 * @return the file
+	 */
+	private static Path parseExportFile(String value) {
+		Path file = Paths.get(value);
+		try {
+			ResultExporter.Format.forFile(file);
+		} catch (IllegalArgumentException e) {
+			LOGGER.logError(e.getMessage());
+			System.exit(1);
+		}
+		return file;
+	}
+
+	/**
+	 * Parses the number of threads given for the -j option.
+	 *
+	 * @param value the value
+	 * @return the number of threads
+	 */
+	private static int parseThreadCount(String value) {
+		int threads = 0;
+		try {
+			threads = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			threads = 0;
+		}
+		if (threads < 1) {
+			LOGGER.logError("invalid number of threads " + value);
+			System.exit(1);
+		}
+		return threads;
+	}
+
+	/**
+	 * Gets the number of cache hits for parsed result files.
+	 *
+	 * @return the result cache hits
+	 */
+	public long getResultCacheHits() {
+		return chunkCacheHits.get() + resultCache.getHits();
+	}
+
+	/**
+	 * Gets the number of cache misses (= parsed result files).
+	 *
+	 * @return the result cache misses
+	 */
+	public long getResultCacheMisses() {
+		return chunkCacheMisses.get() + resultCache.getMisses();
+	}
+
+	/**
+	 * Compares the results for every diff against the results for its predecessor
+	 * in the given list. For more than one thread, chunks of consecutive diffs are
+	 * evaluated concurrently on a work-stealing pool. The verdicts are logged in
+	 * the order of the given list in both cases.
+	 *
+	 * @param diffFileNames the diff file names in order of application
+	 * @param threads       the number of threads
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void compareAll(List<String> diffFileNames, int threads) throws IOException {
+		if (threads <= 1) {
+			for (int i = 0; i < diffFileNames.size(); i++) {
+				if (i == 0) {
+					compareForInputDiffName(diffFileNames.get(i), null);
 				} else {
-					evaluator.compareForInputDiffName(extractedDiffFilenames.get(i), extractedDiffFilenames.get(i - 1));
+					compareForInputDiffName(diffFileNames.get(i), diffFileNames.get(i - 1));
+				}
+			}
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			int chunkSize = Math.max(1, (diffFileNames.size() + threads * CHUNKS_PER_THREAD - 1)
+					/ (threads * CHUNKS_PER_THREAD));
+			List<Future<List<QualityResult>>> chunks = new ArrayList<Future<List<QualityResult>>>();
+			for (int start = 0; start < diffFileNames.size(); start += chunkSize) {
+				int chunkStart = start;
+				int chunkEnd = Math.min(start + chunkSize, diffFileNames.size());
+				chunks.add(pool.submit(() -> evaluateRange(diffFileNames, chunkStart, chunkEnd)));
+			}
+			try {
+				for (Future<List<QualityResult>> chunk : chunks) {
+					for (QualityResult result : chunk.get()) {
+						logResultQuality(result);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while evaluating results", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException("Could not evaluate results", e.getCause());
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * Exports the evaluated results with one record per diff. The format is
+	 * determined by the extension of the file (see
+	 * {@link ResultExporter.Format}).
+	 *
+	 * @param file          the file to write
+	 * @param diffFileNames the evaluated diff file names in order of application
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void exportResults(Path file, List<String> diffFileNames) throws IOException {
+		ResultExporter.Schema schema = new ResultExporter.Schema()
+				.add("diff", ResultExporter.ColumnType.STRING)
+				.add("previous_diff", ResultExporter.ColumnType.STRING)
+				.add("quality", ResultExporter.ColumnType.STRING)
+				.add("unexpected_entries", ResultExporter.ColumnType.LONG)
+				.add("missing_entries", ResultExporter.ColumnType.LONG);
+		try (ResultExporter exporter = ResultExporter.open(file, schema)) {
+			for (int i = 0; i < diffFileNames.size(); i++) {
+				QualityResult result = incrementalResults.get(diffFileNames.get(i));
+				if (result != null) {
+					exporter.writeString(result.getResultFileName());
+					exporter.writeString(i > 0 ? diffFileNames.get(i - 1) : null);
+					exporter.writeString(result.getResultQuality().name());
+					exporter.writeLong(result.getUnexpectedEntries());
+					exporter.writeLong(result.getMissingEntries());
+					exporter.endRecord();
 				}
+			}
+		}
+	}
 
+	/**
+	 * Evaluates a range of consecutive diffs sequentially, using a separate cache
+	 * and dictionary so that each result file within the range is parsed only
+	 * once. Both are dropped when the range is done, so the memory used for
+	 * parsed results does not grow with the number of diffs.
+	 *
+	 * @param diffFileNames the diff file names in order of application
+	 * @param start         the index of the first diff (inclusive)
+	 * @param end           the index of the last diff (exclusive)
+	 * @return the results in order of the given range
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private List<QualityResult> evaluateRange(List<String> diffFileNames, int start, int end) throws IOException {
+		ResultCache cache = new ResultCache(createRowDictionary());
+		List<QualityResult> results = new ArrayList<QualityResult>(end - start);
+		try {
+			for (int i = start; i < end; i++) {
+				String previousDiffFileName = null;
+				if (i > 0) {
+					previousDiffFileName = diffFileNames.get(i - 1);
+				}
+				results.add(evaluate(diffFileNames.get(i), previousDiffFileName, cache));
 			}
+		} finally {
+			dropRowDictionary(cache.getDictionary());
+			chunkCacheHits.addAndGet(cache.getHits());
+			chunkCacheMisses.addAndGet(cache.getMisses());
 		}
+		return results;
+	}
 
+	/**
+	 * Creates a new dictionary for parsed result files.
+	 *
+	 * @return the row dictionary
+	 */
+	private RowDictionary createRowDictionary() {
+		rowDictionaries.incrementAndGet();
+		return new RowDictionary();
+	}
+
+	/**
+	 * Records the size of a dictionary that is no longer used.
+	 *
+	 * @param dictionary the row dictionary
+	 */
+	private void dropRowDictionary(RowDictionary dictionary) {
+		maxRowDictionaryBytes.accumulateAndGet(dictionary.getStoredBytes(), Math::max);
 	}
 
 	/**
@@ -147,6 +455,31 @@ public class QualityEvaluator {
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
 	public void compareForInputDiffName(String diffFileName, String previousDiffFileName) throws IOException {
+		logResultQuality(evaluate(diffFileName, previousDiffFileName, resultCache));
+	}
+
+	/**
+	 * Logs the quality determined for a result.
+	 *
+	 * @param incrementalResult the incremental result
+	 */
+	private void logResultQuality(QualityResult incrementalResult) {
+		LOGGER.logInfo(
+				"Marked " + incrementalResult.getResultFileName() + " as " + incrementalResult.getResultQuality());
+	}
+
+	/**
+	 * Evaluates the results for the name of a git-diff file without logging the
+	 * verdict.
+	 *
+	 * @param diffFileName         the diff file name
+	 * @param previousDiffFileName the previous diff file name
+	 * @param cache                the cache to read result files from
+	 * @return the quality result for the incremental result
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private QualityResult evaluate(String diffFileName, String previousDiffFileName, ResultCache cache)
+			throws IOException {
 
 		QualityResult referenceResult = new QualityResult(diffFileName);
 		QualityResult incrementalResult = new QualityResult(diffFileName);
@@ -165,80 +498,225 @@ public class QualityEvaluator {
 
 		referenceResult.setResultQuality(QualityResult.ResultQuality.BASELINE);
 
-		if (contentIdentical(referenceOutputFile, incrementalResultFile)) {
-			incrementalResult.setResultQuality(QualityResult.ResultQuality.SAME);
-			LOGGER.logInfo("Marked " + incrementalResult.getResultFileName() + " as SAME");
-		} else if (contentEquivalent(referenceOutputFile, previousReferenceOutputFile, incrementalResultFile)) {
-			incrementalResult.setResultQuality(QualityResult.ResultQuality.EQUIVALENT);
-			LOGGER.logInfo("Marked " + incrementalResult.getResultFileName() + " as EQUIVALENT");
+		long combinedSize = referenceOutputFile.length() + incrementalResultFile.length();
+		if (previousReferenceOutputFile != null) {
+			combinedSize += previousReferenceOutputFile.length();
+		}
+
+		QualityResult.ResultQuality quality;
+		if (combinedSize > streamingThreshold) {
+			streamedComparisons.incrementAndGet();
+			quality = evaluateStreaming(referenceOutputFile, previousReferenceOutputFile, incrementalResultFile,
+					incrementalResult);
 		} else {
-			incrementalResult.setResultQuality(QualityResult.ResultQuality.DIFFERENT);
-			LOGGER.logInfo("Marked " + incrementalResult.getResultFileName() + " as DIFFERENT");
+			quality = evaluateInMemory(referenceOutputFile, previousReferenceOutputFile, incrementalResultFile, cache,
+					incrementalResult);
 		}
+		incrementalResult.setResultQuality(quality);
 
 		incrementalResults.put(diffFileName, incrementalResult);
 		referenceResults.put(diffFileName, incrementalResult);
 
+		return incrementalResult;
 	}
 
 	/**
-	 * Checks if content is considered identical.
+	 * Evaluates the results for a diff with all result files held in memory.
 	 *
-	 * @param referenceResult   the reference result
-	 * @param incrementalResult the incremental result
-	 * @return true, if successful
+	 * @param referenceOutputFile         the reference result
+	 * @param previousReferenceOutputFile the previous reference result, may be
+	 *                                    null
+	 * @param incrementalResultFile       the incremental result
+	 * @param cache                       the cache to read result files from
+	 * @param result                      receives the number of differing
+	 *                                    entries
+	 * @return the quality of the incremental result
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	// CHECKSTYLE:OFF
+	private QualityResult.ResultQuality evaluateInMemory(File referenceOutputFile, File previousReferenceOutputFile,
+			File incrementalResultFile, ResultCache cache, QualityResult result) throws IOException {
+		// CHECKSTYLE:ON
+		/*
+		 * Distinct lines are never removed from a dictionary, so it is replaced
+		 * (together with the cached results referring to it) once it stores more
+		 * than a single comparison may hold in memory.
+		 */
+		if (cache.getDictionary().getStoredBytes() > streamingThreshold) {
+			dropRowDictionary(cache.getDictionary());
+			cache.clear(createRowDictionary());
+		}
+		/*
+		 * The previous reference result is requested first: it was the current
+		 * reference result of the previous diff and must not be evicted from the
+		 * cache by the results of the current diff.
+		 */
+		ResultMultiset previousReferenceLines = null;
+		if (previousReferenceOutputFile != null) {
+			previousReferenceLines = cache.get(previousReferenceOutputFile);
+		} else {
+			previousReferenceLines = new ResultMultiset(cache.getDictionary());
+		}
+		ResultMultiset referenceLines = cache.get(referenceOutputFile);
+		ResultMultiset incrementalLines = cache.get(incrementalResultFile);
+
+		QualityResult.ResultQuality quality;
+		if (contentIdentical(referenceOutputFile, referenceLines, incrementalLines)) {
+			result.setUnexpectedEntries(0);
+			result.setMissingEntries(0);
+			quality = QualityResult.ResultQuality.SAME;
+		} else if (contentEquivalent(referenceOutputFile, incrementalResultFile, referenceLines,
+				previousReferenceLines, incrementalLines, result)) {
+			quality = QualityResult.ResultQuality.EQUIVALENT;
+		} else {
+			quality = QualityResult.ResultQuality.DIFFERENT;
+		}
+		return quality;
+	}
+
+	/**
+	 * Evaluates the results for a diff through external sorting so that result
+	 * files larger than the available memory can be compared. Follows the same
+	 * rules as the in-memory comparison.
+	 *
+	 * @param referenceOutputFile         the reference result
+	 * @param previousReferenceOutputFile the previous reference result, may be
+	 *                                    null
+	 * @param incrementalResultFile       the incremental result
+	 * @param result                      receives the number of differing
+	 *                                    entries
+	 * @return the quality of the incremental result
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private boolean contentIdentical(File referenceResult, File incrementalResult) throws IOException {
+	// CHECKSTYLE:OFF
+	private QualityResult.ResultQuality evaluateStreaming(File referenceOutputFile, File previousReferenceOutputFile,
+			File incrementalResultFile, QualityResult result) throws IOException {
+		// CHECKSTYLE:ON
+		Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+		ExternalLineSorter sorter = new ExternalLineSorter(Math.max(MEGABYTE, streamingThreshold / 2), tempDir);
+		StreamingResultComparator comparator = new StreamingResultComparator(tempDir);
+		List<Path> tempFiles = new ArrayList<Path>();
+
+		QualityResult.ResultQuality quality;
+		try {
+			Path sortedReference = sorter.sort(referenceOutputFile.toPath());
+			tempFiles.add(sortedReference);
+			Path sortedIncremental = sorter.sort(incrementalResultFile.toPath());
+			tempFiles.add(sortedIncremental);
+
+			boolean identical = comparator.sameLines(sortedReference, sortedIncremental);
+			StreamingResultComparator.MissingLines incrementalWithoutRefLines = null;
+			if (!identical) {
+				incrementalWithoutRefLines = comparator.missingLines(sortedIncremental, sortedReference);
+			}
 
-		List<String> referenceLines = null;
-		List<String> incrementalLines = null;
+			if (identical) {
+				result.setUnexpectedEntries(0);
+				result.setMissingEntries(0);
+				quality = QualityResult.ResultQuality.SAME;
+			} else if (!incrementalWithoutRefLines.isEmpty()) {
+				result.setUnexpectedEntries(incrementalWithoutRefLines.getCount());
+				LOGGER.logInfo("Results in incremental analysis for " + referenceOutputFile.getName()
+						+ " contained results that were not present for the reference : ",
+						incrementalWithoutRefLines.toString());
+				quality = QualityResult.ResultQuality.DIFFERENT;
+			} else {
+				Path sortedPreviousReference = null;
+				if (previousReferenceOutputFile != null) {
+					sortedPreviousReference = sorter.sort(previousReferenceOutputFile.toPath());
+					tempFiles.add(sortedPreviousReference);
+				}
+
+				LogChangeFilter logFilter = null;
+				BiPredicate<String, Integer> remove = (entry, count) -> false;
+				if (this.mode.equals(Mode.CONFIG_BLOCK_CHANGE)) {
+					LogChangeFilter filter = readLogChangeFilter(incrementalResultFile, true);
+					remove = (entry, count) -> filter.test(entry, count)
+							|| !PresenceConditionScanner.isVariabilityRelated(entry);
+					logFilter = filter;
+				} else if (this.mode.equals(Mode.BLOCK_CHANGE)) {
+					logFilter = readLogChangeFilter(incrementalResultFile, false);
+					remove = logFilter::test;
+				}
 
-		referenceLines = Files.readAllLines(referenceResult.toPath());
-		incrementalLines = Files.readAllLines(incrementalResult.toPath());
+				Path referenceChanges = comparator.difference(sortedReference, sortedPreviousReference, remove);
+				tempFiles.add(referenceChanges);
+				if (logFilter != null) {
+					logFilter.logSummary(incrementalResultFile.getName());
+				}
 
-		return referenceLines.containsAll(incrementalLines) && incrementalLines.containsAll(referenceLines);
+				StreamingResultComparator.MissingLines referenceWithoutIncrementalLines = comparator
+						.missingLines(referenceChanges, sortedIncremental);
+				result.setUnexpectedEntries(0);
+				result.setMissingEntries(referenceWithoutIncrementalLines.getCount());
+				if (referenceWithoutIncrementalLines.isEmpty()) {
+					quality = QualityResult.ResultQuality.EQUIVALENT;
+				} else {
+					LOGGER.logInfo(
+							"Results in reference analysis for " + referenceOutputFile.getName()
+									+ " contained new results (compared to the previous"
+									+ " reference) that were not present for the " + "incremental result : ",
+							referenceWithoutIncrementalLines.toString());
+					quality = QualityResult.ResultQuality.DIFFERENT;
+				}
+			}
+		} finally {
+			for (Path tempFile : tempFiles) {
+				Files.deleteIfExists(tempFile);
+			}
+		}
+		return quality;
+	}
+
+	/**
+	 * Checks if content is considered identical.
+	 *
+	 * @param referenceResult  the reference result
+	 * @param referenceLines   the lines of the reference result
+	 * @param incrementalLines the lines of the incremental result
+	 * @return true, if successful
+	 */
+	private boolean contentIdentical(File referenceResult, ResultMultiset referenceLines,
+			ResultMultiset incrementalLines) {
+		boolean identical = referenceLines.sameLinesAs(incrementalLines);
+		if (identical && !referenceLines.sameCountsAs(incrementalLines)) {
+			LOGGER.logInfo("Results for " + referenceResult.getName() + " contain the same entries but differ in"
+					+ " duplicate entries (reference duplicates: " + referenceLines.getDuplicateCount()
+					+ ", incremental duplicates: " + incrementalLines.getDuplicateCount() + ")");
+		}
+		return identical;
 	}
 
 	/**
 	 * Checks if content is considered equivalent.
 	 *
-	 * @param referenceResult         the reference result
-	 * @param previousReferenceResult the previous reference result
-	 * @param incrementalResult       the incremental result
+	 * @param referenceResult        the reference result
+	 * @param incrementalResult      the incremental result
+	 * @param referenceLines         the lines of the reference result
+	 * @param previousReferenceLines the lines of the previous reference result
+	 * @param incrementalLines       the lines of the incremental result
+	 * @param result                 receives the number of differing entries
 	 * @return true, if successful
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private boolean contentEquivalent(File referenceResult, File previousReferenceResult, File incrementalResult)
+	// CHECKSTYLE:OFF
+	private boolean contentEquivalent(File referenceResult, File incrementalResult, ResultMultiset referenceLines,
+			ResultMultiset previousReferenceLines, ResultMultiset incrementalLines, QualityResult result)
 			throws IOException {
-		List<String> referenceLines = null;
-		List<String> incrementalLines = null;
-		List<String> previousReferenceLines = null;
-
-		referenceLines = Files.readAllLines(referenceResult.toPath());
-		incrementalLines = Files.readAllLines(incrementalResult.toPath());
-
-		if (previousReferenceResult != null) {
-			previousReferenceLines = Files.readAllLines(previousReferenceResult.toPath());
-		} else {
-			previousReferenceLines = new ArrayList<String>();
-		}
-
+		// CHECKSTYLE:ON
 		/*
 		 * first make sure that the result of the reference analysis contains all
 		 * entries that the incremental analysis produced. The incremental result may
 		 * not contain any results that are not present for the reference.
 		 */
-		boolean isEquivalent = referenceLines.containsAll(incrementalLines);
+		boolean isEquivalent = referenceLines.containsAllOf(incrementalLines);
 
 		if (isEquivalent) {
 			/*
 			 * check if the result of the incremental analysis covers all lines that changed
 			 * within the reference analysis compared to its predecessor.
 			 */
-			List<String> referenceChanges = new ArrayList<String>(referenceLines);
-
-			referenceChanges.removeAll(previousReferenceLines);
+			ResultMultiset referenceChanges = referenceLines.minus(previousReferenceLines);
 
 			if (this.mode.equals(Mode.CONFIG_BLOCK_CHANGE)) {
 
@@ -248,77 +726,31 @@ public class QualityEvaluator {
 				 * because a line number changed. The incremental analysis may only update the
 				 * line number in the model but not execute the analysis on the code file.
 				 * Therefore it does not have to include the results with updated line numbers.
+				 *
+				 * Additionally and only for varchange mode, we also remove entries that were
+				 * identified as not changing variability. If this occurs in testdata, one
+				 * should perform an additional manual inspection.
 				 */
-
-				String fileName = incrementalResult.getName().replace("output", "log").replace(".csv", ".log");
-				Path pathToIncrementalLog = this.baseDir.resolve(LOG_INCREMENTAL_DIR + "/" + fileName);
-				List<String> logLines = Files.readAllLines(pathToIncrementalLog);
-
-				for (String line : logLines) {
-					if (line.contains(LOG_LINE_UPDATE_PATTERN)) {
-						String updatedFile = line
-								.substring(line.indexOf(LOG_LINE_UPDATE_PATTERN) + LOG_LINE_UPDATE_PATTERN.length());
-						for (int i = 0; i < referenceChanges.size(); i++) {
-							if (referenceChanges.get(i).startsWith(updatedFile)) {
-								LOGGER.logInfo("Found new entry in reference that is likely to be a line update: "
-										+ referenceChanges);
-								referenceChanges.get(i);
-								referenceChanges.remove(i);
-								i--;
-							}
-						}
-						// Additionally and only for varchange mode, we also remove entries that were
-						// identified as not changing variability. If this occurs
-						// in testdata, one should perform an additional manual inspection.
-					} else if (line.contains(LOG_LINE_NO_VARCHANGE_PATTERN)) {
-						String updatedFile = line.substring(line.indexOf("Skipping ") + "Skipping ".length(),
-								line.indexOf(LOG_LINE_NO_VARCHANGE_PATTERN));
-						for (int i = 0; i < referenceChanges.size(); i++) {
-							if (referenceChanges.get(i).startsWith(updatedFile)) {
-								LOGGER.logInfo(
-										"Found new entry in reference that is probably not the result of a change to variability: "
-												+ referenceChanges.get(i));
-								referenceChanges.remove(i);
-								i--;
-							}
-						}
-					}
-				}
+				removeEntriesFilteredByLog(referenceChanges, incrementalResult, true);
 
 				// remove all lines that represent non-variability relevant
 				// information
-				referenceChanges = removeNonVariabilityLines(referenceChanges);
+				referenceChanges.removeMatching(entry -> !PresenceConditionScanner.isVariabilityRelated(entry));
 			} else if (this.mode.equals(Mode.BLOCK_CHANGE)) {
 				/*
 				 * remove line updates - similar to variability mode
 				 */
-				String fileName = incrementalResult.getName().replace("output", "log").replace(".csv", ".log");
-				Path pathToIncrementalLog = this.baseDir.resolve(LOG_INCREMENTAL_DIR + "/" + fileName);
-				List<String> logLines = Files.readAllLines(pathToIncrementalLog);
-
-				for (String line : logLines) {
-					if (line.contains(LOG_LINE_UPDATE_PATTERN)) {
-						String updatedFile = line
-								.substring(line.indexOf(LOG_LINE_UPDATE_PATTERN) + LOG_LINE_UPDATE_PATTERN.length());
-						for (int i = 0; i < referenceChanges.size(); i++) {
-							if (referenceChanges.get(i).startsWith(updatedFile)) {
-								LOGGER.logInfo("Found new entry in reference that is likely to be a line update: "
-										+ referenceChanges.get(i));
-								referenceChanges.get(i);
-								referenceChanges.remove(i);
-								i--;
-							}
-						}
-					}
-				}
+				removeEntriesFilteredByLog(referenceChanges, incrementalResult, false);
 			}
 
-			isEquivalent = incrementalLines.containsAll(referenceChanges);
+			isEquivalent = incrementalLines.containsAllOf(referenceChanges);
+			result.setUnexpectedEntries(0);
+			result.setMissingEntries(0);
 			if (!isEquivalent) {
-				List<String> referenceWithoutIncrementalLines = new ArrayList<String>(referenceChanges);
-				referenceWithoutIncrementalLines.removeAll(incrementalLines);
+				ResultMultiset referenceWithoutIncrementalLines = referenceChanges.minus(incrementalLines);
+				result.setMissingEntries(referenceWithoutIncrementalLines.distinctSize());
 				StringJoiner joiner = new StringJoiner("\n");
-				referenceWithoutIncrementalLines.forEach(line -> joiner.add(line));
+				referenceWithoutIncrementalLines.toList().forEach(line -> joiner.add(line));
 				LOGGER.logInfo(
 						"Results in reference analysis for " + referenceResult.getName()
 								+ " contained new results (compared to the previous"
@@ -326,10 +758,10 @@ public class QualityEvaluator {
 						joiner.toString());
 			}
 		} else {
-			List<String> incrementalWithoutRefLines = new ArrayList<String>(incrementalLines);
-			incrementalWithoutRefLines.removeAll(referenceLines);
+			ResultMultiset incrementalWithoutRefLines = incrementalLines.minus(referenceLines);
+			result.setUnexpectedEntries(incrementalWithoutRefLines.distinctSize());
 			StringJoiner joiner = new StringJoiner("\n");
-			incrementalWithoutRefLines.forEach(line -> joiner.add(line));
+			incrementalWithoutRefLines.toList().forEach(line -> joiner.add(line));
 			LOGGER.logInfo("Results in incremental analysis for " + referenceResult.getName()
 					+ " contained results that were not present for the reference : ", joiner.toString());
 		}
@@ -337,30 +769,41 @@ public class QualityEvaluator {
 	}
 
 	/**
-	 * Removes the non variability lines by looking at the presence condition.
-	 * Discards lines where the presence condition does not contain CONFIG_ at the
-	 * beginning of a variable.
+	 * Removes entries from the reference changes that belong to files which were
+	 * only updated (line numbers) or skipped according to the log of the
+	 * incremental analysis.
 	 *
-	 * @param lines the lines
-	 * @return the list
+	 * @param referenceChanges           the reference changes (modified by this
+	 *                                   method)
+	 * @param incrementalResult          the incremental result file
+	 * @param removeNoVariabilityChanges whether files that were skipped as they
+	 *                                   introduced no variability related changes
+	 *                                   should be removed as well
+	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	private List<String> removeNonVariabilityLines(List<String> lines) {
-		List<String> newList = new ArrayList<String>();
-		Pattern pattern = Pattern.compile("(?<!(_|\\w|\\d))CONFIG_");
-		for (String entry : lines) {
-			String[] entryParts = entry.split(";");
-			String presenceCondition = entryParts[entryParts.length - 1];
-			String filePc = entryParts[1];
-			Matcher matcher = pattern.matcher(presenceCondition);
-			Matcher filePcMatcher = pattern.matcher(filePc);
-			boolean pcFound = matcher.find();
-			boolean filePcFound = filePcMatcher.find();
-			if (pcFound || (filePcFound && presenceCondition.isEmpty())) {
-				newList.add(entry);
-			}
+	private void removeEntriesFilteredByLog(ResultMultiset referenceChanges, File incrementalResult,
+			boolean removeNoVariabilityChanges) throws IOException {
+		LogChangeFilter filter = readLogChangeFilter(incrementalResult, removeNoVariabilityChanges);
+		filter.removeFrom(referenceChanges);
+		filter.logSummary(incrementalResult.getName());
+	}
 
-		}
-		return newList;
+	/**
+	 * Creates the filter for reference changes from the log of the incremental
+	 * analysis belonging to an incremental result.
+	 *
+	 * @param incrementalResult          the incremental result file
+	 * @param removeNoVariabilityChanges whether files that were skipped as they
+	 *                                   introduced no variability related changes
+	 *                                   should be matched as well
+	 * @return the filter
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private LogChangeFilter readLogChangeFilter(File incrementalResult, boolean removeNoVariabilityChanges)
+			throws IOException {
+		String fileName = incrementalResult.getName().replace("output", "log").replace(".csv", ".log");
+		Path pathToIncrementalLog = this.baseDir.resolve(LOG_INCREMENTAL_DIR + "/" + fileName);
+		return new LogChangeFilter(Files.readAllLines(pathToIncrementalLog), removeNoVariabilityChanges);
 	}
 
 }
@@ -34,6 +34,18 @@ public class QualityResult {
     /** The result quality. */
     private ResultQuality resultQuality;
 
+    /**
+     * The number of distinct entries of the result that are not present in the
+     * baseline result.
+     */
+    private long unexpectedEntries = -1;
+
+    /**
+     * The number of distinct entries that changed in the baseline result but
+     * are missing in the result.
+     */
+    private long missingEntries = -1;
+
     /**
      * Instantiates a new quality result.
      *
@@ -83,4 +95,46 @@ public class QualityResult {
         this.resultFileName = resultFileName;
     }
 
+    /**
+     * Gets the number of distinct entries of the result that are not present in
+     * the baseline result.
+     *
+     * @return the number of entries, -1 if not determined
+     */
+    public long getUnexpectedEntries() {
+        return unexpectedEntries;
+    }
+
+    /**
+     * Sets the number of distinct entries of the result that are not present in
+     * the baseline result.
+     *
+     * @param unexpectedEntries
+     *            the number of entries
+     */
+    public void setUnexpectedEntries(long unexpectedEntries) {
+        this.unexpectedEntries = unexpectedEntries;
+    }
+
+    /**
+     * Gets the number of distinct entries that changed in the baseline result
+     * but are missing in the result.
+     *
+     * @return the number of entries, -1 if not determined
+     */
+    public long getMissingEntries() {
+        return missingEntries;
+    }
+
+    /**
+     * Sets the number of distinct entries that changed in the baseline result
+     * but are missing in the result.
+     *
+     * @param missingEntries
+     *            the number of entries
+     */
+    public void setMissingEntries(long missingEntries) {
+        this.missingEntries = missingEntries;
+    }
+
 }
@@ -0,0 +1,83 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+/**
+ * Resource usage reported by GNU time (/usr/bin/time -v) in the time file of
+ * an analysis. Each metric is identified by the label preceding its value in
+ * the time file.
+ *
+ * @author moritz
+ */
+public enum ResourceMetric {
+
+    /** The maximum resident set size in kilobytes. */
+    MAX_RESIDENT_SET_SIZE("Maximum resident set size (kbytes): ", "kB"),
+
+    /** The CPU time spent in user mode in seconds. */
+    USER_TIME("User time (seconds): ", "s"),
+
+    /** The CPU time spent in kernel mode in seconds. */
+    SYSTEM_TIME("System time (seconds): ", "s"),
+
+    /** The number of page faults that required I/O. */
+    MAJOR_PAGE_FAULTS("Major (requiring I/O) page faults: ", ""),
+
+    /** The number of page faults that could be served without I/O. */
+    MINOR_PAGE_FAULTS("Minor (reclaiming a frame) page faults: ", ""),
+
+    /** The number of file system inputs. */
+    FILE_SYSTEM_INPUTS("File system inputs: ", ""),
+
+    /** The number of file system outputs. */
+    FILE_SYSTEM_OUTPUTS("File system outputs: ", ""),
+
+    /** The number of times the process gave up the CPU voluntarily (e.g. waiting for I/O). */
+    VOLUNTARY_CONTEXT_SWITCHES("Voluntary context switches: ", ""),
+
+    /** The number of times the process was preempted. */
+    INVOLUNTARY_CONTEXT_SWITCHES("Involuntary context switches: ", "");
+
+    /** The label preceding the value in the time file. */
+    private final String label;
+
+    /** The unit of the value. */
+    private final String unit;
+
+    /**
+     * Instantiates a new metric.
+     *
+     * @param label the label preceding the value in the time file
+     * @param unit the unit of the value, empty for counts
+     */
+    ResourceMetric(String label, String unit) {
+        this.label = label;
+        this.unit = unit;
+    }
+
+    /**
+     * Gets the label preceding the value in the time file.
+     *
+     * @return the label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the unit of the value.
+     *
+     * @return the unit, empty for counts
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets a readable name of the metric.
+     *
+     * @return the label without trailing colon
+     */
+    public String getDisplayName() {
+        return label.substring(0, label.lastIndexOf(':'));
+    }
+
+}
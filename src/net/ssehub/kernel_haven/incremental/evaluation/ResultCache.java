@@ -0,0 +1,132 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache for parsed result files. {@link QualityEvaluator} walks the
+ * diffs in order and needs the reference result of a diff again as previous
+ * reference result for the following diff. Keeping the most recently used
+ * results in a small sliding window ensures that each result file is only
+ * parsed once.
+ *
+ * <p>
+ * Cached {@link ResultMultiset} instances are shared and must not be modified
+ * by callers.
+ * </p>
+ *
+ * @author moritz
+ */
+public class ResultCache {
+
+    /**
+     * Default capacity: previous and current reference result as well as the
+     * current incremental result. This is sufficient as long as the previous
+     * reference result is requested before the current results.
+     */
+    public static final int DEFAULT_CAPACITY = 3;
+
+    /** The cached results, ordered from least to most recently used. */
+    private Map<Path, ResultMultiset> cache;
+
+    /** The dictionary used for parsed results. */
+    private RowDictionary dictionary;
+
+    /** The number of cache hits. */
+    private long hits;
+
+    /** The number of cache misses. */
+    private long misses;
+
+    /**
+     * Instantiates a new result cache with {@link #DEFAULT_CAPACITY}.
+     *
+     * @param dictionary the dictionary used for parsed results
+     */
+    public ResultCache(RowDictionary dictionary) {
+        this(dictionary, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new result cache.
+     *
+     * @param dictionary the dictionary used for parsed results
+     * @param capacity the maximum number of result files kept in memory
+     */
+    public ResultCache(RowDictionary dictionary, final int capacity) {
+        this.dictionary = dictionary;
+        this.cache = new LinkedHashMap<Path, ResultMultiset>(capacity + 1, 1f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, ResultMultiset> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the parsed lines of a result file. The file is only read if it is not
+     * present within the cache.
+     *
+     * @param resultFile the result file
+     * @return the lines of the result file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ResultMultiset get(File resultFile) throws IOException {
+        Path key = resultFile.toPath().toAbsolutePath().normalize();
+        ResultMultiset lines = cache.get(key);
+        if (lines == null) {
+            misses++;
+            lines = ResultMultiset.read(dictionary, key);
+            cache.put(key, lines);
+        } else {
+            hits++;
+        }
+        return lines;
+    }
+
+    /**
+     * Drops all cached results and parses further result files with the given
+     * dictionary, so that the previous dictionary can be released once it is no
+     * longer used by the caller.
+     *
+     * @param newDictionary the dictionary used for results parsed from now on
+     */
+    public void clear(RowDictionary newDictionary) {
+        cache.clear();
+        this.dictionary = newDictionary;
+    }
+
+    /**
+     * Gets the dictionary used for parsed results.
+     *
+     * @return the dictionary
+     */
+    public RowDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Gets the number of cache hits.
+     *
+     * @return the hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of cache misses (= number of parsed files).
+     *
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+}
@@ -0,0 +1,580 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer for evaluation results as one record per diff in a machine readable
+ * file. The columns of the records are defined by a {@link Schema}; every
+ * record consists of one value per column written in the order of the columns
+ * and is completed with {@link #endRecord()}. Records are streamed through a
+ * buffer into a {@link FileChannel}, so the number of records is not limited by
+ * the available memory.
+ *
+ * <p>
+ * Missing numeric values are written as they are stored in the results (-1 by
+ * convention), missing strings as null.
+ * </p>
+ *
+ * @author moritz
+ */
+public abstract class ResultExporter implements Closeable {
+
+    /**
+     * The type of the values of a column.
+     */
+    public enum ColumnType {
+        STRING, LONG, DOUBLE, BOOLEAN
+    }
+
+    /**
+     * The supported file formats.
+     */
+    public enum Format {
+
+        /** Semicolon separated values with a header line. */
+        CSV(".csv"),
+
+        /** One JSON object per line. */
+        JSON_LINES(".jsonl"),
+
+        /** Binary file storing the values of each column contiguously (see {@link ColumnarResultExporter}). */
+        COLUMNAR(".col");
+
+        /** The file extension identifying the format. */
+        private final String extension;
+
+        /**
+         * Instantiates a new format.
+         *
+         * @param extension the file extension identifying the format
+         */
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Gets the file extension identifying the format.
+         *
+         * @return the extension including the dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Determines the format of a file from its extension.
+         *
+         * @param file the file
+         * @return the format
+         * @throws IllegalArgumentException if the extension does not belong to a
+         *         format
+         */
+        public static Format forFile(Path file) {
+            Format result = null;
+            for (Format format : values()) {
+                if (file.getFileName().toString().endsWith(format.extension)) {
+                    result = format;
+                }
+            }
+            if (result == null) {
+                throw new IllegalArgumentException("Unknown export format of " + file
+                    + " (supported: .csv, .jsonl, .col)");
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The names and types of the columns of the exported records.
+     */
+    public static final class Schema {
+
+        /** The column names. */
+        private List<String> names = new ArrayList<String>();
+
+        /** The column types. */
+        private List<ColumnType> types = new ArrayList<ColumnType>();
+
+        /**
+         * Appends a column.
+         *
+         * @param name the name of the column
+         * @param type the type of the values
+         * @return this schema
+         */
+        public Schema add(String name, ColumnType type) {
+            names.add(name);
+            types.add(type);
+            return this;
+        }
+
+        /**
+         * Gets the number of columns.
+         *
+         * @return the number of columns
+         */
+        public int size() {
+            return names.size();
+        }
+
+        /**
+         * Gets the name of a column.
+         *
+         * @param column the index of the column
+         * @return the name
+         */
+        public String getName(int column) {
+            return names.get(column);
+        }
+
+        /**
+         * Gets the type of a column.
+         *
+         * @param column the index of the column
+         * @return the type
+         */
+        public ColumnType getType(int column) {
+            return types.get(column);
+        }
+    }
+
+    /** The size of the output buffer in bytes. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The schema of the records. */
+    private Schema schema;
+
+    /** The types of the columns (copied from the schema for fast access). */
+    private ColumnType[] types;
+
+    /** The channel of the written file. */
+    private FileChannel channel;
+
+    /** The output buffer. */
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    /** The output buffer wrapped for writing it to the channel. */
+    private ByteBuffer wrappedBuffer = ByteBuffer.wrap(buffer);
+
+    /** The number of bytes in the output buffer. */
+    private int position;
+
+    /** The number of bytes written to the channel. */
+    private long written;
+
+    /** The offset in the file at which the current record starts. */
+    private long recordStart;
+
+    /** Used to format doubles. */
+    private StringBuilder scratch = new StringBuilder();
+
+    /** The index of the next column to write within the current record. */
+    private int column;
+
+    /** The number of completed records. */
+    private long recordCount;
+
+    /**
+     * Opens the file, replacing an existing file.
+     *
+     * @param file the file to write
+     * @param schema the columns of the records
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected ResultExporter(Path file, Schema schema) throws IOException {
+        this.schema = schema;
+        this.types = new ColumnType[schema.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = schema.getType(i);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Creates an exporter for the format given by the extension of the file.
+     *
+     * @param file the file to write
+     * @param schema the columns of the records
+     * @return the exporter
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws IllegalArgumentException if the extension does not belong to a
+     *         format
+     */
+    public static ResultExporter open(Path file, Schema schema) throws IOException {
+        ResultExporter exporter;
+        switch (Format.forFile(file)) {
+        case CSV:
+            exporter = new CsvResultExporter(file, schema);
+            break;
+        case JSON_LINES:
+            exporter = new JsonLinesResultExporter(file, schema);
+            break;
+        default:
+            exporter = new ColumnarResultExporter(file, schema);
+            break;
+        }
+        return exporter;
+    }
+
+    /**
+     * Writes the value of the next column of type {@link ColumnType#STRING}.
+     *
+     * @param value the value, may be null
+     * @return this exporter
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ResultExporter writeString(String value) throws IOException {
+        appendString(nextColumn(ColumnType.STRING), value);
+        return this;
+    }
+
+    /**
+     * Writes the value of the next column of type {@link ColumnType#LONG}.
+     *
+     * @param value the value
+     * @return this exporter
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ResultExporter writeLong(long value) throws IOException {
+        appendLong(nextColumn(ColumnType.LONG), value);
+        return this;
+    }
+
+    /**
+     * Writes the value of the next column of type {@link ColumnType#DOUBLE}.
+     *
+     * @param value the value
+     * @return this exporter
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ResultExporter writeDouble(double value) throws IOException {
+        appendDouble(nextColumn(ColumnType.DOUBLE), value);
+        return this;
+    }
+
+    /**
+     * Writes the value of the next column of type {@link ColumnType#BOOLEAN}.
+     *
+     * @param value the value
+     * @return this exporter
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ResultExporter writeBoolean(boolean value) throws IOException {
+        appendBoolean(nextColumn(ColumnType.BOOLEAN), value);
+        return this;
+    }
+
+    /**
+     * Completes the current record.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws IllegalStateException if not all columns of the record were
+     *         written
+     */
+    public void endRecord() throws IOException {
+        if (column != types.length) {
+            throw new IllegalStateException("Record ended after " + column + " of " + types.length + " columns");
+        }
+        appendEndOfRecord();
+        column = 0;
+        recordCount++;
+    }
+
+    /**
+     * Gets the number of completed records.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the schema of the records.
+     *
+     * @return the schema
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Writes all remaining data and closes the file. An incomplete record is
+     * discarded, including values of it that were already written to the
+     * file.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (column > 0) {
+                discardRecord();
+            }
+            finish();
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Discards the bytes of the current record, truncating the file if parts
+     * of the record were already written to it.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void discardRecord() throws IOException {
+        if (recordStart >= written) {
+            position = (int) (recordStart - written);
+        } else {
+            position = 0;
+            channel.truncate(recordStart);
+            written = recordStart;
+        }
+        column = 0;
+    }
+
+    /**
+     * Checks the type of the next column and advances to it.
+     *
+     * @param type the type of the written value
+     * @return the index of the column
+     */
+    private int nextColumn(ColumnType type) {
+        if (column >= types.length) {
+            throw new IllegalStateException("Record has only " + types.length + " columns");
+        }
+        if (types[column] != type) {
+            throw new IllegalStateException("Column " + schema.getName(column) + " is of type " + types[column]
+                + " but a value of type " + type + " was written");
+        }
+        if (column == 0) {
+            recordStart = written + position;
+        }
+        return column++;
+    }
+
+    /**
+     * Appends a string value to the current record.
+     *
+     * @param column the index of the column
+     * @param value the value, may be null
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected abstract void appendString(int column, String value) throws IOException;
+
+    /**
+     * Appends a long value to the current record.
+     *
+     * @param column the index of the column
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected abstract void appendLong(int column, long value) throws IOException;
+
+    /**
+     * Appends a double value to the current record.
+     *
+     * @param column the index of the column
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected abstract void appendDouble(int column, double value) throws IOException;
+
+    /**
+     * Appends a boolean value to the current record.
+     *
+     * @param column the index of the column
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected abstract void appendBoolean(int column, boolean value) throws IOException;
+
+    /**
+     * Completes the current record after all values were appended.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected abstract void appendEndOfRecord() throws IOException;
+
+    /**
+     * Writes data that is kept back until all records are known. Called once
+     * before the file is closed.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void finish() throws IOException {
+    }
+
+    /**
+     * Writes a byte.
+     *
+     * @param value the byte
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputByte(int value) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes a big-endian int.
+     *
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputInt(int value) throws IOException {
+        ensureRemaining(Integer.BYTES);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes a big-endian long.
+     *
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputLong(long value) throws IOException {
+        outputInt((int) (value >>> 32));
+        outputInt((int) value);
+    }
+
+    /**
+     * Writes a big-endian IEEE 754 double.
+     *
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputDouble(double value) throws IOException {
+        outputLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Writes bytes.
+     *
+     * @param bytes the bytes
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                flush();
+            }
+            int length = Math.min(buffer.length - position, bytes.length - offset);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes text encoded as UTF-8.
+     *
+     * @param text the text
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputText(CharSequence text) throws IOException {
+        boolean ascii = true;
+        for (int i = 0; ascii && i < text.length(); i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            for (int i = 0; i < text.length(); i++) {
+                if (position == buffer.length) {
+                    flush();
+                }
+                buffer[position++] = (byte) text.charAt(i);
+            }
+        } else {
+            outputBytes(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Writes a long as decimal text.
+     *
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputNumber(long value) throws IOException {
+        // a long has at most 19 digits and a sign
+        ensureRemaining(20);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[position++] = '-';
+        } else {
+            remaining = -remaining;
+        }
+        // digits are computed on the negative value, which also covers Long.MIN_VALUE
+        int digits = 1;
+        for (long rest = remaining / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' - (remaining % 10));
+            remaining /= 10;
+        }
+        position += digits;
+    }
+
+    /**
+     * Writes a finite double as decimal text. Integral values are written
+     * without fraction.
+     *
+     * @param value the value
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void outputNumber(double value) throws IOException {
+        scratch.setLength(0);
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            scratch.append((long) value);
+        } else {
+            scratch.append(value);
+        }
+        outputText(scratch);
+    }
+
+    /**
+     * Makes sure that the buffer has space for the given number of bytes.
+     *
+     * @param bytes the number of bytes (at most the size of the buffer)
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.length - position < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void flush() throws IOException {
+        wrappedBuffer.clear();
+        wrappedBuffer.limit(position);
+        while (wrappedBuffer.hasRemaining()) {
+            channel.write(wrappedBuffer);
+        }
+        written += position;
+        position = 0;
+    }
+
+}
@@ -0,0 +1,386 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Multiset of result lines. Used by {@link QualityEvaluator} to compare result
+ * files in linear time instead of relying on
+ * {@link List#containsAll(Collection)} and {@link List#removeAll(Collection)}.
+ *
+ * <p>
+ * Lines are not stored directly. Each distinct line is replaced by its ID in a
+ * shared {@link RowDictionary} and the multiset only holds a sorted array of
+ * IDs along with the number of occurrences of each ID. Set operations are
+ * therefore merges of primitive arrays. Comparisons
+ * ({@link #containsAllOf(ResultMultiset)}, {@link #sameLinesAs(ResultMultiset)},
+ * {@link #minus(ResultMultiset)}) follow the semantics of the list operations
+ * they replace and therefore only look at distinct lines. Duplicates are kept
+ * track of explicitly so that they can be reported through
+ * {@link #getDuplicateCount()} and {@link #sameCountsAs(ResultMultiset)}.
+ * Multisets that are compared with each other must share the same dictionary.
+ * </p>
+ *
+ * @author moritz
+ */
+public class ResultMultiset {
+
+    /** The dictionary translating between lines and IDs. */
+    private RowDictionary dictionary;
+
+    /** The sorted IDs of the distinct lines (only the first distinct entries are used). */
+    private int[] ids;
+
+    /** The number of occurrences for each ID, null if there are no duplicates. */
+    private int[] counts;
+
+    /** The number of distinct lines. */
+    private int distinct;
+
+    /** Total number of lines including duplicates. */
+    private int size;
+
+    /**
+     * Instantiates a new empty multiset.
+     *
+     * @param dictionary the dictionary
+     */
+    public ResultMultiset(RowDictionary dictionary) {
+        this(dictionary, new int[0], null, 0, 0);
+    }
+
+    /**
+     * Instantiates a new multiset containing the given lines.
+     *
+     * @param dictionary the dictionary
+     * @param lines the lines
+     */
+    public ResultMultiset(RowDictionary dictionary, Collection<String> lines) {
+        this.dictionary = dictionary;
+        int[] allIds = new int[lines.size()];
+        int index = 0;
+        for (String line : lines) {
+            allIds[index++] = dictionary.intern(line);
+        }
+        initialize(allIds, allIds.length);
+    }
+
+    /**
+     * Instantiates a new multiset from prepared arrays.
+     *
+     * @param dictionary the dictionary
+     * @param ids the sorted distinct IDs
+     * @param counts the number of occurrences for each ID, may be null
+     * @param distinct the number of distinct IDs
+     * @param size the total number of lines
+     */
+    private ResultMultiset(RowDictionary dictionary, int[] ids, int[] counts, int distinct, int size) {
+        this.dictionary = dictionary;
+        this.ids = ids;
+        this.counts = counts;
+        this.distinct = distinct;
+        this.size = size;
+    }
+
+    /**
+     * Reads the lines of a result file into a new multiset without keeping the
+     * lines of the file in memory.
+     *
+     * @param dictionary the dictionary
+     * @param resultFile the result file
+     * @return the multiset
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static ResultMultiset read(RowDictionary dictionary, Path resultFile) throws IOException {
+        ResultMultiset result = new ResultMultiset(dictionary);
+        int[] allIds = new int[1024];
+        int length = 0;
+        try (BufferedReader reader = Files.newBufferedReader(resultFile, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (length == allIds.length) {
+                    allIds = Arrays.copyOf(allIds, length * 2);
+                }
+                allIds[length++] = dictionary.intern(line);
+            }
+        }
+        result.initialize(allIds, length);
+        return result;
+    }
+
+    /**
+     * Fills this multiset with the given IDs.
+     *
+     * @param allIds the IDs of all lines (in arbitrary order, reused as storage)
+     * @param length the number of IDs
+     */
+    private void initialize(int[] allIds, int length) {
+        Arrays.sort(allIds, 0, length);
+        this.ids = allIds;
+        this.counts = null;
+        this.distinct = 0;
+        this.size = length;
+        for (int i = 0; i < length; i++) {
+            if (distinct > 0 && ids[distinct - 1] == allIds[i]) {
+                if (counts == null) {
+                    counts = new int[length];
+                    Arrays.fill(counts, 0, distinct, 1);
+                }
+                counts[distinct - 1]++;
+            } else {
+                ids[distinct] = allIds[i];
+                if (counts != null) {
+                    counts[distinct] = 1;
+                }
+                distinct++;
+            }
+        }
+        if (distinct < ids.length / 2) {
+            ids = Arrays.copyOf(ids, distinct);
+            if (counts != null) {
+                counts = Arrays.copyOf(counts, distinct);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of occurrences of the distinct line at the given index.
+     *
+     * @param index the index
+     * @return the number of occurrences
+     */
+    private int countAt(int index) {
+        return counts == null ? 1 : counts[index];
+    }
+
+    /**
+     * Gets the number of occurrences of a line.
+     *
+     * @param line the line
+     * @return the number of occurrences, 0 if the line is not present
+     */
+    public int count(String line) {
+        int id = dictionary.find(line);
+        int index = id < 0 ? -1 : Arrays.binarySearch(ids, 0, distinct, id);
+        return index < 0 ? 0 : countAt(index);
+    }
+
+    /**
+     * Checks whether the line is present at least once.
+     *
+     * @param line the line
+     * @return true, if present
+     */
+    public boolean contains(String line) {
+        return count(line) > 0;
+    }
+
+    /**
+     * Gets the total number of lines including duplicates.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of distinct lines.
+     *
+     * @return the number of distinct lines
+     */
+    public int distinctSize() {
+        return distinct;
+    }
+
+    /**
+     * Checks if the multiset is empty.
+     *
+     * @return true, if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of lines that are surplus occurrences of another line.
+     *
+     * @return the duplicate count
+     */
+    public int getDuplicateCount() {
+        return size - distinct;
+    }
+
+    /**
+     * Checks whether every distinct line of other is contained in this multiset.
+     * Equivalent to {@link List#containsAll(Collection)}.
+     *
+     * @param other the other multiset
+     * @return true, if all lines of other are present
+     */
+    public boolean containsAllOf(ResultMultiset other) {
+        checkDictionary(other);
+        // more distinct lines in other can never all be contained in this
+        boolean containsAll = other.distinct <= distinct;
+        int index = 0;
+        for (int otherIndex = 0; containsAll && otherIndex < other.distinct; otherIndex++) {
+            int id = other.ids[otherIndex];
+            while (index < distinct && ids[index] < id) {
+                index++;
+            }
+            containsAll = index < distinct && ids[index] == id;
+        }
+        return containsAll;
+    }
+
+    /**
+     * Checks whether both multisets consist of the same distinct lines,
+     * regardless of how often each line occurs.
+     *
+     * @param other the other multiset
+     * @return true, if the distinct lines are identical
+     */
+    public boolean sameLinesAs(ResultMultiset other) {
+        checkDictionary(other);
+        boolean same = distinct == other.distinct;
+        for (int i = 0; same && i < distinct; i++) {
+            same = ids[i] == other.ids[i];
+        }
+        return same;
+    }
+
+    /**
+     * Checks whether both multisets contain the same lines with the same number
+     * of occurrences.
+     *
+     * @param other the other multiset
+     * @return true, if lines and counts are identical
+     */
+    public boolean sameCountsAs(ResultMultiset other) {
+        boolean same = size == other.size && sameLinesAs(other);
+        for (int i = 0; same && i < distinct; i++) {
+            same = countAt(i) == other.countAt(i);
+        }
+        return same;
+    }
+
+    /**
+     * Creates a new multiset containing all lines of this multiset that are not
+     * present in other. Lines that are kept retain their number of occurrences.
+     * Equivalent to {@link List#removeAll(Collection)}.
+     *
+     * @param other the lines to remove
+     * @return the difference
+     */
+    public ResultMultiset minus(ResultMultiset other) {
+        checkDictionary(other);
+        int[] differenceIds = new int[distinct];
+        int[] differenceCounts = counts == null ? null : new int[distinct];
+        int differenceDistinct = 0;
+        int differenceSize = 0;
+        int otherIndex = 0;
+        for (int i = 0; i < distinct; i++) {
+            while (otherIndex < other.distinct && other.ids[otherIndex] < ids[i]) {
+                otherIndex++;
+            }
+            if (otherIndex >= other.distinct || other.ids[otherIndex] != ids[i]) {
+                differenceIds[differenceDistinct] = ids[i];
+                if (differenceCounts != null) {
+                    differenceCounts[differenceDistinct] = counts[i];
+                }
+                differenceDistinct++;
+                differenceSize += countAt(i);
+            }
+        }
+        return new ResultMultiset(dictionary, differenceIds, differenceCounts, differenceDistinct, differenceSize);
+    }
+
+    /**
+     * Removes every line matching the filter (including all of its
+     * occurrences).
+     *
+     * @param filter the filter
+     * @return the distinct lines that were removed
+     */
+    public List<String> removeMatching(Predicate<String> filter) {
+        return removeMatching((line, count) -> filter.test(line));
+    }
+
+    /**
+     * Removes every line matching the filter (including all of its
+     * occurrences).
+     *
+     * @param filter the filter receiving each distinct line and its number of
+     *        occurrences
+     * @return the distinct lines that were removed
+     */
+    public List<String> removeMatching(BiPredicate<String, Integer> filter) {
+        List<String> removed = new ArrayList<String>();
+        int kept = 0;
+        for (int i = 0; i < distinct; i++) {
+            String line = dictionary.get(ids[i]);
+            if (filter.test(line, countAt(i))) {
+                removed.add(line);
+                size -= countAt(i);
+            } else {
+                ids[kept] = ids[i];
+                if (counts != null) {
+                    counts[kept] = counts[i];
+                }
+                kept++;
+            }
+        }
+        distinct = kept;
+        return removed;
+    }
+
+    /**
+     * Gets the distinct lines.
+     *
+     * @return the distinct lines
+     */
+    public List<String> distinctLines() {
+        List<String> lines = new ArrayList<String>(distinct);
+        for (int i = 0; i < distinct; i++) {
+            lines.add(dictionary.get(ids[i]));
+        }
+        return lines;
+    }
+
+    /**
+     * Gets all lines including duplicates.
+     *
+     * @return the lines
+     */
+    public List<String> toList() {
+        List<String> lines = new ArrayList<String>(size);
+        for (int i = 0; i < distinct; i++) {
+            String line = dictionary.get(ids[i]);
+            for (int j = 0; j < countAt(i); j++) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Makes sure that both multisets use the same dictionary as IDs are not
+     * comparable otherwise.
+     *
+     * @param other the other multiset
+     */
+    private void checkDictionary(ResultMultiset other) {
+        if (dictionary != other.dictionary) {
+            throw new IllegalArgumentException("Result multisets use different row dictionaries");
+        }
+    }
+
+}
@@ -0,0 +1,306 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary assigning an int ID to every distinct result line. Consecutive
+ * result files are almost identical, so storing every distinct line once and
+ * representing each result as a set of IDs (see {@link ResultMultiset}) keeps
+ * memory usage low and allows set operations on primitive arrays.
+ *
+ * <p>
+ * Lines are stored as UTF-8 bytes in large shared pages instead of as
+ * individual {@link String} objects. IDs are assigned consecutively starting
+ * at 0 and are never released, so the {@link QualityEvaluator} limits the
+ * lifetime of a dictionary to a chunk of diffs and replaces it once it grows
+ * beyond the streaming threshold. All methods are thread-safe.
+ * </p>
+ *
+ * <p>
+ * Almost all calls look up lines that are already present, so lookups do not
+ * lock: stored lines and their metadata are never moved or changed, and a new
+ * line only becomes visible to lookups when the size is increased after it was
+ * stored completely. Only adding a line takes the lock, so concurrent callers
+ * only contend while they intern lines that are new to the dictionary (mostly
+ * while the first results are read). A lookup that misses a line added
+ * concurrently by another caller is repeated with the lock held.
+ * </p>
+ *
+ * @author moritz
+ */
+public class RowDictionary {
+
+    /** Size of a page holding encoded lines. */
+    private static final int PAGE_SIZE = 1 << 20;
+
+    /** Initial number of IDs for which space is allocated in the hash table. */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    /** Number of lines whose metadata is stored in one chunk (a power of 2). */
+    private static final int CHUNK_ROWS = 1 << 12;
+
+    /** Number of ints of metadata per line: page, offset, length and hash. */
+    private static final int ROW_FIELDS = 4;
+
+    /**
+     * Pages holding the encoded lines. Filled pages are never changed; the
+     * array is replaced (never modified in place) when it has to grow.
+     */
+    private volatile byte[][] pages = new byte[16][];
+
+    /** The number of pages in use. */
+    private int pageCount;
+
+    /** The next free position in the last page. */
+    private int pageOffset = PAGE_SIZE;
+
+    /**
+     * Chunks holding the page, offset, length and hash of each line (indexed
+     * by ID). Like {@link #pages}, the array is replaced when it has to grow.
+     */
+    private volatile int[][] rows = new int[16][];
+
+    /** The number of stored lines; published after a line is stored completely. */
+    private volatile int size;
+
+    /** Total number of bytes of all encoded lines. */
+    private volatile long storedBytes;
+
+    /**
+     * Open addressing hash table containing ID + 1 for each line, 0 if empty.
+     * Replaced by a larger table when it is half full.
+     */
+    private volatile int[] table = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Gets the ID of a line and adds the line if it is not yet present.
+     *
+     * @param line the line
+     * @return the ID
+     */
+    public int intern(String line) {
+        byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded);
+        int id = lookup(encoded, hash);
+        if (id < 0) {
+            id = internLocked(encoded, hash);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the ID of a line without adding it.
+     *
+     * @param line the line
+     * @return the ID or -1 if the line is not present
+     */
+    public int find(String line) {
+        byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded);
+        int id = lookup(encoded, hash);
+        if (id < 0) {
+            synchronized (this) {
+                id = table[findSlot(table, encoded, hash)] - 1;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Gets the line for an ID.
+     *
+     * @param id the ID
+     * @return the line
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No line for ID " + id);
+        }
+        int[] chunk = rows[id / CHUNK_ROWS];
+        int field = (id % CHUNK_ROWS) * ROW_FIELDS;
+        return new String(pages[chunk[field]], chunk[field + 1], chunk[field + 2], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of distinct lines.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the total number of bytes of all encoded lines.
+     *
+     * @return the stored bytes
+     */
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Looks up an encoded line without locking.
+     *
+     * @param encoded the encoded line
+     * @param hash the hash of the encoded line
+     * @return the ID or -1 if the line was not found; the line may have been
+     *         added concurrently
+     */
+    private int lookup(byte[] encoded, int hash) {
+        int[] current = table;
+        int mask = current.length - 1;
+        int slot = hash & mask;
+        int id = -1;
+        int entry = current[slot];
+        while (entry != 0 && id < 0) {
+            if (entry > size) {
+                // the line is not published yet, so its metadata may not be visible
+                entry = 0;
+            } else if (matches(entry - 1, encoded, hash)) {
+                id = entry - 1;
+            } else {
+                slot = (slot + 1) & mask;
+                entry = current[slot];
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Gets the ID of an encoded line and adds the line if it is not yet
+     * present, holding the lock.
+     *
+     * @param encoded the encoded line
+     * @param hash the hash of the encoded line
+     * @return the ID
+     */
+    private synchronized int internLocked(byte[] encoded, int hash) {
+        int slot = findSlot(table, encoded, hash);
+        int id;
+        if (table[slot] != 0) {
+            id = table[slot] - 1;
+        } else {
+            id = add(encoded, hash);
+            table[slot] = id + 1;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Stores an encoded line and publishes it by increasing the size.
+     * Must be called with the lock held.
+     *
+     * @param encoded the encoded line
+     * @param hash the hash of the encoded line
+     * @return the new ID
+     */
+    private int add(byte[] encoded, int hash) {
+        byte[][] currentPages = pages;
+        if (pageCount == 0 || encoded.length > PAGE_SIZE - pageOffset) {
+            if (pageCount == currentPages.length) {
+                currentPages = Arrays.copyOf(currentPages, pageCount * 2);
+            }
+            currentPages[pageCount++] = new byte[Math.max(PAGE_SIZE, encoded.length)];
+            pageOffset = 0;
+            pages = currentPages;
+        }
+        int id = size;
+        int[][] currentRows = rows;
+        if (id % CHUNK_ROWS == 0) {
+            if (id / CHUNK_ROWS == currentRows.length) {
+                currentRows = Arrays.copyOf(currentRows, currentRows.length * 2);
+            }
+            currentRows[id / CHUNK_ROWS] = new int[CHUNK_ROWS * ROW_FIELDS];
+            rows = currentRows;
+        }
+        System.arraycopy(encoded, 0, currentPages[pageCount - 1], pageOffset, encoded.length);
+        int[] chunk = currentRows[id / CHUNK_ROWS];
+        int field = (id % CHUNK_ROWS) * ROW_FIELDS;
+        chunk[field] = pageCount - 1;
+        chunk[field + 1] = pageOffset;
+        chunk[field + 2] = encoded.length;
+        chunk[field + 3] = hash;
+        pageOffset += encoded.length;
+        storedBytes += encoded.length;
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * Finds the slot of a table containing the encoded line or the empty slot
+     * where it has to be inserted. Must be called with the lock held.
+     *
+     * @param current the table
+     * @param encoded the encoded line
+     * @param hash the hash of the encoded line
+     * @return the slot
+     */
+    private int findSlot(int[] current, byte[] encoded, int hash) {
+        int mask = current.length - 1;
+        int slot = hash & mask;
+        while (current[slot] != 0 && !matches(current[slot] - 1, encoded, hash)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Checks whether the line stored for an ID equals the encoded line. The
+     * line must be published.
+     *
+     * @param id the ID
+     * @param encoded the encoded line
+     * @param hash the hash of the encoded line
+     * @return true, if equal
+     */
+    private boolean matches(int id, byte[] encoded, int hash) {
+        int[] chunk = rows[id / CHUNK_ROWS];
+        int field = (id % CHUNK_ROWS) * ROW_FIELDS;
+        boolean equal = chunk[field + 3] == hash && chunk[field + 2] == encoded.length;
+        byte[] page = pages[chunk[field]];
+        int offset = chunk[field + 1];
+        for (int i = 0; equal && i < encoded.length; i++) {
+            equal = page[offset + i] == encoded[i];
+        }
+        return equal;
+    }
+
+    /**
+     * Replaces the hash table by one of twice the size. The new table is
+     * filled completely before it is published. Must be called with the lock
+     * held.
+     */
+    private void rehash() {
+        int[] larger = new int[table.length * 2];
+        int mask = larger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int[] chunk = rows[id / CHUNK_ROWS];
+            int slot = chunk[(id % CHUNK_ROWS) * ROW_FIELDS + 3] & mask;
+            while (larger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            larger[slot] = id + 1;
+        }
+        table = larger;
+    }
+
+    /**
+     * Calculates the hash of an encoded line.
+     *
+     * @param encoded the encoded line
+     * @return the hash
+     */
+    private static int hash(byte[] encoded) {
+        int hash = 1;
+        for (byte value : encoded) {
+            hash = 31 * hash + value;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,85 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a file with sorted lines one distinct line at a time. Consecutive
+ * duplicates are collapsed into a single line and their number of occurrences.
+ *
+ * @author moritz
+ */
+public class SortedLineReader implements Closeable {
+
+    /** The reader. */
+    private BufferedReader reader;
+
+    /** The current distinct line, null at the end of the file. */
+    private String current;
+
+    /** The number of occurrences of the current line. */
+    private int currentCount;
+
+    /** The first line following the current line (read ahead). */
+    private String lookahead;
+
+    /**
+     * Instantiates a new reader positioned on the first distinct line.
+     *
+     * @param sortedFile the file with sorted lines
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public SortedLineReader(Path sortedFile) throws IOException {
+        this.reader = Files.newBufferedReader(sortedFile, StandardCharsets.UTF_8);
+        this.lookahead = reader.readLine();
+        advance();
+    }
+
+    /**
+     * Moves to the next distinct line.
+     *
+     * @return true, if a further line is available
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public boolean advance() throws IOException {
+        current = lookahead;
+        currentCount = 0;
+        if (current != null) {
+            currentCount = 1;
+            lookahead = reader.readLine();
+            while (current.equals(lookahead)) {
+                currentCount++;
+                lookahead = reader.readLine();
+            }
+        }
+        return current != null;
+    }
+
+    /**
+     * Gets the current distinct line.
+     *
+     * @return the current line or null if the end of the file was reached
+     */
+    public String current() {
+        return current;
+    }
+
+    /**
+     * Gets the number of occurrences of the current line.
+     *
+     * @return the number of occurrences (0 at the end of the file)
+     */
+    public int currentCount() {
+        return currentCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
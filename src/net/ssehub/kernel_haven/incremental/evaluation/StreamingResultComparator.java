@@ -0,0 +1,189 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.BiPredicate;
+
+/**
+ * Set operations on result files with sorted lines (see
+ * {@link ExternalLineSorter}). All operations stream through the files in a
+ * single merge pass and therefore only need a constant amount of memory. Like
+ * {@link ResultMultiset}, comparisons are based on distinct lines.
+ *
+ * @author moritz
+ */
+public class StreamingResultComparator {
+
+    /** Maximum number of lines kept for reporting a difference. */
+    public static final int MAX_REPORTED_LINES = 1000;
+
+    /** The directory for temporary files. */
+    private Path tempDir;
+
+    /**
+     * Lines of one file that are missing in another file.
+     */
+    public static final class MissingLines {
+
+        /** The number of missing distinct lines. */
+        private long count;
+
+        /** The first {@link #MAX_REPORTED_LINES} missing lines. */
+        private List<String> reported = new ArrayList<String>();
+
+        /**
+         * Adds a missing line.
+         *
+         * @param line the line
+         */
+        private void add(String line) {
+            count++;
+            if (reported.size() < MAX_REPORTED_LINES) {
+                reported.add(line);
+            }
+        }
+
+        /**
+         * Checks if no line is missing.
+         *
+         * @return true, if no line is missing
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * Gets the number of missing distinct lines.
+         *
+         * @return the count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Joins the reported lines with line breaks.
+         *
+         * @return the joined lines
+         */
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner("\n");
+            reported.forEach(line -> joiner.add(line));
+            if (count > reported.size()) {
+                joiner.add("... and " + (count - reported.size()) + " more");
+            }
+            return joiner.toString();
+        }
+    }
+
+    /**
+     * Instantiates a new comparator.
+     *
+     * @param tempDir the directory for temporary files
+     */
+    public StreamingResultComparator(Path tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Checks whether both files consist of the same distinct lines.
+     *
+     * @param sortedLines the first sorted file
+     * @param sortedOther the second sorted file
+     * @return true, if the distinct lines are identical
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public boolean sameLines(Path sortedLines, Path sortedOther) throws IOException {
+        boolean same = true;
+        try (SortedLineReader lines = new SortedLineReader(sortedLines);
+            SortedLineReader other = new SortedLineReader(sortedOther)) {
+            while (same && lines.current() != null && other.current() != null) {
+                same = lines.current().equals(other.current());
+                lines.advance();
+                other.advance();
+            }
+            same = same && lines.current() == null && other.current() == null;
+        }
+        return same;
+    }
+
+    /**
+     * Gets the distinct lines of sortedLines that are not present in
+     * sortedOther. An empty result means that sortedOther contains all lines.
+     *
+     * @param sortedLines the sorted file whose lines are looked up
+     * @param sortedOther the sorted file that is searched
+     * @return the missing lines
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public MissingLines missingLines(Path sortedLines, Path sortedOther) throws IOException {
+        MissingLines missing = new MissingLines();
+        try (SortedLineReader lines = new SortedLineReader(sortedLines);
+            SortedLineReader other = new SortedLineReader(sortedOther)) {
+            while (lines.current() != null) {
+                int comparison = other.current() == null ? -1 : lines.current().compareTo(other.current());
+                if (comparison < 0) {
+                    missing.add(lines.current());
+                    lines.advance();
+                } else if (comparison == 0) {
+                    lines.advance();
+                    other.advance();
+                } else {
+                    other.advance();
+                }
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Writes all lines of sortedLines that are not present in sortedOther to a
+     * new sorted temporary file. Kept lines retain their number of occurrences.
+     *
+     * @param sortedLines the sorted file
+     * @param sortedOther the sorted file with lines to remove, may be null
+     * @param remove additional filter receiving each remaining distinct line and
+     *        its number of occurrences; lines for which it returns true are
+     *        omitted as well
+     * @return the temporary file; the caller is responsible for deleting it
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public Path difference(Path sortedLines, Path sortedOther, BiPredicate<String, Integer> remove)
+        throws IOException {
+        Path differenceFile = Files.createTempFile(tempDir, "difference-", ".csv");
+        try (SortedLineReader lines = new SortedLineReader(sortedLines);
+            SortedLineReader other = sortedOther != null ? new SortedLineReader(sortedOther) : null;
+            BufferedWriter writer = Files.newBufferedWriter(differenceFile, StandardCharsets.UTF_8)) {
+            while (lines.current() != null) {
+                int comparison = other == null || other.current() == null ? -1
+                    : lines.current().compareTo(other.current());
+                if (comparison < 0) {
+                    if (!remove.test(lines.current(), lines.currentCount())) {
+                        for (int i = 0; i < lines.currentCount(); i++) {
+                            writer.write(lines.current());
+                            writer.write('\n');
+                        }
+                    }
+                    lines.advance();
+                } else if (comparison == 0) {
+                    lines.advance();
+                    other.advance();
+                } else {
+                    other.advance();
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(differenceFile);
+            throw e;
+        }
+        return differenceFile;
+    }
+
+}
@@ -0,0 +1,104 @@
+package net.ssehub.kernel_haven.incremental.evaluation;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser for the time file written by GNU time (/usr/bin/time -v) for an
+ * analysis. Extracts the elapsed wall clock time as total time of the
+ * {@link PerformanceResult} and all {@link ResourceMetric}s.
+ *
+ * @author moritz
+ */
+public final class TimeFileParser {
+
+    /** Label of the elapsed wall clock time. */
+    private static final String ELAPSED_TIME_LABEL = "Elapsed (wall clock) time (h:mm:ss or m:ss): ";
+
+    /** Pattern for the elapsed wall clock time. */
+    private static final Pattern ELAPSED_TIME_PATTERN =
+        Pattern.compile("((?<hour>\\d+):)?(?<minute>\\d+):(?<second>\\d+.\\d+)");
+
+    /** The metrics in the order they are searched for. */
+    private static final ResourceMetric[] METRICS = ResourceMetric.values();
+
+    /**
+     * Utility class without instances.
+     */
+    private TimeFileParser() {
+    }
+
+    /**
+     * Reads a time file and stores the total time and resource usage in the
+     * result. Values that are not contained in the file are left unchanged.
+     *
+     * @param timeFile the time file
+     * @param result the result
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void parse(File timeFile, PerformanceResult result) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(timeFile))) {
+            for (String nextLine; (nextLine = br.readLine()) != null;) {
+                String line = nextLine.trim();
+                if (line.startsWith(ELAPSED_TIME_LABEL)) {
+                    result.setTotalTime(parseElapsedTime(line));
+                } else {
+                    for (ResourceMetric metric : METRICS) {
+                        if (line.startsWith(metric.getLabel())) {
+                            result.setResourceUsage(metric,
+                                parseDouble(line.substring(metric.getLabel().length())));
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the elapsed wall clock time.
+     *
+     * @param line the line containing the time in the format h:mm:ss or m:ss
+     * @return the time in seconds
+     * @throws IOException if the line does not contain a time
+     */
+    private static double parseElapsedTime(String line) throws IOException {
+        Matcher componentMatcher = ELAPSED_TIME_PATTERN.matcher(line);
+        if (!componentMatcher.find()) {
+            throw new IOException("Invalid elapsed time: " + line);
+        }
+
+        double hour = 0;
+        if (componentMatcher.group("hour") != null) {
+            hour = parseDouble(componentMatcher.group("hour")) * 3600L;
+        }
+
+        double minute = parseDouble(componentMatcher.group("minute")) * 60L;
+        double second = parseDouble(componentMatcher.group("second"));
+        return hour + minute + second;
+    }
+
+    /**
+     * Parses a number as printed by GNU time.
+     *
+     * @param text the text
+     * @return the number
+     * @throws IOException if the text is not a number
+     */
+    private static double parseDouble(String text) throws IOException {
+        NumberFormat format = NumberFormat.getInstance(Locale.US);
+        try {
+            return format.parse(text.trim()).doubleValue();
+        } catch (ParseException e) {
+            throw new IOException("Invalid number in time file: " + text, e);
+        }
+    }
+
+}